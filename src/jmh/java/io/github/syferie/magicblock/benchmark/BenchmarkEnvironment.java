@@ -0,0 +1,270 @@
+package io.github.syferie.magicblock.benchmark;
+
+import com.tcoded.folialib.FoliaLib;
+import io.github.syferie.magicblock.MagicBlockPlugin;
+import io.github.syferie.magicblock.block.BlockBindManager;
+import io.github.syferie.magicblock.block.BlockManager;
+import io.github.syferie.magicblock.manager.MagicBlockIndexManager;
+import io.github.syferie.magicblock.util.PerformanceMonitor;
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
+import org.bukkit.Server;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.inventory.ItemFactory;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.persistence.PersistentDataContainer;
+import org.bukkit.persistence.PersistentDataType;
+import org.bukkit.plugin.PluginDescriptionFile;
+import org.bukkit.plugin.PluginLogger;
+import org.bukkit.plugin.PluginManager;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitScheduler;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.logging.Logger;
+
+/**
+ * 基准测试的无头运行环境
+ * 用动态代理实现基准测试用到的 Bukkit 接口（Server、World、Block、ItemMeta 等），
+ * 并在不经过服务端插件加载器的情况下构造 MagicBlockPlugin 及其管理器
+ *
+ * 调度器是空实现：提交的任务不会执行，基准测试只测量调用线程上的开销
+ */
+public final class BenchmarkEnvironment {
+    private static MagicBlockPlugin plugin;
+
+    private BenchmarkEnvironment() {}
+
+    public static synchronized MagicBlockPlugin plugin() {
+        if (plugin == null) {
+            plugin = createPlugin();
+        }
+        return plugin;
+    }
+
+    private static MagicBlockPlugin createPlugin() {
+        try {
+            Server server = installServer();
+
+            // JavaPlugin 的构造函数要求由服务端的插件类加载器加载，这里直接分配实例再注入字段
+            MagicBlockPlugin instance = allocate(MagicBlockPlugin.class);
+            try (InputStream in = resource("plugin.yml")) {
+                setField(JavaPlugin.class, instance, "description", new PluginDescriptionFile(in));
+            }
+            setField(JavaPlugin.class, instance, "server", server);
+            setField(JavaPlugin.class, instance, "dataFolder", Files.createTempDirectory("magicblock-bench").toFile());
+            setField(JavaPlugin.class, instance, "isEnabled", true);
+            try (Reader reader = new InputStreamReader(resource("config.yml"), StandardCharsets.UTF_8)) {
+                setField(JavaPlugin.class, instance, "newConfig", YamlConfiguration.loadConfiguration(reader));
+            }
+            setField(JavaPlugin.class, instance, "logger", new PluginLogger(instance));
+            instance.reloadSettings();
+
+            setField(MagicBlockPlugin.class, instance, "performanceMonitor", new PerformanceMonitor(instance));
+            setField(MagicBlockPlugin.class, instance, "foliaLib", new FoliaLib(instance));
+            setField(MagicBlockPlugin.class, instance, "blockBindManager", new BlockBindManager(instance));
+            setField(MagicBlockPlugin.class, instance, "blockManager", new BlockManager(instance));
+            setField(MagicBlockPlugin.class, instance, "indexManager", new MagicBlockIndexManager(instance));
+            return instance;
+        } catch (Exception e) {
+            throw new IllegalStateException("无法初始化基准测试环境", e);
+        }
+    }
+
+    private static Server installServer() {
+        if (Bukkit.getServer() != null) {
+            return Bukkit.getServer();
+        }
+
+        Logger logger = Logger.getLogger("MagicBlockBenchmark");
+        logger.setUseParentHandlers(false);
+        ItemFactory itemFactory = itemFactory();
+        PluginManager pluginManager = stub(PluginManager.class, (proxy, method, args) -> defaultValue(method));
+        BukkitScheduler scheduler = stub(BukkitScheduler.class, (proxy, method, args) -> defaultValue(method));
+
+        Server server = stub(Server.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getLogger": return logger;
+                case "getName": return "MagicBlockBenchmark";
+                case "getVersion": return "benchmark";
+                case "getBukkitVersion": return "1.18.2-R0.1-SNAPSHOT";
+                case "getItemFactory": return itemFactory;
+                case "getPluginManager": return pluginManager;
+                case "getScheduler": return scheduler;
+                default: return defaultValue(method);
+            }
+        });
+        Bukkit.setServer(server);
+        return server;
+    }
+
+    // ========== Bukkit 接口桩 ==========
+
+    public static World world(String name) {
+        UUID uid = UUID.nameUUIDFromBytes(name.getBytes(StandardCharsets.UTF_8));
+        return stub(World.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getUID": return uid;
+                case "getName": return name;
+                default: return defaultValue(method);
+            }
+        });
+    }
+
+    public static Block block(World world, int x, int y, int z, Material type) {
+        return stub(Block.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getWorld": return world;
+                case "getX": return x;
+                case "getY": return y;
+                case "getZ": return z;
+                case "getType": return type;
+                default: return defaultValue(method);
+            }
+        });
+    }
+
+    public static BlockData blockData(Material type) {
+        return stub(BlockData.class, (proxy, method, args) ->
+            method.getName().equals("getMaterial") ? type : defaultValue(method));
+    }
+
+    private static ItemFactory itemFactory() {
+        return stub(ItemFactory.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getItemMeta": return new ItemMetaState().proxy();
+                case "isApplicable": return true;
+                case "asMetaFor": return args[0];
+                case "updateMaterial": return args[1];
+                case "equals": return args[0] == args[1];
+                default: return defaultValue(method);
+            }
+        });
+    }
+
+    /**
+     * 可变的 ItemMeta 实现：只保存基准测试用到的名称、Lore 和 PDC
+     */
+    private static final class ItemMetaState implements InvocationHandler {
+        private String displayName;
+        private List<String> lore;
+        private final Map<NamespacedKey, Object> data = new HashMap<>();
+
+        ItemMeta proxy() {
+            return stub(ItemMeta.class, this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            switch (method.getName()) {
+                case "hasDisplayName": return displayName != null;
+                case "getDisplayName": return displayName;
+                case "setDisplayName": displayName = (String) args[0]; return null;
+                case "hasLore": return lore != null && !lore.isEmpty();
+                case "getLore": return lore != null ? new ArrayList<>(lore) : null;
+                case "setLore":
+                    @SuppressWarnings("unchecked")
+                    List<String> newLore = (List<String>) args[0];
+                    lore = newLore != null && !newLore.isEmpty() ? new ArrayList<>(newLore) : null;
+                    return null;
+                case "getPersistentDataContainer": return dataContainer(data);
+                case "clone":
+                    ItemMetaState copy = new ItemMetaState();
+                    copy.displayName = displayName;
+                    copy.lore = lore != null ? new ArrayList<>(lore) : null;
+                    copy.data.putAll(data);
+                    return copy.proxy();
+                default: return defaultValue(method);
+            }
+        }
+    }
+
+    private static PersistentDataContainer dataContainer(Map<NamespacedKey, Object> data) {
+        return stub(PersistentDataContainer.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "set": data.put((NamespacedKey) args[0], args[2]); return null;
+                case "has": return typed(data.get(args[0]), args[1]) != null;
+                case "get": return typed(data.get(args[0]), args[1]);
+                case "getOrDefault":
+                    Object value = typed(data.get(args[0]), args[1]);
+                    return value != null ? value : args[2];
+                case "remove": data.remove(args[0]); return null;
+                case "isEmpty": return data.isEmpty();
+                case "getKeys": return new HashSet<>(data.keySet());
+                default: return defaultValue(method);
+            }
+        });
+    }
+
+    private static Object typed(Object value, Object type) {
+        return value != null && ((PersistentDataType<?, ?>) type).getComplexType().isInstance(value) ? value : null;
+    }
+
+    // ========== 反射工具 ==========
+
+    @SuppressWarnings("unchecked")
+    private static <T> T stub(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                switch (method.getName()) {
+                    case "equals": return proxy == args[0];
+                    case "hashCode": return System.identityHashCode(proxy);
+                    case "toString": return type.getSimpleName() + "Stub";
+                    default: return null;
+                }
+            }
+            return handler.invoke(proxy, method, args);
+        });
+    }
+
+    private static Object defaultValue(Method method) {
+        Class<?> type = method.getReturnType();
+        if (type == boolean.class) return false;
+        if (type == int.class) return 0;
+        if (type == long.class) return 0L;
+        if (type == double.class) return 0.0;
+        if (type == float.class) return 0.0f;
+        if (type == short.class) return (short) 0;
+        if (type == byte.class) return (byte) 0;
+        if (type == char.class) return '\0';
+        if (List.class.isAssignableFrom(type) || type == Collection.class) return Collections.emptyList();
+        if (Set.class.isAssignableFrom(type)) return Collections.emptySet();
+        if (Map.class.isAssignableFrom(type)) return Collections.emptyMap();
+        return null;
+    }
+
+    private static InputStream resource(String name) {
+        InputStream in = MagicBlockPlugin.class.getClassLoader().getResourceAsStream(name);
+        if (in == null) {
+            throw new IllegalStateException("找不到资源文件: " + name);
+        }
+        return in;
+    }
+
+    private static <T> T allocate(Class<T> type) throws Exception {
+        Field unsafeField = Class.forName("sun.misc.Unsafe").getDeclaredField("theUnsafe");
+        unsafeField.setAccessible(true);
+        Object unsafe = unsafeField.get(null);
+        Method allocateInstance = unsafe.getClass().getMethod("allocateInstance", Class.class);
+        return type.cast(allocateInstance.invoke(unsafe, type));
+    }
+
+    private static void setField(Class<?> owner, Object target, String name, Object value) throws Exception {
+        Field field = owner.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+}
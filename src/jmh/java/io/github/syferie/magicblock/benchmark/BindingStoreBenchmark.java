@@ -0,0 +1,93 @@
+package io.github.syferie.magicblock.benchmark;
+
+import io.github.syferie.magicblock.MagicBlockPlugin;
+import io.github.syferie.magicblock.block.Binding;
+import io.github.syferie.magicblock.block.BindingStore;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 绑定数据压力测试：10 万条绑定下按方块ID查找/更新与旧的按材质遍历对比
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BindingStoreBenchmark {
+    private static final int TOTAL_BINDINGS = 100_000;
+    private static final int MASK = 1023;
+    private static final String[] MATERIALS = {"STONE", "OAK_LOG", "GLASS", "DIRT", "SAND"};
+
+    // 每个玩家的绑定数：10 = 1 万名玩家；100000 = 全部属于同一名玩家（旧的按玩家遍历的最坏情况）
+    @Param({"10", "100000"})
+    public int bindingsPerPlayer;
+
+    private BindingStore store;
+    private final String[] sampleIds = new String[MASK + 1];
+    private final UUID[] sampleOwners = new UUID[MASK + 1];
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        MagicBlockPlugin plugin = BenchmarkEnvironment.plugin();
+        File dir = Files.createTempDirectory("magicblock-bindings").toFile();
+        store = new BindingStore(plugin, new File(dir, "bindings.yml"), new File(dir, "bindings.json"),
+            new File(dir, "bindings.journal"), new File(dir, "bindings.dat"));
+        store.load();
+
+        UUID player = null;
+        int sample = 0;
+        int sampleStride = TOTAL_BINDINGS / sampleIds.length;
+        for (int i = 0; i < TOTAL_BINDINGS; i++) {
+            if (i % bindingsPerPlayer == 0) {
+                player = UUID.randomUUID();
+            }
+            String blockId = UUID.randomUUID().toString();
+            store.put(player, blockId, new Binding(MATERIALS[i % MATERIALS.length], 64, 64, false));
+            if (i % sampleStride == 0 && sample < sampleIds.length) {
+                sampleIds[sample] = blockId;
+                sampleOwners[sample] = player;
+                sample++;
+            }
+        }
+        // 写出初始数据，测量期间只保留新产生的日志记录
+        store.flush();
+    }
+
+    @Benchmark
+    public UUID ownerByBlockId() {
+        return store.getOwner(sampleIds[cursor++ & MASK]);
+    }
+
+    @Benchmark
+    public boolean updateUsesByBlockId() {
+        int i = cursor++ & MASK;
+        return store.updateByBlockId(sampleIds[i], binding -> binding.withUses(i));
+    }
+
+    /**
+     * 旧物品没有方块ID时的按材质匹配，等价于改造前每次放置时的查找方式
+     */
+    @Benchmark
+    public String legacyMaterialScan() {
+        int i = cursor++ & MASK;
+        return store.findBlockId(sampleOwners[i], binding -> "BEDROCK".equals(binding.getMaterial()));
+    }
+
+    /**
+     * 写回一批合并后的日志记录（每次约 1024 条更新）
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void journalFlush() {
+        for (int i = 0; i <= MASK; i++) {
+            final int uses = cursor++;
+            store.updateByBlockId(sampleIds[i], binding -> binding.withUses(uses));
+        }
+        store.flush();
+    }
+}
@@ -0,0 +1,119 @@
+package io.github.syferie.magicblock.benchmark;
+
+import io.github.syferie.magicblock.manager.MagicBlockIndexManager;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.inventory.ItemStack;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 魔法方块索引基准测试
+ * indexSize 参数用于验证查找和放置/破坏的吞吐量与索引规模无关
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class IndexBenchmark {
+    private static final int PROBES = 4096;
+    private static final int MASK = PROBES - 1;
+
+    @Param({"1000", "100000", "1000000"})
+    public int indexSize;
+
+    private MagicBlockIndexManager index;
+    private World world;
+    private ItemStack magicItem;
+
+    private final int[] hitX = new int[PROBES];
+    private final int[] hitY = new int[PROBES];
+    private final int[] hitZ = new int[PROBES];
+    private final Block[] hitBlocks = new Block[PROBES];
+    private final Location[] churnLocations = new Location[PROBES];
+    // 模拟一次 TNT 爆炸的方块列表：以网格边缘为中心的 10x10x10 立方体，一半落在没有魔法方块的区块
+    private final List<Block> explosionBlocks = new ArrayList<>();
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        index = BenchmarkEnvironment.plugin().getIndexManager();
+        index.reload();
+        world = BenchmarkEnvironment.world("bench_index_" + indexSize);
+        magicItem = new ItemStack(Material.STONE);
+
+        // 按 1024x1024 网格铺开，覆盖大量区块和分片
+        for (int i = 0; i < indexSize; i++) {
+            index.registerMagicBlock(new Location(world, i & 1023, 64 + (i >> 20), (i >> 10) & 1023), magicItem);
+        }
+
+        for (int i = 0; i < PROBES; i++) {
+            int n = (int) ((long) i * 2654435761L % indexSize);
+            hitX[i] = n & 1023;
+            hitY[i] = 64 + (n >> 20);
+            hitZ[i] = (n >> 10) & 1023;
+            hitBlocks[i] = BenchmarkEnvironment.block(world, hitX[i], hitY[i], hitZ[i], Material.STONE);
+            // 放置/破坏使用索引之外的高度，不影响已有数据
+            churnLocations[i] = new Location(world, hitX[i], 200, hitZ[i]);
+        }
+
+        for (int x = 1019; x < 1029; x++) {
+            for (int y = 60; y < 70; y++) {
+                for (int z = 0; z < 10; z++) {
+                    explosionBlocks.add(BenchmarkEnvironment.block(world, x, y, z, Material.STONE));
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean isMagicBlockHit() {
+        int i = cursor++ & MASK;
+        return index.isMagicBlock(world, hitX[i], hitY[i], hitZ[i]);
+    }
+
+    @Benchmark
+    public boolean isMagicBlockMiss() {
+        int i = cursor++ & MASK;
+        return index.isMagicBlock(world, hitX[i], 150, hitZ[i]);
+    }
+
+    @Benchmark
+    public boolean isMagicBlockByBlock() {
+        return index.isMagicBlock(hitBlocks[cursor++ & MASK]);
+    }
+
+    @Benchmark
+    public boolean chunkHasMagicBlocks() {
+        return index.chunkHasMagicBlocks(hitBlocks[cursor++ & MASK]);
+    }
+
+    @Benchmark
+    public List<Block> filterExplosionBlocks() {
+        return index.filterMagicBlocks(explosionBlocks);
+    }
+
+    @Benchmark
+    public int perBlockExplosionCheck() {
+        int found = 0;
+        for (Block block : explosionBlocks) {
+            if (index.isMagicBlock(block)) found++;
+        }
+        return found;
+    }
+
+    /**
+     * 放置 + 破坏一个魔法方块
+     * 区块 PDC 写回由调度器执行，在此环境下只测量索引维护本身
+     */
+    @Benchmark
+    public void registerUnregister() {
+        Location location = churnLocations[cursor++ & MASK];
+        index.registerMagicBlock(location, magicItem);
+        index.unregisterMagicBlock(location);
+    }
+}
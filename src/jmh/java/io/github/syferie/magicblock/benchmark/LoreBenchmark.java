@@ -0,0 +1,97 @@
+package io.github.syferie.magicblock.benchmark;
+
+import io.github.syferie.magicblock.MagicBlockPlugin;
+import io.github.syferie.magicblock.block.BlockManager;
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lore 相关热路径基准测试：魔法方块识别和使用次数 Lore 更新
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LoreBenchmark {
+    private static final int MAX_TIMES = 100;
+
+    @Param({"true", "false"})
+    public boolean loreCache;
+
+    private MagicBlockPlugin plugin;
+    private BlockManager blockManager;
+    private ItemMeta magicMeta;
+    private ItemMeta plainMeta;
+    private ItemStack magicItem;
+    // 旧版物品：只有 Lore 标识，没有 PDC 标记（识别检查是只读的，不会被升级）
+    private ItemStack legacyItem;
+    private int remaining;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        plugin = BenchmarkEnvironment.plugin();
+        blockManager = plugin.getBlockManager();
+        plugin.getConfig().set("performance.lore-cache.enabled", loreCache);
+        plugin.reloadSettings();
+
+        magicItem = new ItemStack(Material.STONE);
+        ItemMeta meta = magicItem.getItemMeta();
+        meta.setLore(Collections.singletonList(plugin.getMagicLore()));
+        magicItem.setItemMeta(meta);
+        blockManager.setUseTimes(magicItem, MAX_TIMES);
+        magicMeta = magicItem.getItemMeta();
+
+        legacyItem = new ItemStack(Material.STONE);
+        ItemMeta legacyMeta = legacyItem.getItemMeta();
+        legacyMeta.setLore(Arrays.asList("§7Crafted long ago", plugin.getMagicLore()));
+        legacyItem.setItemMeta(legacyMeta);
+
+        // 非魔法物品：多行 Lore，需要逐行比较后才能得出结论
+        plainMeta = new ItemStack(Material.STONE).getItemMeta();
+        plainMeta.setLore(Arrays.asList("§7A common block", "§7Nothing special", "§8Durability: 10/10", "§9+1 Armor"));
+    }
+
+    @Benchmark
+    public boolean hasMagicLoreMatch() {
+        return plugin.hasMagicLore(magicMeta);
+    }
+
+    @Benchmark
+    public boolean hasMagicLoreMiss() {
+        return plugin.hasMagicLore(plainMeta);
+    }
+
+    /**
+     * 每次使用不同的剩余次数，模拟连续放置时的 Lore 更新
+     */
+    @Benchmark
+    public ItemStack updateLore() {
+        remaining = remaining <= 1 ? MAX_TIMES - 1 : remaining - 1;
+        blockManager.updateLore(magicItem, remaining);
+        return magicItem;
+    }
+
+    /**
+     * 计分板每 tick 刷新 %magicblock_progress_bar% 的开销
+     */
+    @Benchmark
+    public String placeholderProgressBar() {
+        remaining = remaining <= 1 ? MAX_TIMES - 1 : remaining - 1;
+        return plugin.getProgressBar(remaining, MAX_TIMES);
+    }
+
+    @Benchmark
+    public boolean isMagicBlockItem() {
+        return blockManager.isMagicBlock(magicItem);
+    }
+
+    @Benchmark
+    public boolean isMagicBlockLegacyItem() {
+        return blockManager.isMagicBlock(legacyItem);
+    }
+}
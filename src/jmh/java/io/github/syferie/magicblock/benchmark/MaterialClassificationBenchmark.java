@@ -0,0 +1,111 @@
+package io.github.syferie.magicblock.benchmark;
+
+import io.github.syferie.magicblock.util.MaterialTables;
+import org.bukkit.Material;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 材质分类基准测试：字符串匹配与预计算分类表的对比
+ * stringBased* 方法保留了改用 MaterialTables 之前 BlockListener 中的字符串匹配判断
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MaterialClassificationBenchmark {
+    private static final int SAMPLES = 1024;
+    private static final int MASK = SAMPLES - 1;
+
+    private final Material[] samples = new Material[SAMPLES];
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        List<Material> blocks = new ArrayList<>();
+        for (Material material : Material.values()) {
+            if (material.isBlock() && !material.name().startsWith("LEGACY_")) {
+                blocks.add(material);
+            }
+        }
+        for (int i = 0; i < SAMPLES; i++) {
+            samples[i] = blocks.get((int) ((long) i * 2654435761L % blocks.size()));
+        }
+        // 确保分类表在测量前完成初始化
+        MaterialTables.isPhysicsAffected(Material.STONE);
+    }
+
+    @Benchmark
+    public boolean stringBasedPhysicsFilter() {
+        Material type = samples[cursor++ & MASK];
+        return stringPhysicsAffected(type) && stringRedstoneStateChangeAllowed(type);
+    }
+
+    @Benchmark
+    public boolean tablePhysicsFilter() {
+        Material type = samples[cursor++ & MASK];
+        return MaterialTables.isPhysicsAffected(type) && MaterialTables.isRedstoneStateChangeAllowed(type);
+    }
+
+    @Benchmark
+    public boolean stringBasedConnectable() {
+        Material type = samples[cursor++ & MASK];
+        return type.toString().contains("WALL") ||
+               type.toString().contains("FENCE") ||
+               type.toString().contains("PANE") ||
+               type.toString().contains("CHAIN") ||
+               type == Material.IRON_BARS;
+    }
+
+    @Benchmark
+    public boolean tableConnectable() {
+        return MaterialTables.isConnectable(samples[cursor++ & MASK]);
+    }
+
+    @Benchmark
+    public Material stringBasedStripped() {
+        Material type = samples[cursor++ & MASK];
+        String name = type.name();
+        if (name.contains("_LOG") && !name.contains("STRIPPED")) {
+            return Material.getMaterial("STRIPPED_" + name);
+        }
+        return null;
+    }
+
+    @Benchmark
+    public Material tableStripped() {
+        return MaterialTables.getStrippedOrScrapedType(samples[cursor++ & MASK]);
+    }
+
+    private static boolean stringPhysicsAffected(Material type) {
+        return type.hasGravity() ||
+               type == Material.WATER ||
+               type == Material.LAVA ||
+               type.name().contains("DOOR") ||
+               type.name().contains("TRAPDOOR") ||
+               type.name().contains("GATE") ||
+               type.name().contains("FENCE") ||
+               type.name().contains("WALL") ||
+               type.name().contains("PANE");
+    }
+
+    private static boolean stringRedstoneStateChangeAllowed(Material type) {
+        return type == Material.POWERED_RAIL ||
+               type == Material.DETECTOR_RAIL ||
+               type == Material.ACTIVATOR_RAIL ||
+               type == Material.REDSTONE_LAMP ||
+               type == Material.DISPENSER ||
+               type == Material.DROPPER ||
+               type == Material.HOPPER ||
+               type == Material.PISTON ||
+               type == Material.STICKY_PISTON ||
+               type == Material.OBSERVER ||
+               type == Material.NOTE_BLOCK ||
+               type == Material.DAYLIGHT_DETECTOR ||
+               type.name().contains("DOOR") ||
+               type.name().contains("TRAPDOOR") ||
+               type.name().contains("GATE");
+    }
+}
@@ -0,0 +1,90 @@
+package io.github.syferie.magicblock.benchmark;
+
+import io.github.syferie.magicblock.MagicBlockPlugin;
+import io.github.syferie.magicblock.listener.BlockListener;
+import io.github.syferie.magicblock.manager.MagicBlockIndexManager;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.event.block.BlockPhysicsEvent;
+import org.bukkit.inventory.ItemStack;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BlockListener.onBlockPhysics 过滤链基准测试
+ * 每个基准方法对应过滤链中提前返回的一层
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PhysicsFilterBenchmark {
+    private BlockListener listener;
+
+    private BlockPhysicsEvent otherWorldEvent;
+    private BlockPhysicsEvent otherChunkEvent;
+    private BlockPhysicsEvent unaffectedTypeEvent;
+    private BlockPhysicsEvent plainBlockEvent;
+    private BlockPhysicsEvent magicBlockEvent;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        MagicBlockPlugin plugin = BenchmarkEnvironment.plugin();
+        listener = new BlockListener(plugin, Arrays.asList(Material.STONE, Material.SAND));
+
+        MagicBlockIndexManager index = plugin.getIndexManager();
+        index.reload();
+        World magicWorld = BenchmarkEnvironment.world("bench_physics");
+        World emptyWorld = BenchmarkEnvironment.world("bench_physics_empty");
+
+        ItemStack magicItem = new ItemStack(Material.SAND);
+        for (int x = 0; x < 16; x++) {
+            for (int z = 0; z < 16; z += 2) {
+                index.registerMagicBlock(new Location(magicWorld, x, 64, z), magicItem);
+            }
+        }
+
+        otherWorldEvent = event(emptyWorld, 0, 64, 0, Material.SAND);
+        otherChunkEvent = event(magicWorld, 100, 64, 100, Material.SAND);
+        unaffectedTypeEvent = event(magicWorld, 1, 64, 1, Material.STONE);
+        plainBlockEvent = event(magicWorld, 1, 64, 1, Material.SAND);
+        magicBlockEvent = event(magicWorld, 1, 64, 2, Material.SAND);
+    }
+
+    private static BlockPhysicsEvent event(World world, int x, int y, int z, Material type) {
+        return new BlockPhysicsEvent(BenchmarkEnvironment.block(world, x, y, z, type), BenchmarkEnvironment.blockData(type));
+    }
+
+    @Benchmark
+    public BlockPhysicsEvent otherWorld() {
+        listener.onBlockPhysics(otherWorldEvent);
+        return otherWorldEvent;
+    }
+
+    @Benchmark
+    public BlockPhysicsEvent otherChunk() {
+        listener.onBlockPhysics(otherChunkEvent);
+        return otherChunkEvent;
+    }
+
+    @Benchmark
+    public BlockPhysicsEvent unaffectedType() {
+        listener.onBlockPhysics(unaffectedTypeEvent);
+        return unaffectedTypeEvent;
+    }
+
+    @Benchmark
+    public BlockPhysicsEvent plainBlockInMagicChunk() {
+        listener.onBlockPhysics(plainBlockEvent);
+        return plainBlockEvent;
+    }
+
+    @Benchmark
+    public BlockPhysicsEvent magicBlock() {
+        magicBlockEvent.setCancelled(false);
+        listener.onBlockPhysics(magicBlockEvent);
+        return magicBlockEvent;
+    }
+}
@@ -23,6 +23,10 @@ import io.github.syferie.magicblock.gui.FavoriteGUI;
 import io.github.syferie.magicblock.gui.GUIManager;
 import io.github.syferie.magicblock.util.DuplicateBlockDetector;
 import io.github.syferie.magicblock.util.ItemCreator;
+import io.github.syferie.magicblock.util.DisplaySettings;
+import io.github.syferie.magicblock.util.GameplaySettings;
+import io.github.syferie.magicblock.util.PerformanceSettings;
+import io.github.syferie.magicblock.util.ProgressBars;
 
 import org.bukkit.ChatColor;
 import org.bukkit.Material;
@@ -73,6 +77,11 @@ public class MagicBlockPlugin extends JavaPlugin {
     private ItemCreator itemCreator;
     private DataMigrationManager dataMigrationManager;
 
+    // 配置快照：随 reloadConfig 整体替换，热路径只做一次 volatile 读取
+    private volatile PerformanceSettings performanceSettings;
+    private volatile DisplaySettings displaySettings;
+    private volatile GameplaySettings gameplaySettings;
+
     @Override
     public void onEnable() {
         // 初始化语言管理器
@@ -126,7 +135,10 @@ public class MagicBlockPlugin extends JavaPlugin {
 
         // 注册PlaceholderAPI扩展
         if(Bukkit.getPluginManager().getPlugin("PlaceholderAPI") != null) {
-            new PlaceholderHook(this).register();
+            PlaceholderHook placeholderHook = new PlaceholderHook(this);
+            placeholderHook.register();
+            // 手持物品变化时作废变量快照
+            getServer().getPluginManager().registerEvents(placeholderHook, this);
             getLogger().info(languageManager.getMessage("general.placeholder-registered"));
         }
 
@@ -239,6 +251,16 @@ public class MagicBlockPlugin extends JavaPlugin {
             statistics.saveStats();
         }
 
+        // 写回尚未持久化的魔法方块索引修改
+        if (indexManager != null) {
+            indexManager.flushAll();
+        }
+
+        // 写回尚未保存的绑定数据
+        if (blockBindManager != null) {
+            blockBindManager.shutdown();
+        }
+
         // 取消所有FoliaLib任务
         if (foliaLib != null) {
             foliaLib.getScheduler().cancelAllTasks();
@@ -284,19 +306,7 @@ public class MagicBlockPlugin extends JavaPlugin {
 
     // 生成进度条
     public String getProgressBar(int current, int max) {
-        int bars = 20;
-        float percent = (float) current / max;
-        int filledBars = (int) (bars * percent);
-
-        StringBuilder bar = new StringBuilder("§a");
-        for(int i = 0; i < bars; i++) {
-            if(i < filledBars) {
-                bar.append("■");
-            } else {
-                bar.append("□");
-            }
-        }
-        return bar.toString();
+        return ProgressBars.placeholder(current, max);
     }
 
     private void checkAndUpdateAllConfigs() {
@@ -390,7 +400,7 @@ public class MagicBlockPlugin extends JavaPlugin {
     }
 
     public String getMagicLore() {
-        return ChatColor.translateAlternateColorCodes('&', getConfig().getString("magic-lore", "&e⚡ &7MagicBlock"));
+        return displaySettings.getMagicLore();
     }
 
     public List<String> getBlacklistedWorlds() {
@@ -398,11 +408,39 @@ public class MagicBlockPlugin extends JavaPlugin {
     }
 
     public String getUsageLorePrefix() {
-        return getConfig().getString("usage-lore-prefix", "Total times:");
+        return displaySettings.getUsageLorePrefix();
     }
 
     public int getDefaultBlockTimes() {
-        return this.getConfig().getInt("default-block-times", 100);
+        return gameplaySettings.getDefaultBlockTimes();
+    }
+
+    @Override
+    public void reloadConfig() {
+        super.reloadConfig();
+        reloadSettings();
+    }
+
+    /**
+     * 根据当前配置重建所有配置快照
+     */
+    public void reloadSettings() {
+        FileConfiguration config = getConfig();
+        this.performanceSettings = PerformanceSettings.load(config);
+        this.displaySettings = DisplaySettings.load(config);
+        this.gameplaySettings = GameplaySettings.load(config);
+    }
+
+    public PerformanceSettings getPerformanceSettings() {
+        return performanceSettings;
+    }
+
+    public DisplaySettings getDisplaySettings() {
+        return displaySettings;
+    }
+
+    public GameplaySettings getGameplaySettings() {
+        return gameplaySettings;
     }
 
     private void saveFoodConfig() {
@@ -425,19 +463,17 @@ public class MagicBlockPlugin extends JavaPlugin {
             String blockName = getMinecraftLangManager().getItemStackName(item);
 
             // 在原有名称两侧添加装饰符号
-            String nameFormat = getConfig().getString("display.block-name-format", "&b✦ %s &b✦");
+            DisplaySettings display = displaySettings;
+            String nameFormat = display.getBlockNameFormat();
             meta.setDisplayName(ChatColor.translateAlternateColorCodes('&',
                 String.format(nameFormat, blockName)));
 
             ArrayList<String> lore = new ArrayList<>();
-            lore.add(getMagicLore());
+            lore.add(display.getMagicLore());
 
             // 添加装饰性lore（如果启用）
-            if (getConfig().getBoolean("display.decorative-lore.enabled", true)) {
-                List<String> decorativeLore = getConfig().getStringList("display.decorative-lore.lines");
-                for (String line : decorativeLore) {
-                    lore.add(ChatColor.translateAlternateColorCodes('&', line));
-                }
+            if (display.isDecorativeLoreEnabled()) {
+                lore.addAll(display.getDecorativeLoreLines());
             }
 
             meta.setLore(lore);
@@ -446,6 +482,7 @@ public class MagicBlockPlugin extends JavaPlugin {
 
             // 🆕 为新创建的魔法方块添加唯一ID
             ensureBlockHasId(meta);
+            getBlockManager().markMagicBlock(meta);
 
             item.setItemMeta(meta);
         }
@@ -499,7 +536,9 @@ public class MagicBlockPlugin extends JavaPlugin {
         if (lore == null) return false;
 
         // 获取配置中的magic-lore
-        String configMagicLore = getMagicLore();
+        DisplaySettings display = displaySettings;
+        String configMagicLore = display.getMagicLore();
+        String strippedConfigLore = display.getStrippedMagicLore();
 
         // 循环检查每一行的lore
         for (String loreLine : lore) {
@@ -511,7 +550,6 @@ public class MagicBlockPlugin extends JavaPlugin {
             // 如果不精确匹配，则尝试忽略格式代码进行比较
             // 先移除所有格式代码（包括删除线等）
             String strippedLoreLine = ChatColor.stripColor(loreLine);
-            String strippedConfigLore = ChatColor.stripColor(configMagicLore);
 
             // 如果移除格式代码后的文本相同，则认为是魔法方块
             if (strippedLoreLine.equals(strippedConfigLore)) {
@@ -722,6 +760,7 @@ public class MagicBlockPlugin extends JavaPlugin {
     private void registerEventsAndCommands() {
         getServer().getPluginManager().registerEvents(listener, this);
         getServer().getPluginManager().registerEvents(magicFood, this);
+        getServer().getPluginManager().registerEvents(blockBindManager.getItemTracker(), this);
 
         // 🆕 注册防刷检测器事件（如果已初始化）
         if (duplicateDetector != null) {
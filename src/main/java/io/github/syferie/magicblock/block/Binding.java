@@ -0,0 +1,51 @@
+package io.github.syferie.magicblock.block;
+
+/**
+ * 一条绑定记录（文件存储模式）
+ * 不可变，修改时整体替换，读线程拿到的实例不会被并发修改
+ */
+public final class Binding {
+    private final String material;
+    private final int uses;
+    private final int maxUses;
+    private final boolean hidden;
+
+    public Binding(String material, int uses, int maxUses, boolean hidden) {
+        this.material = material;
+        this.uses = uses;
+        this.maxUses = maxUses;
+        this.hidden = hidden;
+    }
+
+    public String getMaterial() {
+        return material;
+    }
+
+    public int getUses() {
+        return uses;
+    }
+
+    public int getMaxUses() {
+        return maxUses;
+    }
+
+    public boolean isHidden() {
+        return hidden;
+    }
+
+    public Binding withMaterial(String newMaterial) {
+        return new Binding(newMaterial, uses, maxUses, hidden);
+    }
+
+    public Binding withUses(int newUses) {
+        return new Binding(material, newUses, maxUses, hidden);
+    }
+
+    public Binding withUses(int newUses, int newMaxUses) {
+        return new Binding(material, newUses, newMaxUses, hidden);
+    }
+
+    public Binding withHidden(boolean newHidden) {
+        return new Binding(material, uses, maxUses, newHidden);
+    }
+}
@@ -0,0 +1,859 @@
+package io.github.syferie.magicblock.block;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import io.github.syferie.magicblock.MagicBlockPlugin;
+import io.github.syferie.magicblock.util.PerformanceSettings;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+import java.util.logging.Level;
+
+/**
+ * 文件存储模式下的绑定数据
+ * 内存中的 UUID -> blockId -> Binding 是唯一数据源，修改只标记脏版本，
+ * 由单线程的写回任务按间隔合并写入；写入先落到临时文件再原子替换，避免写到一半的文件
+ *
+ * 启用日志时，每次修改记录为 bindings.journal 中的一行 JSON（修改后的完整状态或删除），
+ * 写回任务只追加日志并批量 fsync；日志条数超过阈值时把完整快照写入 bindings.yml / bindings.json 并清空日志。
+ * 加载时先读快照再按顺序重放日志，最后一行写到一半的记录会被忽略
+ *
+ * 二进制格式（binding-storage.format: binary）改用内存映射的 bindings.dat（见 MappedBindingFile），
+ * 修改直接原地写入映射内存，写回任务只负责 force 落盘，不再有日志和快照；
+ * bindings.dat 存在时总是优先读取，切换回文本格式时会转换为快照后删除
+ *
+ * 所有读写都在同一把锁下完成，可以从主线程、区域线程和异步线程调用
+ */
+public final class BindingStore {
+    private final MagicBlockPlugin plugin;
+    private final File yamlFile;
+    private final File jsonFile;
+    private final File journalFile;
+    private final File binaryDataFile;
+    private final Gson gson = new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create();
+
+    private final Map<UUID, Map<String, Binding>> bindings = new HashMap<>();
+    // 二级索引：方块ID（物品 PDC 中的 block_id）-> 所属玩家，按方块ID查找不再遍历玩家的全部绑定
+    private final Map<String, UUID> ownerByBlockId = new HashMap<>();
+    // 每次修改递增；写回时与已写入的版本比较，多次修改只写一次
+    private long version;
+    private long flushedVersion;
+
+    // 尚未写入日志的记录，同一条绑定的多次修改只保留最后一次
+    private Map<String, String> pendingJournal = new LinkedHashMap<>();
+    // 写回锁：串行化写回（定时写回与关闭时的最后一次写回），保护下面的日志文件状态
+    // 文件 IO 不在主锁内进行，fsync 期间不会阻塞游戏线程；需要两把锁时先取写回锁
+    private final Object flushLock = new Object();
+    // 日志文件中的记录数和打开的日志文件，由写回锁保护
+    private long journalRecords;
+    private FileChannel journalChannel;
+    // 二进制格式下的数据文件，文本格式时为 null
+    private MappedBindingFile binaryFile;
+
+    private final ScheduledThreadPoolExecutor flusher;
+    private volatile boolean closed;
+
+    public BindingStore(MagicBlockPlugin plugin, File yamlFile, File jsonFile, File journalFile, File binaryDataFile) {
+        this.plugin = plugin;
+        this.yamlFile = yamlFile;
+        this.jsonFile = jsonFile;
+        this.journalFile = journalFile;
+        this.binaryDataFile = binaryDataFile;
+        this.flusher = new ScheduledThreadPoolExecutor(1, task -> {
+            Thread thread = new Thread(task, "MagicBlock-BindingFlusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.flusher.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    }
+
+    // ---------- 加载 ----------
+
+    public void load() {
+        synchronized (flushLock) {
+            synchronized (this) {
+                loadLocked();
+            }
+        }
+    }
+
+    private void loadLocked() {
+        bindings.clear();
+        ownerByBlockId.clear();
+        closeBinary();
+        boolean fromBinary = binaryDataFile.exists() && loadBinary();
+        if (!fromBinary) {
+            if (jsonFile.exists()) {
+                loadJson();
+            } else if (yamlFile.exists()) {
+                loadYaml(YamlConfiguration.loadConfiguration(yamlFile));
+                plugin.debug("使用YAML文件加载绑定数据");
+            }
+        }
+        version = 0;
+        flushedVersion = 0;
+        pendingJournal = new LinkedHashMap<>();
+
+        if (!fromBinary) {
+            // 重放上次关闭后（或崩溃前）的日志，并立即压缩为新的快照
+            long replayed = replayJournal();
+            if (replayed > 0) {
+                plugin.getLogger().info("已从日志恢复 " + replayed + " 条绑定修改");
+                try {
+                    compact(snapshot());
+                } catch (IOException e) {
+                    // 日志保持原样，下次启动仍可重放
+                    journalRecords = replayed;
+                    plugin.getLogger().log(Level.WARNING, "无法压缩绑定日志: " + e.getMessage(), e);
+                }
+            }
+        }
+
+        boolean binary = plugin.getPerformanceSettings().isBindingBinaryFormat();
+        if (binary && !fromBinary) {
+            convertToBinary();
+        } else if (!binary && fromBinary) {
+            convertFromBinary();
+        }
+    }
+
+    /**
+     * 读取 bindings.dat；二进制格式下保持文件打开，之后的修改直接写入
+     */
+    private boolean loadBinary() {
+        MappedBindingFile file;
+        try {
+            file = new MappedBindingFile(binaryDataFile);
+        } catch (IOException e) {
+            // 保留损坏的文件供手动恢复，改为读取文本快照
+            File broken = new File(binaryDataFile.getParentFile(), binaryDataFile.getName() + ".broken");
+            plugin.getLogger().log(Level.SEVERE, "无法读取二进制绑定文件，已重命名为 " + broken.getName()
+                + " 并改用文本快照: " + e.getMessage(), e);
+            if (!binaryDataFile.renameTo(broken)) {
+                plugin.getLogger().warning("无法重命名损坏的二进制绑定文件");
+            }
+            return false;
+        }
+        int broken = file.readAll(this::index);
+        if (broken > 0) {
+            plugin.getLogger().warning("已丢弃 " + broken + " 条损坏的二进制绑定记录");
+        }
+        binaryFile = file;
+        plugin.debug("使用二进制文件加载绑定数据 (" + file.size() + " 条)");
+        return true;
+    }
+
+    /**
+     * 文本格式切换到二进制格式：把当前数据写入新的 bindings.dat，原文本文件保留作为备份
+     */
+    private void convertToBinary() {
+        MappedBindingFile file = null;
+        try {
+            file = new MappedBindingFile(binaryDataFile);
+            int skipped = 0;
+            for (Map.Entry<UUID, Map<String, Binding>> player : bindings.entrySet()) {
+                for (Map.Entry<String, Binding> block : player.getValue().entrySet()) {
+                    if (!file.put(player.getKey(), block.getKey(), block.getValue())) {
+                        skipped++;
+                    }
+                }
+            }
+            file.force();
+            binaryFile = file;
+            if (skipped > 0) {
+                plugin.getLogger().warning(skipped + " 条绑定的方块ID不是 UUID，无法写入二进制文件，只保留在内存中");
+            }
+            plugin.getLogger().info("已将 " + ownerByBlockId.size() + " 条绑定转换为二进制格式 (" + binaryDataFile.getName() + ")");
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.SEVERE, "无法创建二进制绑定文件，继续使用文本格式: " + e.getMessage(), e);
+            // 删除写了一半的文件，否则下次启动会把它当作最新数据
+            try {
+                if (file != null) {
+                    file.close();
+                }
+                deleteBinaryFiles();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    /**
+     * 二进制格式切换回文本格式：写出完整快照后删除 bindings.dat
+     */
+    private void convertFromBinary() {
+        try {
+            compact(snapshot());
+            closeBinary();
+            deleteBinaryFiles();
+            plugin.getLogger().info("已将二进制绑定数据转换为文本格式");
+        } catch (IOException e) {
+            // bindings.dat 仍然是最新数据，本次继续使用二进制格式
+            plugin.getLogger().log(Level.SEVERE, "无法转换二进制绑定数据，本次继续使用二进制格式: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 按顺序重放日志；遇到写到一半的记录（没有换行符或无法解析）时停止，
+     * 并把日志截断到最后一条完整记录之后，之后追加的记录不会接在损坏的半行后面
+     */
+    private long replayJournal() {
+        if (!journalFile.exists()) return 0;
+        byte[] data;
+        try {
+            data = Files.readAllBytes(journalFile.toPath());
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "无法读取绑定日志: " + e.getMessage(), e);
+            return 0;
+        }
+
+        long count = 0;
+        int start = 0;
+        while (start < data.length) {
+            int end = start;
+            while (end < data.length && data[end] != '\n') {
+                end++;
+            }
+            String line = new String(data, start, end - start, StandardCharsets.UTF_8);
+            // 每条记录与换行符在同一次写入中追加，没有换行符说明这一行只写了一半
+            if (end == data.length) {
+                plugin.getLogger().warning("忽略写到一半的绑定日志记录: " + line);
+                break;
+            }
+            if (!line.isEmpty()) {
+                try {
+                    applyRecord(JsonParser.parseString(line).getAsJsonObject());
+                    count++;
+                } catch (RuntimeException e) {
+                    // 崩溃时最后一批记录可能只写了一部分，之后不会再有完整记录
+                    plugin.getLogger().warning("忽略损坏的绑定日志记录: " + line);
+                    break;
+                }
+            }
+            start = end + 1;
+        }
+
+        if (start < data.length) {
+            try (FileChannel channel = FileChannel.open(journalFile.toPath(), StandardOpenOption.WRITE)) {
+                channel.truncate(start);
+                channel.force(true);
+            } catch (IOException e) {
+                plugin.getLogger().log(Level.WARNING, "无法截断损坏的绑定日志: " + e.getMessage(), e);
+            }
+        }
+        return count;
+    }
+
+    private void applyRecord(JsonObject record) {
+        String op = record.get("op").getAsString();
+        UUID player = UUID.fromString(record.get("p").getAsString());
+        switch (op) {
+            case "put":
+                index(player, record.get("b").getAsString(), new Binding(
+                    record.get("m").getAsString(),
+                    record.get("u").getAsInt(),
+                    record.get("x").getAsInt(),
+                    record.has("h") && record.get("h").getAsBoolean()
+                ));
+                break;
+            case "del":
+                unindex(player, record.get("b").getAsString());
+                break;
+            case "delp":
+                unindexPlayer(player);
+                break;
+            default:
+                throw new IllegalArgumentException("unknown op " + op);
+        }
+    }
+
+    private void loadJson() {
+        try (Reader reader = Files.newBufferedReader(jsonFile.toPath(), StandardCharsets.UTF_8)) {
+            Map<String, Map<String, Map<String, Object>>> data = gson.fromJson(reader,
+                new TypeToken<Map<String, Map<String, Map<String, Object>>>>() {}.getType());
+            if (data != null) {
+                for (Map.Entry<String, Map<String, Map<String, Object>>> player : data.entrySet()) {
+                    UUID uuid = parseUUID(player.getKey());
+                    if (uuid == null || player.getValue() == null) continue;
+                    for (Map.Entry<String, Map<String, Object>> block : player.getValue().entrySet()) {
+                        Binding binding = fromMap(block.getValue());
+                        if (binding != null) {
+                            index(uuid, block.getKey(), binding);
+                        }
+                    }
+                }
+            }
+            plugin.debug("使用JSON文件加载绑定数据");
+        } catch (Exception e) {
+            plugin.getLogger().warning("无法读取JSON绑定文件: " + e.getMessage());
+            // 回退到YAML文件
+            if (yamlFile.exists()) {
+                loadYaml(YamlConfiguration.loadConfiguration(yamlFile));
+            }
+        }
+    }
+
+    private void loadYaml(YamlConfiguration config) {
+        ConfigurationSection section = config.getConfigurationSection("bindings");
+        if (section == null) return;
+        for (String uuidStr : section.getKeys(false)) {
+            UUID uuid = parseUUID(uuidStr);
+            ConfigurationSection playerSection = section.getConfigurationSection(uuidStr);
+            if (uuid == null || playerSection == null) continue;
+            for (String blockId : playerSection.getKeys(false)) {
+                ConfigurationSection blockSection = playerSection.getConfigurationSection(blockId);
+                if (blockSection == null || blockSection.getString("material") == null) continue;
+                int uses = blockSection.getInt("uses");
+                index(uuid, blockId, new Binding(
+                    blockSection.getString("material"),
+                    uses,
+                    blockSection.getInt("max_uses", uses),
+                    blockSection.getBoolean("hidden", false)
+                ));
+            }
+        }
+    }
+
+    private static Binding fromMap(Map<String, Object> data) {
+        if (data == null || !(data.get("material") instanceof String)) return null;
+        int uses = toInt(data.get("uses"), 0);
+        return new Binding(
+            (String) data.get("material"),
+            uses,
+            toInt(data.get("max_uses"), uses),
+            Boolean.TRUE.equals(data.get("hidden"))
+        );
+    }
+
+    private static int toInt(Object value, int def) {
+        // Gson 把 JSON 数字读成 Double
+        return value instanceof Number ? ((Number) value).intValue() : def;
+    }
+
+    private static UUID parseUUID(String value) {
+        try {
+            return UUID.fromString(value);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    // ---------- 读取 ----------
+
+    public synchronized Binding get(UUID player, String blockId) {
+        Map<String, Binding> blocks = bindings.get(player);
+        return blocks != null ? blocks.get(blockId) : null;
+    }
+
+    /**
+     * 按方块ID查找所属玩家
+     */
+    public synchronized UUID getOwner(String blockId) {
+        return ownerByBlockId.get(blockId);
+    }
+
+    /**
+     * 按方块ID查找绑定记录，不需要知道所属玩家
+     */
+    public synchronized Binding getByBlockId(String blockId) {
+        UUID owner = ownerByBlockId.get(blockId);
+        return owner != null ? get(owner, blockId) : null;
+    }
+
+    public synchronized int size() {
+        return ownerByBlockId.size();
+    }
+
+    public synchronized boolean hasBindings(UUID player) {
+        Map<String, Binding> blocks = bindings.get(player);
+        return blocks != null && !blocks.isEmpty();
+    }
+
+    /**
+     * 玩家所有绑定的副本（保持插入顺序）
+     */
+    public synchronized Map<String, Binding> getPlayerBindings(UUID player) {
+        Map<String, Binding> blocks = bindings.get(player);
+        return blocks != null ? new LinkedHashMap<>(blocks) : Collections.emptyMap();
+    }
+
+    /**
+     * 查找玩家第一条满足条件的绑定的方块ID
+     */
+    public synchronized String findBlockId(UUID player, Predicate<Binding> filter) {
+        Map<String, Binding> blocks = bindings.get(player);
+        if (blocks == null) return null;
+        for (Map.Entry<String, Binding> entry : blocks.entrySet()) {
+            if (filter.test(entry.getValue())) {
+                return entry.getKey();
+            }
+        }
+        return null;
+    }
+
+    // ---------- 修改 ----------
+
+    public synchronized void put(UUID player, String blockId, Binding binding) {
+        UUID previousOwner = index(player, blockId, binding);
+        if (previousOwner != null) {
+            recordDelete(previousOwner, blockId);
+        }
+        recordPut(player, blockId, binding);
+    }
+
+    /**
+     * 修改已存在的绑定，绑定不存在时返回 false
+     */
+    public synchronized boolean update(UUID player, String blockId, UnaryOperator<Binding> change) {
+        Map<String, Binding> blocks = bindings.get(player);
+        if (blocks == null) return false;
+        Binding current = blocks.get(blockId);
+        if (current == null) return false;
+        Binding updated = change.apply(current);
+        blocks.put(blockId, updated);
+        recordPut(player, blockId, updated);
+        return true;
+    }
+
+    /**
+     * 按方块ID修改绑定，绑定不存在时返回 false
+     */
+    public synchronized boolean updateByBlockId(String blockId, UnaryOperator<Binding> change) {
+        UUID owner = ownerByBlockId.get(blockId);
+        return owner != null && update(owner, blockId, change);
+    }
+
+    public synchronized Binding remove(UUID player, String blockId) {
+        Binding removed = unindex(player, blockId);
+        if (removed != null) {
+            recordDelete(player, blockId);
+        }
+        return removed;
+    }
+
+    /**
+     * 按方块ID移除绑定
+     */
+    public synchronized Binding removeByBlockId(String blockId) {
+        UUID owner = ownerByBlockId.get(blockId);
+        return owner != null ? remove(owner, blockId) : null;
+    }
+
+    /**
+     * 移除玩家满足条件的绑定，返回移除的数量
+     */
+    public synchronized int removeIf(UUID player, Predicate<Binding> filter) {
+        Map<String, Binding> blocks = bindings.get(player);
+        if (blocks == null) return 0;
+        int removed = 0;
+        Iterator<Map.Entry<String, Binding>> it = blocks.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Binding> entry = it.next();
+            if (filter.test(entry.getValue())) {
+                it.remove();
+                ownerByBlockId.remove(entry.getKey());
+                recordDelete(player, entry.getKey());
+                removed++;
+            }
+        }
+        if (blocks.isEmpty()) {
+            bindings.remove(player);
+        }
+        return removed;
+    }
+
+    public synchronized void removePlayer(UUID player) {
+        Map<String, Binding> removed = unindexPlayer(player);
+        if (removed == null) return;
+        if (binaryFile != null) {
+            for (String blockId : removed.keySet()) {
+                binaryFile.delete(blockId);
+            }
+        } else {
+            // 该玩家之前未写入的记录已经没有意义
+            String prefix = player + "/";
+            pendingJournal.keySet().removeIf(key -> key.startsWith(prefix));
+            queueRecord(prefix + "*", record("delp", player, null).toString());
+        }
+        version++;
+    }
+
+    // ---------- 主表与索引维护（调用方持有锁） ----------
+
+    /**
+     * 写入主表和方块ID索引；方块ID原属于其他玩家时从原玩家移除并返回原玩家
+     */
+    private UUID index(UUID player, String blockId, Binding binding) {
+        UUID previousOwner = ownerByBlockId.put(blockId, player);
+        if (previousOwner != null && !previousOwner.equals(player)) {
+            Map<String, Binding> previous = bindings.get(previousOwner);
+            if (previous != null) {
+                previous.remove(blockId);
+                if (previous.isEmpty()) {
+                    bindings.remove(previousOwner);
+                }
+            }
+        } else {
+            previousOwner = null;
+        }
+        bindings.computeIfAbsent(player, k -> new LinkedHashMap<>()).put(blockId, binding);
+        return previousOwner;
+    }
+
+    private Binding unindex(UUID player, String blockId) {
+        Map<String, Binding> blocks = bindings.get(player);
+        if (blocks == null) return null;
+        Binding removed = blocks.remove(blockId);
+        if (removed != null) {
+            ownerByBlockId.remove(blockId);
+            // 该玩家没有绑定的方块了，删除整个节点
+            if (blocks.isEmpty()) {
+                bindings.remove(player);
+            }
+        }
+        return removed;
+    }
+
+    private Map<String, Binding> unindexPlayer(UUID player) {
+        Map<String, Binding> blocks = bindings.remove(player);
+        if (blocks == null) return null;
+        for (String blockId : blocks.keySet()) {
+            ownerByBlockId.remove(blockId);
+        }
+        return blocks;
+    }
+
+    // ---------- 修改记录（调用方持有锁） ----------
+
+    private void recordPut(UUID player, String blockId, Binding binding) {
+        if (binaryFile != null) {
+            try {
+                if (!binaryFile.put(player, blockId, binding)) {
+                    plugin.debug("方块ID不是 UUID，绑定只保存在内存中: " + blockId);
+                }
+            } catch (IOException e) {
+                plugin.getLogger().log(Level.WARNING, "无法写入二进制绑定文件: " + e.getMessage(), e);
+            }
+            version++;
+            return;
+        }
+        JsonObject record = record("put", player, blockId);
+        record.addProperty("m", binding.getMaterial());
+        record.addProperty("u", binding.getUses());
+        record.addProperty("x", binding.getMaxUses());
+        if (binding.isHidden()) {
+            record.addProperty("h", true);
+        }
+        queueRecord(player + "/" + blockId, record.toString());
+        version++;
+    }
+
+    private void recordDelete(UUID player, String blockId) {
+        if (binaryFile != null) {
+            binaryFile.delete(blockId);
+            version++;
+            return;
+        }
+        queueRecord(player + "/" + blockId, record("del", player, blockId).toString());
+        version++;
+    }
+
+    /**
+     * 加入待写日志；同一条绑定的旧记录先移除，保证最新的记录排在最后，重放顺序与修改顺序一致
+     */
+    private void queueRecord(String key, String record) {
+        pendingJournal.remove(key);
+        pendingJournal.put(key, record);
+    }
+
+    private static JsonObject record(String op, UUID player, String blockId) {
+        JsonObject record = new JsonObject();
+        record.addProperty("op", op);
+        record.addProperty("p", player.toString());
+        if (blockId != null) {
+            record.addProperty("b", blockId);
+        }
+        return record;
+    }
+
+    /**
+     * 导出为旧的 bindings.* YAML 结构，供数据库迁移使用
+     */
+    public synchronized YamlConfiguration toConfiguration() {
+        YamlConfiguration config = new YamlConfiguration();
+        for (Map.Entry<UUID, Map<String, Binding>> player : bindings.entrySet()) {
+            for (Map.Entry<String, Binding> block : player.getValue().entrySet()) {
+                String path = "bindings." + player.getKey() + "." + block.getKey();
+                Binding binding = block.getValue();
+                config.set(path + ".material", binding.getMaterial());
+                config.set(path + ".uses", binding.getUses());
+                config.set(path + ".max_uses", binding.getMaxUses());
+                if (binding.isHidden()) {
+                    config.set(path + ".hidden", true);
+                }
+            }
+        }
+        return config;
+    }
+
+    // ---------- 写回 ----------
+
+    public void start() {
+        scheduleFlush();
+    }
+
+    private void scheduleFlush() {
+        if (closed) return;
+        // 每次重新读取间隔，/mb reload 后下一轮生效
+        long interval = plugin.getPerformanceSettings().getBindingFlushIntervalMillis();
+        flusher.schedule(() -> {
+            try {
+                flush();
+            } finally {
+                scheduleFlush();
+            }
+        }, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 停止写回线程并同步写入剩余修改，插件关闭时调用
+     */
+    public void shutdown() {
+        closed = true;
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // 等待超时时写回线程可能仍在写入，写回锁保证两次写回按顺序追加
+        flush(true);
+        synchronized (flushLock) {
+            closeJournal();
+        }
+        synchronized (this) {
+            closeBinary();
+        }
+    }
+
+    public void flush() {
+        flush(false);
+    }
+
+    /**
+     * 有未写入的修改时写回：二进制格式只 force 映射内存；
+     * 启用日志时追加日志记录，日志过长或未启用日志时写出完整快照
+     */
+    private void flush(boolean forceCompact) {
+        synchronized (flushLock) {
+            flushLocked(forceCompact);
+        }
+    }
+
+    private void flushLocked(boolean forceCompact) {
+        PerformanceSettings settings = plugin.getPerformanceSettings();
+        boolean journal = settings.isBindingJournalEnabled();
+
+        Map<String, String> records;
+        Map<String, Map<String, Map<String, Object>>> snapshot = null;
+        long snapshotVersion;
+        MappedBindingFile mapped;
+        synchronized (this) {
+            if (version == flushedVersion && !(forceCompact && journalRecords > 0)) return;
+            snapshotVersion = version;
+            mapped = binaryFile;
+        }
+        if (mapped != null) {
+            flushBinary(mapped, snapshotVersion);
+            return;
+        }
+
+        synchronized (this) {
+            records = pendingJournal;
+            pendingJournal = new LinkedHashMap<>();
+            // 快照与取出的日志记录在同一时刻截取，日志追加完成后快照之前的修改都已落盘
+            if (!journal || forceCompact || journalRecords + records.size() >= settings.getBindingJournalCompactThreshold()) {
+                snapshot = snapshot();
+            }
+        }
+
+        boolean appended = false;
+        try {
+            if (journal && !records.isEmpty()) {
+                appendJournal(records.values());
+                appended = true;
+            }
+            if (snapshot != null) {
+                compact(snapshot);
+            }
+            markFlushed(snapshotVersion);
+            plugin.debug("绑定数据已写回 (版本 " + snapshotVersion + ", 日志记录 " + records.size()
+                + (snapshot != null ? ", 已压缩" : "") + ")");
+        } catch (IOException e) {
+            if (appended) {
+                // 记录已经落盘，只是压缩失败：重启时可以从日志重放，下一次写回再尝试压缩，不能重复追加
+                markFlushed(snapshotVersion);
+                plugin.getLogger().log(Level.WARNING, "无法压缩绑定日志: " + e.getMessage(), e);
+                return;
+            }
+            // 把未写入的记录放回队列，保持脏状态，下一轮重试
+            synchronized (this) {
+                // 失败的记录排在之后产生的新记录前面，同一条绑定只保留较新的记录
+                Map<String, String> requeued = records;
+                for (Map.Entry<String, String> entry : pendingJournal.entrySet()) {
+                    requeued.remove(entry.getKey());
+                    requeued.put(entry.getKey(), entry.getValue());
+                }
+                pendingJournal = requeued;
+            }
+            plugin.getLogger().log(Level.WARNING, "无法保存绑定数据: " + e.getMessage(), e);
+        }
+    }
+
+    private synchronized void markFlushed(long snapshotVersion) {
+        if (flushedVersion < snapshotVersion) {
+            flushedVersion = snapshotVersion;
+        }
+    }
+
+    private void flushBinary(MappedBindingFile mapped, long snapshotVersion) {
+        try {
+            mapped.force();
+            markFlushed(snapshotVersion);
+            plugin.debug("二进制绑定数据已落盘 (版本 " + snapshotVersion + ")");
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "无法保存二进制绑定数据: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 追加一批日志记录并 fsync 一次（持有写回锁）
+     */
+    private void appendJournal(Collection<String> records) throws IOException {
+        if (journalChannel == null) {
+            journalChannel = FileChannel.open(journalFile.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        StringBuilder batch = new StringBuilder(records.size() * 128);
+        for (String record : records) {
+            batch.append(record).append('\n');
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(batch.toString().getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            journalChannel.write(buffer);
+        }
+        journalChannel.force(false);
+        journalRecords += records.size();
+    }
+
+    /**
+     * 写出完整快照并清空日志；快照替换成功之前日志保持完整，崩溃后重放结果相同（持有写回锁）
+     */
+    private void compact(Map<String, Map<String, Map<String, Object>>> snapshot) throws IOException {
+        if (jsonFile.exists()) {
+            writeAtomically(jsonFile, writer -> gson.toJson(snapshot, writer));
+        } else {
+            YamlConfiguration config = new YamlConfiguration();
+            config.createSection("bindings", snapshot);
+            String yaml = config.saveToString();
+            writeAtomically(yamlFile, writer -> writer.write(yaml));
+        }
+
+        if (journalChannel != null) {
+            journalChannel.truncate(0);
+            journalChannel.force(true);
+        } else if (journalFile.exists()) {
+            Files.write(journalFile.toPath(), new byte[0]);
+        }
+        journalRecords = 0;
+    }
+
+    private void deleteBinaryFiles() throws IOException {
+        Files.deleteIfExists(binaryDataFile.toPath());
+        Files.deleteIfExists(new File(binaryDataFile.getParentFile(), binaryDataFile.getName() + ".materials").toPath());
+    }
+
+    // 调用方持有锁
+    private void closeBinary() {
+        if (binaryFile == null) return;
+        try {
+            binaryFile.close();
+        } catch (IOException e) {
+            plugin.getLogger().warning("无法关闭二进制绑定文件: " + e.getMessage());
+        }
+        binaryFile = null;
+    }
+
+    private void closeJournal() {
+        if (journalChannel == null) return;
+        try {
+            journalChannel.close();
+        } catch (IOException e) {
+            plugin.getLogger().warning("无法关闭绑定日志: " + e.getMessage());
+        }
+        journalChannel = null;
+    }
+
+    // 调用方持有锁
+    private Map<String, Map<String, Map<String, Object>>> snapshot() {
+        Map<String, Map<String, Map<String, Object>>> data = new LinkedHashMap<>();
+        for (Map.Entry<UUID, Map<String, Binding>> player : bindings.entrySet()) {
+            Map<String, Map<String, Object>> playerData = new LinkedHashMap<>();
+            for (Map.Entry<String, Binding> block : player.getValue().entrySet()) {
+                Binding binding = block.getValue();
+                Map<String, Object> blockData = new LinkedHashMap<>();
+                blockData.put("material", binding.getMaterial());
+                blockData.put("uses", binding.getUses());
+                blockData.put("max_uses", binding.getMaxUses());
+                if (binding.isHidden()) {
+                    blockData.put("hidden", true);
+                }
+                playerData.put(block.getKey(), blockData);
+            }
+            data.put(player.getKey().toString(), playerData);
+        }
+        return data;
+    }
+
+    private interface WriteAction {
+        void write(Writer writer) throws IOException;
+    }
+
+    private static void writeAtomically(File target, WriteAction action) throws IOException {
+        Path targetPath = target.toPath();
+        Path tmp = targetPath.resolveSibling(target.getName() + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            action.write(writer);
+        }
+        try {
+            Files.move(tmp, targetPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, targetPath, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -6,38 +6,32 @@ import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.Material;
 import org.bukkit.NamespacedKey;
-import org.bukkit.configuration.ConfigurationSection;
-import org.bukkit.configuration.file.FileConfiguration;
-import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
 import org.bukkit.persistence.PersistentDataContainer;
 import org.bukkit.persistence.PersistentDataType;
-import org.bukkit.Chunk;
-import org.bukkit.block.BlockState;
-import org.bukkit.block.Container;
 
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
-import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.stream.Collectors;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.reflect.TypeToken;
-
 public class BlockBindManager {
     private final MagicBlockPlugin plugin;
     private final NamespacedKey bindKey;
     private final File bindFile;
     private final File bindJsonFile;
-    private FileConfiguration bindConfig;
-    private final Gson gson;
+    // 文件存储模式下的绑定数据（内存为准，异步合并写回）
+    private final BindingStore bindingStore;
+    // 绑定方块可能所在的位置，取回时只检查这些位置
+    private final BoundItemTracker itemTracker;
+    // 取回时写入新方块的随机标记，用于在清理期间区分新方块和需要清理的旧副本，清理结束后移除
+    private final NamespacedKey retrieveTokenKey;
+    // 玩家/材质 -> 进行中的清理，同一玩家再次取回同一材质时取消上一次的清理
+    private final Map<String, RetrievalCleanup> activeCleanups = new ConcurrentHashMap<>();
     private final Map<UUID, Map<String, Long>> lastClickTimes = new HashMap<>();
     private static final long DOUBLE_CLICK_TIME = 500; // 双击时间窗口（毫秒）
     private DatabaseManager databaseManager;
@@ -47,8 +41,17 @@ public class BlockBindManager {
         this.bindKey = new NamespacedKey(plugin, "magicblock_bind");
         this.bindFile = new File(plugin.getDataFolder(), "bindings.yml");
         this.bindJsonFile = new File(plugin.getDataFolder(), "bindings.json");
-        this.gson = new GsonBuilder().setPrettyPrinting().create();
-        loadBindConfig();
+        this.bindingStore = new BindingStore(plugin, bindFile, bindJsonFile,
+            new File(plugin.getDataFolder(), "bindings.journal"),
+            new File(plugin.getDataFolder(), "bindings.dat"));
+        bindingStore.load();
+        bindingStore.start();
+        this.itemTracker = new BoundItemTracker(plugin, bindKey);
+        this.retrieveTokenKey = new NamespacedKey(plugin, "retrieve_token");
+    }
+
+    public BoundItemTracker getItemTracker() {
+        return itemTracker;
     }
 
     /**
@@ -60,108 +63,28 @@ public class BlockBindManager {
 
         // 如果数据库已启用且配置文件存在，则迁移数据
         if (databaseManager != null && databaseManager.isEnabled() && bindFile.exists()) {
-            databaseManager.migrateFromFile(bindConfig);
+            databaseManager.migrateFromFile(bindingStore.toConfiguration());
         }
     }
 
-    private void loadBindConfig() {
-        // 检查是否存在JSON文件
-        if (bindJsonFile.exists()) {
-            // 优先使用JSON文件
-            try (FileReader reader = new FileReader(bindJsonFile)) {
-                plugin.debug("使用JSON文件加载绑定数据");
-                // 创建空的YAML配置以兼容旧代码
-                if (!bindFile.exists()) {
-                    try {
-                        bindFile.createNewFile();
-                    } catch (IOException e) {
-                        plugin.getLogger().warning("无法创建绑定配置文件: " + e.getMessage());
-                    }
-                }
-                bindConfig = YamlConfiguration.loadConfiguration(bindFile);
-            } catch (IOException e) {
-                plugin.getLogger().warning("无法读取JSON绑定文件: " + e.getMessage());
-                // 回退到YAML文件
-                loadYamlBindConfig();
-            }
-        } else {
-            // 使用YAML文件
-            loadYamlBindConfig();
-        }
+    /**
+     * 停止写回线程并写入尚未保存的绑定数据
+     */
+    public void shutdown() {
+        bindingStore.shutdown();
     }
 
-    private void loadYamlBindConfig() {
-        if (!bindFile.exists()) {
-            try {
-                bindFile.createNewFile();
-            } catch (IOException e) {
-                plugin.getLogger().warning("无法创建绑定配置文件: " + e.getMessage());
-            }
+    /**
+     * 同步绑定记录中的剩余次数；有方块ID时精确匹配，旧物品按材质匹配第一条
+     */
+    void updateStoredUses(UUID player, String blockId, String material, int uses) {
+        if (blockId != null) {
+            bindingStore.updateByBlockId(blockId, binding -> binding.withUses(uses));
+            return;
         }
-        bindConfig = YamlConfiguration.loadConfiguration(bindFile);
-        plugin.debug("使用YAML文件加载绑定数据");
-    }
-
-    public FileConfiguration getBindConfig() {
-        return bindConfig;
-    }
-
-    public void saveBindConfig() {
-        // 检查是否应该使用JSON存储
-        if (bindJsonFile.exists()) {
-            saveBindConfigToJson();
-        } else {
-            // 使用YAML存储
-            try {
-                bindConfig.save(bindFile);
-                plugin.debug("绑定数据已保存到YAML文件");
-            } catch (IOException e) {
-                plugin.getLogger().warning("无法保存绑定配置到YAML: " + e.getMessage());
-            }
-        }
-    }
-
-    private void saveBindConfigToJson() {
-        try {
-            // 从YAML配置转换为JSON格式
-            Map<String, Object> jsonData = new HashMap<>();
-
-            // 获取所有玩家UUID
-            ConfigurationSection bindingsSection = bindConfig.getConfigurationSection("bindings");
-            if (bindingsSection != null) {
-                for (String uuid : bindingsSection.getKeys(false)) {
-                    ConfigurationSection playerSection = bindingsSection.getConfigurationSection(uuid);
-                    if (playerSection != null) {
-                        Map<String, Object> playerData = new HashMap<>();
-
-                        // 获取玩家的所有绑定方块
-                        for (String blockId : playerSection.getKeys(false)) {
-                            ConfigurationSection blockSection = playerSection.getConfigurationSection(blockId);
-                            if (blockSection != null) {
-                                Map<String, Object> blockData = new HashMap<>();
-
-                                // 复制所有方块数据
-                                for (String key : blockSection.getKeys(false)) {
-                                    blockData.put(key, blockSection.get(key));
-                                }
-
-                                playerData.put(blockId, blockData);
-                            }
-                        }
-
-                        jsonData.put(uuid, playerData);
-                    }
-                }
-            }
-
-            // 写入JSON文件
-            try (FileWriter writer = new FileWriter(bindJsonFile)) {
-                gson.toJson(jsonData, writer);
-                plugin.debug("绑定数据已保存到JSON文件");
-            }
-
-        } catch (IOException e) {
-            plugin.getLogger().warning("无法保存绑定配置到JSON: " + e.getMessage());
+        String target = bindingStore.findBlockId(player, binding -> material.equals(binding.getMaterial()));
+        if (target != null) {
+            bindingStore.update(player, target, binding -> binding.withUses(uses));
         }
     }
 
@@ -171,29 +94,38 @@ public class BlockBindManager {
     }
 
     public void bindBlock(Player player, ItemStack item) {
+        MagicItemView view = plugin.getBlockManager().view(item);
+        if (view == null) return;
+
+        bindBlock(player, view);
+        view.apply();
+    }
+
+    /**
+     * 在物品视图上完成绑定，由调用方 apply() 写回
+     */
+    public void bindBlock(Player player, MagicItemView view) {
         // 检查绑定系统是否启用
-        if (!plugin.getConfig().getBoolean("enable-binding-system", true)) {
+        if (!plugin.getGameplaySettings().isBindingEnabled()) {
             plugin.sendMessage(player, "messages.binding-disabled");
             return;
         }
 
-        if (!plugin.getBlockManager().isMagicBlock(item)) return;
-
-        ItemMeta meta = item.getItemMeta();
-        if (meta == null) return;
+        if (!view.isMagic()) return;
 
         // 检查是否已经绑定
-        if (isBlockBound(item)) {
+        if (view.isBound()) {
             plugin.sendMessage(player, "messages.already-bound");
             return;
         }
 
-        // 设置绑定数据
+        // 设置绑定数据并生成方块ID
         String uuid = player.getUniqueId().toString();
-        meta.getPersistentDataContainer().set(bindKey, PersistentDataType.STRING, uuid);
+        String itemId = UUID.randomUUID().toString();
+        view.bind(player.getUniqueId(), itemId);
 
         // 添加绑定说明
-        List<String> lore = meta.hasLore() ? meta.getLore() : new ArrayList<>();
+        List<String> lore = view.getLore();
         // 找到magic-lore的位置
         int magicLoreIndex = -1;
         for (int i = 0; i < lore.size(); i++) {
@@ -207,7 +139,7 @@ public class BlockBindManager {
         if (magicLoreIndex != -1) {
             // 找到装饰性lore的结束位置
             int insertIndex = magicLoreIndex + 1;
-            if (plugin.getConfig().getBoolean("display.decorative-lore.enabled", true)) {
+            if (plugin.getDisplaySettings().isDecorativeLoreEnabled()) {
                 while (insertIndex < lore.size() && !lore.get(insertIndex).contains(plugin.getUsageLorePrefix())) {
                     insertIndex++;
                 }
@@ -216,24 +148,12 @@ public class BlockBindManager {
         } else {
             lore.add(getBindLorePrefix() + player.getName());
         }
-
-        meta.setLore(lore);
-        item.setItemMeta(meta);
+        view.setLore(lore);
 
         // 获取当前使用次数和最大使用次数
-        int currentUses = plugin.getBlockManager().getUseTimes(item);
-        int maxUses = plugin.getBlockManager().getMaxUseTimes(item);
-
-        // 生成方块ID
-        String itemId = UUID.randomUUID().toString();
-
-        // 存储方块ID到物品中
-        meta.getPersistentDataContainer().set(
-            new NamespacedKey(plugin, "block_id"),
-            PersistentDataType.STRING,
-            itemId
-        );
-        item.setItemMeta(meta);
+        int currentUses = view.getUseTimes();
+        int maxUses = view.getMaxTimes();
+        String material = view.getItem().getType().name();
 
         // 保存绑定数据
         if (databaseManager != null && databaseManager.isEnabled()) {
@@ -242,17 +162,13 @@ public class BlockBindManager {
                 player.getUniqueId(),
                 player.getName(),
                 itemId,
-                item.getType().name(),
+                material,
                 currentUses,
                 maxUses
             );
         } else {
             // 使用文件存储
-            String path = "bindings." + uuid + "." + itemId;
-            bindConfig.set(path + ".material", item.getType().name());
-            bindConfig.set(path + ".uses", currentUses);
-            bindConfig.set(path + ".max_uses", maxUses);
-            saveBindConfig();
+            bindingStore.put(player.getUniqueId(), itemId, new Binding(material, currentUses, maxUses, false));
         }
 
         plugin.sendMessage(player, "messages.bind-success");
@@ -288,20 +204,17 @@ public class BlockBindManager {
                 maxUses
             );
         } else {
-            // 使用文件更新
-            String path = "bindings." + boundPlayer.toString() + "." + blockId;
-            if (bindConfig.contains(path)) {
-                // 更新材质
-                bindConfig.set(path + ".material", item.getType().name());
-                // 同步当前使用次数
-                bindConfig.set(path + ".uses", currentUses);
-                // 同步最大使用次数
-                bindConfig.set(path + ".max_uses", maxUses);
-                saveBindConfig();
-            }
+            // 使用文件更新：材质、当前使用次数和最大使用次数
+            String material = item.getType().name();
+            bindingStore.update(boundPlayer, blockId,
+                binding -> binding.withMaterial(material).withUses(currentUses, maxUses));
         }
     }
 
+    NamespacedKey getBindKey() {
+        return bindKey;
+    }
+
     public boolean isBlockBound(ItemStack item) {
         if (item == null || !item.hasItemMeta()) return false;
         ItemMeta meta = item.getItemMeta();
@@ -332,40 +245,35 @@ public class BlockBindManager {
                 return;
             }
         } else {
-            if (!bindConfig.contains("bindings." + uuid)) {
+            if (!bindingStore.hasBindings(playerUUID)) {
                 plugin.sendMessage(player, "messages.no-bound-blocks");
                 return;
             }
 
             // 清理使用次数为0的方块
-            Set<String> blocks = Objects.requireNonNull(bindConfig.getConfigurationSection("bindings." + uuid)).getKeys(false);
-            for (String blockId : new ArrayList<>(blocks)) {
-                removeZeroUsageBlocks(uuid, blockId);
-            }
+            bindingStore.removeIf(playerUUID, binding -> binding.getUses() <= 0);
 
             // 重新检查是否还有绑定的方块
-            if (!bindConfig.contains("bindings." + uuid) ||
-                bindConfig.getConfigurationSection("bindings." + uuid).getKeys(false).isEmpty()) {
+            if (!bindingStore.hasBindings(playerUUID)) {
                 plugin.sendMessage(player, "messages.no-bound-blocks");
                 return;
             }
 
-            // 从文件中构建绑定数据
-            bindings = new HashMap<>();
-            blocks = Objects.requireNonNull(bindConfig.getConfigurationSection("bindings." + uuid)).getKeys(false);
-            for (String blockId : blocks) {
-                String path = "bindings." + uuid + "." + blockId;
-                if (bindConfig.getBoolean(path + ".hidden", false)) {
+            // 从内存数据中构建绑定数据
+            bindings = new LinkedHashMap<>();
+            for (Map.Entry<String, Binding> entry : bindingStore.getPlayerBindings(playerUUID).entrySet()) {
+                Binding binding = entry.getValue();
+                if (binding.isHidden()) {
                     continue;
                 }
 
                 Map<String, Object> blockData = new HashMap<>();
-                blockData.put("material", bindConfig.getString(path + ".material"));
-                blockData.put("uses", bindConfig.getInt(path + ".uses"));
-                blockData.put("max_uses", bindConfig.getInt(path + ".max_uses"));
-                blockData.put("hidden", bindConfig.getBoolean(path + ".hidden", false));
+                blockData.put("material", binding.getMaterial());
+                blockData.put("uses", binding.getUses());
+                blockData.put("max_uses", binding.getMaxUses());
+                blockData.put("hidden", false);
 
-                bindings.put(blockId, blockData);
+                bindings.put(entry.getKey(), blockData);
             }
         }
 
@@ -373,6 +281,16 @@ public class BlockBindManager {
             plugin.getConfig().getString("gui.text.bound-blocks-title", "&8⚡ &b已绑定方块"));
         Inventory gui = Bukkit.createInventory(null, 54, guiTitle);
 
+        // 背包中的绑定方块按方块ID建立索引，只遍历一次背包
+        Map<String, MagicItemView> heldBlocks = new HashMap<>();
+        for (ItemStack item : player.getInventory().getContents()) {
+            if (item == null || !item.hasItemMeta()) continue;
+            MagicItemView view = plugin.getBlockManager().view(item);
+            if (view != null && view.isMagic() && view.isBound() && view.getBlockId() != null) {
+                heldBlocks.putIfAbsent(view.getBlockId(), view);
+            }
+        }
+
         int slot = 0;
         for (Map.Entry<String, Map<String, Object>> entry : bindings.entrySet()) {
             if (slot >= 54) break;
@@ -392,31 +310,20 @@ public class BlockBindManager {
             int maxUses = (int) blockData.get("max_uses");
 
             // 查找玩家背包中的对应方块
-            for (ItemStack item : player.getInventory().getContents()) {
-                if (item != null && plugin.getBlockManager().isMagicBlock(item) && isBlockBound(item)) {
-                    ItemMeta meta = item.getItemMeta();
-                    if (meta != null) {
-                        String itemBlockId = meta.getPersistentDataContainer().get(
-                            new NamespacedKey(plugin, "block_id"),
-                            PersistentDataType.STRING
-                        );
-                        if (blockId.equals(itemBlockId)) {
-                            // 使用实际的使用次数
-                            uses = plugin.getBlockManager().getUseTimes(item);
-                            maxUses = plugin.getBlockManager().getMaxUseTimes(item);
-
-                            // 更新数据
-                            if (databaseManager != null && databaseManager.isEnabled()) {
-                                databaseManager.updateBinding(playerUUID, blockId, material.name(), uses, maxUses);
-                            } else {
-                                String path = "bindings." + uuid + "." + blockId;
-                                bindConfig.set(path + ".uses", uses);
-                                bindConfig.set(path + ".max_uses", maxUses);
-                                saveBindConfig();
-                            }
-                            break;
-                        }
-                    }
+            MagicItemView held = heldBlocks.get(blockId);
+            if (held != null) {
+                // 使用实际的使用次数
+                uses = held.getUseTimes();
+                maxUses = held.getMaxTimes();
+                held.apply();
+
+                // 更新数据
+                if (databaseManager != null && databaseManager.isEnabled()) {
+                    databaseManager.updateBinding(playerUUID, blockId, material.name(), uses, maxUses);
+                } else {
+                    final int syncedUses = uses;
+                    final int syncedMaxUses = maxUses;
+                    bindingStore.update(playerUUID, blockId, binding -> binding.withUses(syncedUses, syncedMaxUses));
                 }
             }
 
@@ -425,7 +332,7 @@ public class BlockBindManager {
                 if (databaseManager != null && databaseManager.isEnabled()) {
                     databaseManager.deleteBinding(playerUUID, blockId);
                 } else {
-                    removeZeroUsageBlocks(uuid, blockId);
+                    bindingStore.remove(playerUUID, blockId);
                 }
                 continue;
             }
@@ -495,62 +402,25 @@ public class BlockBindManager {
             uses = (int) blockData.get("uses");
             maxUses = (int) blockData.get("max_uses");
         } else {
-            String uuid = player.getUniqueId().toString();
-            String path = "bindings." + uuid + "." + blockId;
-            if (!bindConfig.contains(path)) return;
+            Binding binding = bindingStore.get(player.getUniqueId(), blockId);
+            if (binding == null) return;
 
-            uses = bindConfig.getInt(path + ".uses");
-            maxUses = bindConfig.getInt(path + ".max_uses", uses);
+            uses = binding.getUses();
+            maxUses = binding.getMaxUses();
         }
 
-        // 清理所有相同的绑定方块
-        // 1. 清理在线玩家背包中的方块
-        for (Player onlinePlayer : Bukkit.getOnlinePlayers()) {
-            ItemStack[] contents = onlinePlayer.getInventory().getContents();
-            for (int i = 0; i < contents.length; i++) {
-                ItemStack item = contents[i];
-                if (isSameBoundBlock(item, player.getUniqueId(), blockType)) {
-                    onlinePlayer.getInventory().setItem(i, null);
-                    if (!onlinePlayer.equals(player)) {
-                        plugin.sendMessage(onlinePlayer, "messages.block-removed-by-owner");
-                    }
-                }
-            }
-        }
-
-        // 2. 清理掉落在地上的方块
-        player.getWorld().getEntities().stream()
-            .filter(entity -> entity instanceof org.bukkit.entity.Item)
-            .map(entity -> (org.bukkit.entity.Item) entity)
-            .forEach(item -> {
-                ItemStack itemStack = item.getItemStack();
-                if (isSameBoundBlock(itemStack, player.getUniqueId(), blockType)) {
-                    item.remove();
-                }
-            });
-
-        // 3. 清理容器中的方块（箱子等）
-        for (Chunk chunk : player.getWorld().getLoadedChunks()) {
-            for (BlockState blockState : chunk.getTileEntities()) {
-                if (blockState instanceof Container) {
-                    Container container = (Container) blockState;
-                    ItemStack[] containerContents = container.getInventory().getContents();
-                    boolean updated = false;
-
-                    for (int i = 0; i < containerContents.length; i++) {
-                        ItemStack item = containerContents[i];
-                        if (isSameBoundBlock(item, player.getUniqueId(), blockType)) {
-                            container.getInventory().setItem(i, null);
-                            updated = true;
-                        }
-                    }
-
-                    if (updated) {
-                        container.update();
-                    }
-                }
-            }
+        // 清理所有相同的绑定方块：先检查登记的位置，其余副本在发放新方块后补扫
+        String token = UUID.randomUUID().toString();
+        UUID ownerId = player.getUniqueId();
+        RetrievalCleanup cleanup = new RetrievalCleanup(plugin, itemTracker, player,
+            item -> isStaleCopy(item, ownerId, blockType, token));
+        String cleanupKey = ownerId + "/" + blockType.name();
+        RetrievalCleanup previous = activeCleanups.put(cleanupKey, cleanup);
+        if (previous != null) {
+            // 上一次取回发放的方块现在也是旧副本，上一次的清理会把本次的新方块当作旧副本
+            previous.cancel();
         }
+        cleanup.purgeTracked();
 
         // 创建新的方块并给予玩家
         ItemStack newBlock = plugin.createMagicBlock();
@@ -564,6 +434,7 @@ public class BlockBindManager {
                 PersistentDataType.STRING,
                 blockId
             );
+            meta.getPersistentDataContainer().set(retrieveTokenKey, PersistentDataType.STRING, token);
 
             // 设置lore
             List<String> lore = meta.hasLore() ? meta.getLore() : new ArrayList<>();
@@ -580,7 +451,7 @@ public class BlockBindManager {
             if (magicLoreIndex != -1) {
                 // 找到装饰性lore的结束位置
                 int insertIndex = magicLoreIndex + 1;
-                if (plugin.getConfig().getBoolean("display.decorative-lore.enabled", true)) {
+                if (plugin.getDisplaySettings().isDecorativeLoreEnabled()) {
                     while (insertIndex < lore.size() && !lore.get(insertIndex).contains(plugin.getUsageLorePrefix())) {
                         insertIndex++;
                     }
@@ -608,23 +479,56 @@ public class BlockBindManager {
         }
 
         plugin.sendMessage(player, "messages.block-retrieved");
+
+        Runnable onFinish = () -> {
+            activeCleanups.remove(cleanupKey, cleanup);
+            // 被取消或超时时可能还有检查未执行，保留标记；留下的标记在下次取回时不影响旧副本的判断
+            if (cleanup.isCompleted()) {
+                cleanup.atOwner(() -> clearRetrieveToken(player, token));
+            }
+        };
+        if (plugin.getPerformanceSettings().isRetrievalFallbackScanEnabled()) {
+            cleanup.startScan(onFinish);
+        } else {
+            cleanup.purgeAll(onFinish);
+        }
     }
 
-    private boolean isSameBoundBlock(ItemStack item, UUID playerUUID, Material type) {
-        if (item == null || !plugin.getBlockManager().isMagicBlock(item) || !isBlockBound(item)) {
-            return false;
+    /**
+     * 清理结束后移除新方块上的取回标记；新方块已离开背包时标记保留
+     */
+    private void clearRetrieveToken(Player player, String token) {
+        Inventory inventory = player.getInventory();
+        ItemStack[] contents = inventory.getContents();
+        for (int i = 0; i < contents.length; i++) {
+            ItemStack item = contents[i];
+            if (item == null || !item.hasItemMeta()) continue;
+            ItemMeta meta = item.getItemMeta();
+            if (meta == null || !token.equals(meta.getPersistentDataContainer().get(retrieveTokenKey, PersistentDataType.STRING))) {
+                continue;
+            }
+            meta.getPersistentDataContainer().remove(retrieveTokenKey);
+            item.setItemMeta(meta);
+            inventory.setItem(i, item);
         }
+    }
 
-        UUID boundPlayer = getBoundPlayer(item);
-        return boundPlayer != null &&
-               boundPlayer.equals(playerUUID) &&
-               item.getType() == type;
+    /**
+     * 同一玩家、同一材质的绑定方块，且不是本次取回发放的新方块
+     */
+    private boolean isStaleCopy(ItemStack item, UUID playerUUID, Material type, String token) {
+        if (item == null || item.getType() != type || !plugin.getBlockManager().isMagicBlock(item)) {
+            return false;
+        }
+        ItemMeta meta = item.getItemMeta();
+        if (meta == null) return false;
+        PersistentDataContainer data = meta.getPersistentDataContainer();
+        return playerUUID.toString().equals(data.get(bindKey, PersistentDataType.STRING))
+            && !token.equals(data.get(retrieveTokenKey, PersistentDataType.STRING));
     }
 
     public void removeBindings(Player player) {
-        String uuid = player.getUniqueId().toString();
-        bindConfig.set("bindings." + uuid, null);
-        saveBindConfig();
+        bindingStore.removePlayer(player.getUniqueId());
     }
 
     public void cleanupBindings(ItemStack item) {
@@ -633,40 +537,17 @@ public class BlockBindManager {
         UUID boundUUID = getBoundPlayer(item);
         if (boundUUID == null) return;
 
-        String uuid = boundUUID.toString();
-        if (!bindConfig.contains("bindings." + uuid)) return;
-
-        // 遍历所有绑定的方块
-        Set<String> blocks = Objects.requireNonNull(bindConfig.getConfigurationSection("bindings." + uuid)).getKeys(false);
-        for (String blockId : blocks) {
-            String path = "bindings." + uuid + "." + blockId;
-            String material = bindConfig.getString(path + ".material");
-            if (material != null && material.equals(item.getType().name())) {
-                bindConfig.set(path, null);
-            }
-        }
-
-        // 如果该玩家没有绑定的方块了，删除整个节点
-        if (bindConfig.getConfigurationSection("bindings." + uuid).getKeys(false).isEmpty()) {
-            bindConfig.set("bindings." + uuid, null);
-        }
-
-        saveBindConfig();
-    }
-
-    // 检查并移除使用次数为0的方块
-    private void removeZeroUsageBlocks(String uuid, String blockId) {
-        String path = "bindings." + uuid + "." + blockId;
-        int uses = bindConfig.getInt(path + ".uses", 0);
-
-        if (uses <= 0) {
-            bindConfig.set(path, null);
-            // 如果该玩家没有绑定的方块了，删除整个节点
-            if (bindConfig.getConfigurationSection("bindings." + uuid).getKeys(false).isEmpty()) {
-                bindConfig.set("bindings." + uuid, null);
-            }
-            saveBindConfig();
+        // 有方块ID时只移除这一条绑定；旧物品没有方块ID，移除该玩家所有相同材质的绑定
+        ItemMeta meta = item.getItemMeta();
+        String blockId = meta != null
+            ? meta.getPersistentDataContainer().get(new NamespacedKey(plugin, "block_id"), PersistentDataType.STRING)
+            : null;
+        if (blockId != null) {
+            bindingStore.removeByBlockId(blockId);
+            return;
         }
+        String material = item.getType().name();
+        bindingStore.removeIf(boundUUID, binding -> material.equals(binding.getMaterial()));
     }
 
     // 处理绑定列表中的点击事件
@@ -716,10 +597,7 @@ public class BlockBindManager {
         if (databaseManager != null && databaseManager.isEnabled()) {
             databaseManager.setBlockHidden(player.getUniqueId(), blockId, true);
         } else {
-            String uuid = player.getUniqueId().toString();
-            String path = "bindings." + uuid + "." + blockId + ".hidden";
-            bindConfig.set(path, true);
-            saveBindConfig();
+            bindingStore.update(player.getUniqueId(), blockId, binding -> binding.withHidden(true));
         }
     }
 
@@ -740,18 +618,13 @@ public class BlockBindManager {
         if (blockId == null) return;
 
         // 如果配置为移除耗尽的方块
-        if (plugin.getConfig().getBoolean("remove-depleted-blocks", false)) {
+        if (plugin.getGameplaySettings().isRemoveDepletedBlocks()) {
             if (databaseManager != null && databaseManager.isEnabled()) {
                 // 从数据库中移除
                 databaseManager.deleteBinding(boundPlayer, blockId);
             } else {
                 // 从文件中移除
-                String uuid = boundPlayer.toString();
-                if (!bindConfig.contains("bindings." + uuid)) return;
-
-                String path = "bindings." + uuid + "." + blockId;
-                bindConfig.set(path, null);
-                saveBindConfig();
+                bindingStore.removeByBlockId(blockId);
             }
         }
     }
@@ -3,6 +3,9 @@ package io.github.syferie.magicblock.block;
 import io.github.syferie.magicblock.MagicBlockPlugin;
 import io.github.syferie.magicblock.api.IMagicBlock;
 import io.github.syferie.magicblock.util.Constants;
+import io.github.syferie.magicblock.util.DisplaySettings;
+import io.github.syferie.magicblock.util.PerformanceSettings;
+import io.github.syferie.magicblock.util.ProgressBars;
 
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
@@ -16,48 +19,77 @@ import org.bukkit.entity.Player;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
-import java.util.Objects;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.Map;
 
 public class BlockManager implements IMagicBlock {
     private final MagicBlockPlugin plugin;
     private final NamespacedKey useTimesKey;
     private final NamespacedKey maxTimesKey;
+    private final NamespacedKey markerKey;
+    private final NamespacedKey blockIdKey;
 
-    // 性能优化：Lore 缓存
-    private final Map<String, List<String>> loreCache = new ConcurrentHashMap<>();
-    private final Map<String, Long> loreCacheTime = new ConcurrentHashMap<>();
+    // 无限次数使用的存储值
+    public static final int INFINITE_USE_TIMES = Integer.MAX_VALUE - 100;
+
+    // 性能优化：Lore 模板缓存（有界 LRU）
+    private final LoreTemplateCache loreTemplates = new LoreTemplateCache();
+    private volatile DisplaySettings templateSettings;
 
     public BlockManager(MagicBlockPlugin plugin) {
         this.plugin = plugin;
         this.useTimesKey = new NamespacedKey(plugin, Constants.BLOCK_TIMES_KEY);
         this.maxTimesKey = new NamespacedKey(plugin, "magicblock_maxtimes");
+        this.markerKey = new NamespacedKey(plugin, Constants.BLOCK_MARKER_KEY);
+        this.blockIdKey = new NamespacedKey(plugin, "block_id");
+    }
+
+    NamespacedKey getUseTimesKey() {
+        return useTimesKey;
+    }
+
+    NamespacedKey getMaxTimesKey() {
+        return maxTimesKey;
+    }
+
+    NamespacedKey getMarkerKey() {
+        return markerKey;
+    }
+
+    NamespacedKey getBlockIdKey() {
+        return blockIdKey;
+    }
+
+    /**
+     * 读取物品的单次视图，物品没有元数据时返回 null
+     */
+    public MagicItemView view(ItemStack item) {
+        if (item == null) return null;
+        ItemMeta meta = item.getItemMeta();
+        if (meta == null) return null;
+        return new MagicItemView(this, plugin, item, meta);
     }
 
     @Override
     public void setUseTimes(ItemStack item, int times) {
-        ItemMeta meta = item.getItemMeta();
-        if (meta == null) return;
+        MagicItemView view = view(item);
+        if (view == null) return;
 
         // 设置当前使用次数
         if (times == -1) {
             // 如果是无限次数，设置一个非常大的值（20亿次）
-            int infiniteValue = Integer.MAX_VALUE - 100;
-            meta.getPersistentDataContainer().set(useTimesKey, PersistentDataType.INTEGER, infiniteValue);
-            meta.getPersistentDataContainer().set(maxTimesKey, PersistentDataType.INTEGER, infiniteValue);
+            view.setUseTimes(INFINITE_USE_TIMES);
+            view.setMaxTimes(INFINITE_USE_TIMES);
         } else {
-            meta.getPersistentDataContainer().set(useTimesKey, PersistentDataType.INTEGER, times);
+            view.setUseTimes(times);
             // 如果最大使用次数还没有设置，才设置它
-            if (!meta.getPersistentDataContainer().has(maxTimesKey, PersistentDataType.INTEGER)) {
-                meta.getPersistentDataContainer().set(maxTimesKey, PersistentDataType.INTEGER, times);
+            if (!view.hasStoredMaxTimes()) {
+                view.setMaxTimes(times);
             }
         }
+        view.markMagic();
 
-        // 更新物品说明
-        updateLore(item, times == -1 ? Integer.MAX_VALUE - 100 : times);
-        item.setItemMeta(meta);
+        // 更新物品说明，与次数一起写回
+        renderLore(view, times == -1 ? INFINITE_USE_TIMES : times);
+        view.apply();
     }
 
     @Override
@@ -71,38 +103,33 @@ public class BlockManager implements IMagicBlock {
 
     @Override
     public int decrementUseTimes(ItemStack item) {
-        int currentTimes = getUseTimes(item);
-        ItemMeta meta = item.getItemMeta();
-        if (meta == null) return currentTimes;
+        MagicItemView view = view(item);
+        if (view == null) return getUseTimes(item);
 
-        // 正常减少次数
-        currentTimes--;
-        final int finalCurrentTimes = currentTimes; // 为 lambda 表达式创建 final 变量
-        PersistentDataContainer container = meta.getPersistentDataContainer();
-        container.set(useTimesKey, PersistentDataType.INTEGER, currentTimes);
-        item.setItemMeta(meta);
+        int currentTimes = decrementUseTimes(view);
+        view.apply();
+        return currentTimes;
+    }
 
-        // 检查是否是"无限"次数（大数值）
-        int maxTimes = getMaxUseTimes(item);
-        if (maxTimes == Integer.MAX_VALUE - 100) {
-            updateLore(item, currentTimes);
-            return currentTimes;
-        }
+    /**
+     * 在视图上减少一次使用次数并重建 Lore，由调用方 apply() 写回
+     */
+    public int decrementUseTimes(MagicItemView view) {
+        // 正常减少次数
+        int currentTimes = view.getUseTimes() - 1;
+        view.setUseTimes(currentTimes);
 
-        // 性能优化：延迟数据库更新，减少频繁写入
-        if (isBlockBound(item)) {
-            UUID boundPlayer = getBoundPlayer(item);
+        // 检查是否是"无限"次数（大数值），无限次数不需要同步绑定数据
+        if (view.getMaxTimes() != INFINITE_USE_TIMES) {
+            // 性能优化：延迟数据库更新，减少频繁写入
+            UUID boundPlayer = view.getBoundPlayer();
             if (boundPlayer != null) {
-                final UUID finalBoundPlayer = boundPlayer;
-                final ItemStack finalItem = item.clone(); // 创建物品副本避免并发问题
-                // 使用异步任务更新绑定数据，避免阻塞主线程
-                plugin.getFoliaLib().getScheduler().runAsync(task -> {
-                    updateBindingDataAsync(finalBoundPlayer, finalItem, finalCurrentTimes);
-                });
+                // 只修改内存数据，文件写入由绑定数据的写回线程完成
+                updateBindingData(boundPlayer, view.getBlockId(), view.getItem().getType().name(), currentTimes);
             }
         }
 
-        updateLore(item, currentTimes);
+        renderLore(view, currentTimes);
         return currentTimes;
     }
 
@@ -115,128 +142,153 @@ public class BlockManager implements IMagicBlock {
 
     @Override
     public void updateLore(ItemStack item, int remainingTimes) {
-        long startTime = System.nanoTime(); // 开始计时
+        MagicItemView view = view(item);
+        if (view == null) return;
 
-        ItemMeta meta = item.getItemMeta();
-        if (meta == null) return;
+        renderLore(view, remainingTimes);
+        view.apply();
+    }
+
+    /**
+     * 在视图上重建 Lore，由调用方 apply() 写回
+     */
+    public void renderLore(MagicItemView view, int remainingTimes) {
+        long startTime = System.nanoTime(); // 开始计时
 
         // 获取物品的最大使用次数
-        int maxTimes = getMaxUseTimes(item);
+        int maxTimes = view.getMaxTimes();
         if (maxTimes <= 0) return;
 
         // 检查是否是"无限"次数（大数值）
-        boolean isInfinite = maxTimes == Integer.MAX_VALUE - 100;
+        boolean isInfinite = maxTimes == INFINITE_USE_TIMES;
 
-        // 性能优化：生成缓存键
-        String cacheKey = generateLoreCacheKey(item, remainingTimes, maxTimes, isInfinite);
+        // 获取物品所有者（如果已绑定）用于PAPI变量解析
+        UUID boundPlayer = view.getBoundPlayer();
+        Player owner = boundPlayer != null ? Bukkit.getPlayer(boundPlayer) : null;
 
-        // 检查缓存
-        List<String> cachedLore = getCachedLore(cacheKey);
-        if (cachedLore != null) {
-            plugin.getPerformanceMonitor().recordCacheHit();
-            meta.setLore(new ArrayList<>(cachedLore)); // 创建副本避免并发修改
-            item.setItemMeta(meta);
+        LoreTemplateCache.Template template = getLoreTemplate(maxTimes, isInfinite, boundPlayer, owner);
+        String bar = template.hasProgressBar() ? ProgressBars.lore(remainingTimes, maxTimes) : null;
+        view.setLore(template.render(isInfinite ? "∞" : Integer.toString(remainingTimes), bar));
+        view.markMagic();
 
-            // 记录性能数据
-            long duration = (System.nanoTime() - startTime) / 1_000_000; // 转换为毫秒
-            plugin.getPerformanceMonitor().recordLoreUpdate(duration);
-            return;
+        // 记录性能数据
+        long duration = (System.nanoTime() - startTime) / 1_000_000; // 转换为毫秒
+        plugin.getPerformanceMonitor().recordLoreUpdate(duration);
+    }
+
+    // 性能优化：Lore 模板只和最大次数、绑定玩家有关，剩余次数变化时可以复用
+    private LoreTemplateCache.Template getLoreTemplate(int maxTimes, boolean isInfinite, UUID boundPlayer, Player owner) {
+        PerformanceSettings settings = plugin.getPerformanceSettings();
+        DisplaySettings display = plugin.getDisplaySettings();
+        if (!settings.isLoreCacheEnabled()) {
+            return buildLoreTemplate(display, maxTimes, isInfinite, boundPlayer, owner, 0L);
+        }
+
+        // 配置重载后显示设置会整体替换，旧模板全部作废
+        if (templateSettings != display) {
+            loreTemplates.clear();
+            templateSettings = display;
+        }
+
+        LoreTemplateCache.Key key = new LoreTemplateCache.Key(maxTimes, boundPlayer, owner != null ? owner.getName() : null);
+        long now = System.currentTimeMillis();
+        LoreTemplateCache.Template template = loreTemplates.get(key, now, settings.getLoreCacheDuration());
+        if (template != null) {
+            plugin.getPerformanceMonitor().recordCacheHit();
+            return template;
         }
 
         // 缓存未命中
         plugin.getPerformanceMonitor().recordCacheMiss();
+        template = buildLoreTemplate(display, maxTimes, isInfinite, boundPlayer, owner, now);
+        int evicted = loreTemplates.put(key, template, Math.max(1, settings.getLoreCacheMaxSize()));
+        if (evicted > 0) {
+            plugin.getPerformanceMonitor().recordCacheEviction(evicted);
+        }
+        return template;
+    }
 
-        List<String> lore = new ArrayList<>();
+    private LoreTemplateCache.Template buildLoreTemplate(DisplaySettings display, int maxTimes, boolean isInfinite,
+                                                         UUID boundPlayer, Player owner, long now) {
+        List<String> header = new ArrayList<>();
 
         // 添加魔法方块标识
-        lore.add(plugin.getMagicLore());
-
-        // 获取物品所有者（如果已绑定）用于PAPI变量解析
-        Player owner = null;
-        UUID boundPlayer = null;
-        if (isBlockBound(item)) {
-            boundPlayer = getBoundPlayer(item);
-            if (boundPlayer != null) {
-                owner = Bukkit.getPlayer(boundPlayer);
-            }
-        }
+        header.add(display.getMagicLore());
 
         // 添加装饰性lore（如果启用）
-        if (plugin.getConfig().getBoolean("display.decorative-lore.enabled", true)) {
-            List<String> configLore = plugin.getConfig().getStringList("display.decorative-lore.lines");
-            for (String line : configLore) {
-                String processedLine = ChatColor.translateAlternateColorCodes('&', line);
+        if (display.isDecorativeLoreEnabled()) {
+            for (String line : display.getDecorativeLoreLines()) {
+                String processedLine = line;
                 // 如果服务器安装了PlaceholderAPI，处理变量
                 if (Bukkit.getPluginManager().getPlugin("PlaceholderAPI") != null) {
                     // 将当前物品的使用次数信息传递给PAPI处理器
                     // 这样即使进度条显示被禁用，仍然可以通过PAPI变量使用进度条
                     processedLine = me.clip.placeholderapi.PlaceholderAPI.setPlaceholders(owner, processedLine);
                 }
-                lore.add(processedLine);
+                header.add(processedLine);
             }
         }
 
         // 添加绑定信息（如果启用且已绑定）
-        if (plugin.getConfig().getBoolean("display.show-info.bound-player", true) && boundPlayer != null) {
+        if (display.isShowBoundPlayer() && boundPlayer != null) {
             String bindLorePrefix = plugin.getBlockBindManager().getBindLorePrefix();
             if (owner != null) {
-                lore.add(bindLorePrefix + owner.getName());
-            } else {
-                lore.add(bindLorePrefix + boundPlayer.toString());
-            }
-        }
-
-        // 添加使用次数（如果启用）
-        if (plugin.getConfig().getBoolean("display.show-info.usage-count", true)) {
-            StringBuilder usageText = new StringBuilder();
-            usageText.append(ChatColor.GRAY).append(plugin.getUsageLorePrefix()).append(" ");
-            if (isInfinite) {
-                usageText.append(ChatColor.AQUA).append("∞")
-                        .append(ChatColor.GRAY).append("/")
-                        .append(ChatColor.GRAY).append("∞");
+                header.add(bindLorePrefix + owner.getName());
             } else {
-                usageText.append(ChatColor.AQUA).append(remainingTimes)
-                        .append(ChatColor.GRAY).append("/")
-                        .append(ChatColor.GRAY).append(maxTimes);
+                header.add(bindLorePrefix + boundPlayer.toString());
             }
-            lore.add(usageText.toString());
         }
 
-        // 添加进度条（如果启用且不是无限次数）
-        if (!isInfinite && plugin.getConfig().getBoolean("display.show-info.progress-bar", true)) {
-            double usedPercentage = (double) remainingTimes / maxTimes;
-            int barLength = 10;
-            int filledBars = (int) Math.round(usedPercentage * barLength);
-
-            StringBuilder progressBar = new StringBuilder();
-            progressBar.append(ChatColor.GRAY).append("[");
-            for (int i = 0; i < barLength; i++) {
-                if (i < filledBars) {
-                    progressBar.append(ChatColor.GREEN).append("■");
-                } else {
-                    progressBar.append(ChatColor.GRAY).append("■");
-                }
-            }
-            progressBar.append(ChatColor.GRAY).append("]");
-            lore.add(progressBar.toString());
+        // 使用次数行（如果启用）：剩余次数在渲染时拼接到前后缀之间
+        String usagePrefix = null;
+        String usageSuffix = null;
+        if (display.isShowUsageCount()) {
+            usagePrefix = ChatColor.GRAY + display.getUsageLorePrefix() + " " + ChatColor.AQUA;
+            usageSuffix = ChatColor.GRAY + "/" + ChatColor.GRAY + (isInfinite ? "∞" : Integer.toString(maxTimes));
         }
 
-        meta.setLore(lore);
-        item.setItemMeta(meta);
+        // 进度条（如果启用且不是无限次数）
+        boolean progressBar = !isInfinite && display.isShowProgressBar();
+        return new LoreTemplateCache.Template(header, usagePrefix, usageSuffix, progressBar, now);
+    }
 
-        // 缓存生成的 lore
-        cacheLore(cacheKey, lore);
+    public boolean isMagicBlock(ItemStack item) {
+        if (item == null || !item.hasItemMeta()) return false;
+        ItemMeta meta = item.getItemMeta();
+        if (meta == null) return false;
+        // 兼容旧物品：只有 Lore 标识时回退到 Lore 匹配；只读检查，PDC 标记在 MagicItemView.apply() 写回时补上
+        return hasMagicMarker(meta) || plugin.hasMagicLore(meta);
+    }
 
-        // 记录性能数据
-        long duration = (System.nanoTime() - startTime) / 1_000_000; // 转换为毫秒
-        plugin.getPerformanceMonitor().recordLoreUpdate(duration);
+    /**
+     * 判断物品元数据是否属于魔法方块：优先检查 PDC 标记，旧物品回退到 Lore 匹配
+     */
+    public boolean isMagicBlockMeta(ItemMeta meta) {
+        if (meta == null) return false;
+        return hasMagicMarker(meta) || plugin.hasMagicLore(meta);
     }
 
-    public boolean isMagicBlock(ItemStack item) {
+    /**
+     * 仅通过 PDC 数据判断是否为魔法方块，不扫描 Lore
+     * 用于批量检查掉落物等不需要兼容旧物品的场景
+     */
+    public boolean hasMagicBlockData(ItemStack item) {
         if (item == null || !item.hasItemMeta()) return false;
         ItemMeta meta = item.getItemMeta();
-        // 使用插件的hasMagicLore方法进行检查，该方法已经增强以处理格式代码
-        return plugin.hasMagicLore(meta);
+        if (meta == null) return false;
+        PersistentDataContainer container = meta.getPersistentDataContainer();
+        return container.has(markerKey, PersistentDataType.BYTE) || container.has(useTimesKey, PersistentDataType.INTEGER);
+    }
+
+    private boolean hasMagicMarker(ItemMeta meta) {
+        return meta.getPersistentDataContainer().has(markerKey, PersistentDataType.BYTE);
+    }
+
+    /**
+     * 写入魔法方块的 PDC 标记（调用方负责 setItemMeta）
+     */
+    public void markMagicBlock(ItemMeta meta) {
+        meta.getPersistentDataContainer().set(markerKey, PersistentDataType.BYTE, Constants.MARKER_VALUE);
     }
 
     public boolean isBlockBound(ItemStack item) {
@@ -256,112 +308,21 @@ public class BlockManager implements IMagicBlock {
     }
 
     public int getMaxUseTimes(ItemStack item) {
-        if (!isMagicBlock(item)) return 0;
-        ItemMeta meta = item.getItemMeta();
-        if (meta == null) return 0;
-
-        PersistentDataContainer container = meta.getPersistentDataContainer();
-        Integer maxTimes = container.get(maxTimesKey, PersistentDataType.INTEGER);
-
-        // 如果没有存储的最大次数，则使用默认值
-        if (maxTimes == null) {
-            maxTimes = plugin.getDefaultBlockTimes();
-            // 存储默认值作为最大次数
-            setMaxUseTimes(item, maxTimes);
-        }
+        MagicItemView view = view(item);
+        if (view == null) return 0;
 
+        // 如果没有存储的最大次数，视图会写入默认值作为最大次数
+        int maxTimes = view.getMaxTimes();
+        view.apply();
         return maxTimes;
     }
 
-    // 性能优化：缓存相关方法
-    private String generateLoreCacheKey(ItemStack item, int remainingTimes, int maxTimes, boolean isInfinite) {
-        StringBuilder keyBuilder = new StringBuilder();
-        keyBuilder.append(item.getType().name())
-                  .append("_")
-                  .append(remainingTimes)
-                  .append("_")
-                  .append(maxTimes)
-                  .append("_")
-                  .append(isInfinite);
-
-        // 添加绑定状态到缓存键
-        if (isBlockBound(item)) {
-            UUID boundPlayer = getBoundPlayer(item);
-            if (boundPlayer != null) {
-                keyBuilder.append("_bound_").append(boundPlayer.toString());
-            }
-        }
-
-        return keyBuilder.toString();
-    }
-
-    private List<String> getCachedLore(String cacheKey) {
-        // 检查是否启用缓存
-        if (!plugin.getConfig().getBoolean("performance.lore-cache.enabled", true)) {
-            return null;
-        }
-
-        Long cacheTime = loreCacheTime.get(cacheKey);
-        long cacheDuration = plugin.getConfig().getLong("performance.lore-cache.duration", 5000);
-
-        if (cacheTime == null || System.currentTimeMillis() - cacheTime > cacheDuration) {
-            // 缓存过期，清理
-            loreCache.remove(cacheKey);
-            loreCacheTime.remove(cacheKey);
-            return null;
-        }
-        return loreCache.get(cacheKey);
-    }
-
-    private void cacheLore(String cacheKey, List<String> lore) {
-        // 检查是否启用缓存
-        if (!plugin.getConfig().getBoolean("performance.lore-cache.enabled", true)) {
-            return;
-        }
-
-        loreCache.put(cacheKey, new ArrayList<>(lore)); // 存储副本
-        loreCacheTime.put(cacheKey, System.currentTimeMillis());
-
-        // 定期清理过期缓存（简单的清理策略）
-        int maxSize = plugin.getConfig().getInt("performance.lore-cache.max-size", 1000);
-        if (loreCache.size() > maxSize) {
-            cleanExpiredCache();
-        }
-    }
-
-    private void cleanExpiredCache() {
-        long currentTime = System.currentTimeMillis();
-        long cacheDuration = plugin.getConfig().getLong("performance.lore-cache.duration", 5000);
-
-        loreCacheTime.entrySet().removeIf(entry -> {
-            boolean expired = currentTime - entry.getValue() > cacheDuration;
-            if (expired) {
-                loreCache.remove(entry.getKey());
-            }
-            return expired;
-        });
-    }
-
-    // 性能优化：异步更新绑定数据
-    private void updateBindingDataAsync(UUID boundPlayer, ItemStack item, int currentTimes) {
+    // 性能优化：更新内存中的绑定数据，由写回线程合并保存
+    private void updateBindingData(UUID boundPlayer, String blockId, String materialName, int currentTimes) {
         try {
-            String uuid = boundPlayer.toString();
-            if (plugin.getBlockBindManager().getBindConfig().contains("bindings." + uuid)) {
-                Set<String> blocks = Objects.requireNonNull(plugin.getBlockBindManager().getBindConfig()
-                        .getConfigurationSection("bindings." + uuid)).getKeys(false);
-                for (String blockId : blocks) {
-                    String path = "bindings." + uuid + "." + blockId;
-                    String material = plugin.getBlockBindManager().getBindConfig().getString(path + ".material");
-                    if (material != null && material.equals(item.getType().name())) {
-                        // 更新使用次数
-                        plugin.getBlockBindManager().getBindConfig().set(path + ".uses", currentTimes);
-                        plugin.getBlockBindManager().saveBindConfig();
-                        break;
-                    }
-                }
-            }
+            plugin.getBlockBindManager().updateStoredUses(boundPlayer, blockId, materialName, currentTimes);
         } catch (Exception e) {
-            plugin.getLogger().warning("异步更新绑定数据时出错: " + e.getMessage());
+            plugin.getLogger().warning("更新绑定数据时出错: " + e.getMessage());
         }
     }
 }
\ No newline at end of file
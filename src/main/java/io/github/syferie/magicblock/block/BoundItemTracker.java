@@ -0,0 +1,296 @@
+package io.github.syferie.magicblock.block;
+
+import io.github.syferie.magicblock.MagicBlockPlugin;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.block.Container;
+import org.bukkit.NamespacedKey;
+import org.bukkit.block.DoubleChest;
+import org.bukkit.entity.Item;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.entity.EntityDamageEvent;
+import org.bukkit.event.entity.EntityPickupItemEvent;
+import org.bukkit.event.entity.ItemDespawnEvent;
+import org.bukkit.event.entity.ItemMergeEvent;
+import org.bukkit.event.entity.ItemSpawnEvent;
+import org.bukkit.event.inventory.InventoryCloseEvent;
+import org.bukkit.event.inventory.InventoryMoveItemEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryHolder;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.persistence.PersistentDataType;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 绑定方块的位置登记
+ * 通过掉落、拾取、合并、销毁、容器关闭和漏斗转移事件记录每个玩家的绑定方块可能所在的位置，
+ * 取回方块时只检查这些位置，未登记的副本由 RetrievalCleanup 分多个 tick 补扫
+ *
+ * 登记的位置只是线索，物品可能早已被移走；检查后即移除，区块未加载时保留
+ * 事件可能在 Folia 的区域线程上触发，登记表是线程安全的
+ */
+public class BoundItemTracker implements Listener {
+    private final MagicBlockPlugin plugin;
+    // 物品 PDC 中的绑定玩家
+    private final NamespacedKey bindKey;
+    // 玩家 -> 按登记时间排序的位置，超过上限时丢弃最早的
+    private final Map<UUID, Set<TrackedLocation>> locations = new ConcurrentHashMap<>();
+
+    BoundItemTracker(MagicBlockPlugin plugin, NamespacedKey bindKey) {
+        this.plugin = plugin;
+        this.bindKey = bindKey;
+    }
+
+    // ---------- 登记表 ----------
+
+    void track(UUID owner, TrackedLocation location) {
+        int limit = plugin.getPerformanceSettings().getRetrievalTrackedLocations();
+        locations.compute(owner, (key, set) -> {
+            if (set == null) {
+                set = new LinkedHashSet<>();
+            }
+            // 重新登记的位置移到末尾
+            set.remove(location);
+            set.add(location);
+            Iterator<TrackedLocation> it = set.iterator();
+            while (set.size() > limit && it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+            return set;
+        });
+    }
+
+    void untrack(UUID owner, TrackedLocation location) {
+        locations.computeIfPresent(owner, (key, set) -> {
+            set.remove(location);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    /**
+     * 玩家当前登记的所有位置（副本）
+     */
+    List<TrackedLocation> getLocations(UUID owner) {
+        List<TrackedLocation> result = new ArrayList<>();
+        locations.computeIfPresent(owner, (key, set) -> {
+            result.addAll(set);
+            return set;
+        });
+        return result;
+    }
+
+    // ---------- 事件 ----------
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onItemSpawn(ItemSpawnEvent event) {
+        // 玩家丢弃、死亡掉落、容器被破坏等所有掉落物都会经过这里
+        Item item = event.getEntity();
+        UUID owner = ownerOf(item.getItemStack());
+        if (owner != null) {
+            track(owner, TrackedLocation.item(item));
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPickup(EntityPickupItemEvent event) {
+        UUID owner = ownerOf(event.getItem().getItemStack());
+        if (owner == null) return;
+        untrack(owner, TrackedLocation.item(event.getItem()));
+        if (event.getEntity() instanceof Player) {
+            track(owner, TrackedLocation.player(event.getEntity().getUniqueId()));
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onDespawn(ItemDespawnEvent event) {
+        UUID owner = ownerOf(event.getEntity().getItemStack());
+        if (owner != null) {
+            untrack(owner, TrackedLocation.item(event.getEntity()));
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onMerge(ItemMergeEvent event) {
+        // 被合并的掉落物实体消失，物品转移到目标实体上
+        UUID owner = ownerOf(event.getEntity().getItemStack());
+        if (owner == null) return;
+        untrack(owner, TrackedLocation.item(event.getEntity()));
+        track(owner, TrackedLocation.item(event.getTarget()));
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onItemDamage(EntityDamageEvent event) {
+        // 掉落物被岩浆、火、仙人掌、爆炸或虚空销毁时没有专门的事件，下一 tick 检查实体是否还存在
+        if (!(event.getEntity() instanceof Item)) return;
+        Item item = (Item) event.getEntity();
+        UUID owner = ownerOf(item.getItemStack());
+        if (owner == null) return;
+        TrackedLocation tracked = TrackedLocation.item(item);
+        plugin.getFoliaLib().getScheduler().runAtLocationLater(item.getLocation(), () -> {
+            if (!item.isValid()) {
+                untrack(owner, tracked);
+            }
+        }, 1L);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onInventoryClose(InventoryCloseEvent event) {
+        // 关闭容器时检查两侧的物品，覆盖点击、拖拽、Shift 转移等所有放入方式
+        Location container = containerLocation(event.getInventory());
+        if (container == null) return;
+        for (UUID owner : ownersIn(event.getInventory())) {
+            track(owner, TrackedLocation.container(container));
+        }
+        trackInventory(event.getPlayer().getUniqueId(), event.getPlayer().getInventory());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onHopperMove(InventoryMoveItemEvent event) {
+        UUID owner = ownerOf(event.getItem());
+        if (owner == null) return;
+        Location destination = containerLocation(event.getDestination());
+        if (destination != null) {
+            track(owner, TrackedLocation.container(destination));
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onJoin(PlayerJoinEvent event) {
+        Player player = event.getPlayer();
+        trackInventory(player.getUniqueId(), player.getInventory());
+    }
+
+    private void trackInventory(UUID holder, Inventory inventory) {
+        for (UUID owner : ownersIn(inventory)) {
+            track(owner, TrackedLocation.player(holder));
+        }
+    }
+
+    /**
+     * 物品栏中绑定方块的所有者，每个所有者只出现一次
+     */
+    private Set<UUID> ownersIn(Inventory inventory) {
+        Set<UUID> owners = new LinkedHashSet<>();
+        for (ItemStack item : inventory.getContents()) {
+            UUID owner = ownerOf(item);
+            if (owner != null) {
+                owners.add(owner);
+            }
+        }
+        return owners;
+    }
+
+    /**
+     * 物品 PDC 中的绑定玩家；只读取绑定键，不构造完整的物品视图
+     * 只有绑定方块带有绑定键，不再单独检查魔法方块标记
+     */
+    private UUID ownerOf(ItemStack item) {
+        if (item == null || !item.hasItemMeta()) return null;
+        ItemMeta meta = item.getItemMeta();
+        if (meta == null) return null;
+        String owner = meta.getPersistentDataContainer().get(bindKey, PersistentDataType.STRING);
+        if (owner == null) return null;
+        try {
+            return UUID.fromString(owner);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 方块容器的位置；实体容器（运输矿车等）和插件 GUI 返回 null
+     */
+    private static Location containerLocation(Inventory inventory) {
+        InventoryHolder holder = inventory.getHolder();
+        if (!(holder instanceof Container) && !(holder instanceof DoubleChest)) return null;
+        return inventory.getLocation();
+    }
+
+    /**
+     * 一个登记的位置：玩家背包、掉落物实体或方块容器
+     */
+    static final class TrackedLocation {
+        enum Kind { PLAYER, ITEM, CONTAINER }
+
+        private final Kind kind;
+        // 玩家UUID / 掉落物实体UUID / 容器所在世界UUID
+        private final UUID id;
+        // 掉落物为登记时所在的世界和坐标，只用于调度到对应区域
+        private final UUID world;
+        private final int x;
+        private final int y;
+        private final int z;
+
+        private TrackedLocation(Kind kind, UUID id, UUID world, int x, int y, int z) {
+            this.kind = kind;
+            this.id = id;
+            this.world = world;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+        }
+
+        static TrackedLocation player(UUID player) {
+            return new TrackedLocation(Kind.PLAYER, player, null, 0, 0, 0);
+        }
+
+        static TrackedLocation item(Item item) {
+            Location location = item.getLocation();
+            return new TrackedLocation(Kind.ITEM, item.getUniqueId(), item.getWorld().getUID(),
+                location.getBlockX(), location.getBlockY(), location.getBlockZ());
+        }
+
+        static TrackedLocation container(Location location) {
+            UUID world = location.getWorld().getUID();
+            return new TrackedLocation(Kind.CONTAINER, world, world,
+                location.getBlockX(), location.getBlockY(), location.getBlockZ());
+        }
+
+        Kind getKind() {
+            return kind;
+        }
+
+        UUID getId() {
+            return id;
+        }
+
+        /**
+         * 对应的世界位置，玩家背包或世界未加载时返回 null
+         */
+        Location toLocation() {
+            World loaded = world != null ? Bukkit.getWorld(world) : null;
+            return loaded != null ? new Location(loaded, x, y, z) : null;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof TrackedLocation)) return false;
+            TrackedLocation other = (TrackedLocation) o;
+            if (kind != other.kind || !id.equals(other.id)) return false;
+            // 掉落物会移动，只按实体UUID区分
+            return kind != Kind.CONTAINER || (x == other.x && y == other.y && z == other.z);
+        }
+
+        @Override
+        public int hashCode() {
+            return kind == Kind.CONTAINER ? Objects.hash(kind, id, x, y, z) : Objects.hash(kind, id);
+        }
+    }
+}
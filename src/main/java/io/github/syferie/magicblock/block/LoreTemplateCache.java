@@ -0,0 +1,123 @@
+package io.github.syferie.magicblock.block;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * 有界 LRU 的 Lore 模板缓存
+ * 模板按 (最大次数, 绑定玩家, 玩家名) 缓存，剩余次数不参与缓存键，
+ * 渲染时只把使用次数行和进度条拼接到预先生成的固定行后面
+ */
+final class LoreTemplateCache {
+    private final LinkedHashMap<Key, Template> templates = new LinkedHashMap<>(64, 0.75f, true);
+
+    /**
+     * 获取未过期的模板，过期条目会被直接移除
+     */
+    synchronized Template get(Key key, long now, long duration) {
+        Template template = templates.get(key);
+        if (template == null) return null;
+        if (now - template.createdAt > duration) {
+            templates.remove(key);
+            return null;
+        }
+        return template;
+    }
+
+    /**
+     * 放入模板并淘汰最久未使用的条目，返回本次淘汰的数量
+     */
+    synchronized int put(Key key, Template template, int maxSize) {
+        templates.put(key, template);
+        int evicted = 0;
+        Iterator<Template> it = templates.values().iterator();
+        while (templates.size() > maxSize && it.hasNext()) {
+            it.next();
+            it.remove();
+            evicted++;
+        }
+        return evicted;
+    }
+
+    synchronized void clear() {
+        templates.clear();
+    }
+
+    synchronized int size() {
+        return templates.size();
+    }
+
+    static final class Key {
+        private final int maxTimes;
+        private final UUID boundPlayer;
+        private final String ownerName;
+        private final int hash;
+
+        Key(int maxTimes, UUID boundPlayer, String ownerName) {
+            this.maxTimes = maxTimes;
+            this.boundPlayer = boundPlayer;
+            this.ownerName = ownerName;
+            this.hash = Objects.hash(maxTimes, boundPlayer, ownerName);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return maxTimes == other.maxTimes
+                && Objects.equals(boundPlayer, other.boundPlayer)
+                && Objects.equals(ownerName, other.ownerName);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * 预渲染的 Lore 模板：固定行 + 使用次数行的前后缀
+     */
+    static final class Template {
+        private final String[] header;
+        // 为 null 时不显示使用次数行
+        private final String usagePrefix;
+        private final String usageSuffix;
+        private final boolean progressBar;
+        private final long createdAt;
+
+        Template(List<String> header, String usagePrefix, String usageSuffix, boolean progressBar, long createdAt) {
+            this.header = header.toArray(new String[0]);
+            this.usagePrefix = usagePrefix;
+            this.usageSuffix = usageSuffix;
+            this.progressBar = progressBar;
+            this.createdAt = createdAt;
+        }
+
+        boolean hasProgressBar() {
+            return progressBar;
+        }
+
+        /**
+         * 按剩余次数生成完整 Lore，usageValue 为使用次数行中间的数值部分
+         */
+        List<String> render(String usageValue, String bar) {
+            List<String> lore = new ArrayList<>(header.length + 2);
+            for (String line : header) {
+                lore.add(line);
+            }
+            if (usagePrefix != null) {
+                lore.add(usagePrefix + usageValue + usageSuffix);
+            }
+            if (bar != null) {
+                lore.add(bar);
+            }
+            return lore;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package io.github.syferie.magicblock.block;
+
+import io.github.syferie.magicblock.MagicBlockPlugin;
+import io.github.syferie.magicblock.util.Constants;
+import org.bukkit.NamespacedKey;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.persistence.PersistentDataContainer;
+import org.bukkit.persistence.PersistentDataType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 魔法方块物品的单次读取视图
+ * 构造时只调用一次 getItemMeta() 并读出使用次数、最大次数、绑定玩家和方块 ID，
+ * 之后的修改（次数、Lore、绑定）都作用在同一个 meta 上，最后由 apply() 一次 setItemMeta 写回
+ *
+ * 非线程安全，只在持有该物品的线程上使用
+ */
+public final class MagicItemView {
+    private final MagicBlockPlugin plugin;
+    private final BlockManager manager;
+    private final ItemStack item;
+    private final ItemMeta meta;
+    private final PersistentDataContainer container;
+    private final NamespacedKey bindKey;
+
+    private boolean magic;
+    private int useTimes;
+    private Integer storedMaxTimes;
+    private UUID boundPlayer;
+    private String blockId;
+    // 只有 Lore 标识、还没有 PDC 标记的旧物品，写回时补上标记
+    private boolean legacy;
+    private boolean dirty;
+
+    MagicItemView(BlockManager manager, MagicBlockPlugin plugin, ItemStack item, ItemMeta meta) {
+        this.plugin = plugin;
+        this.manager = manager;
+        this.item = item;
+        this.meta = meta;
+        this.container = meta.getPersistentDataContainer();
+        this.bindKey = plugin.getBlockBindManager().getBindKey();
+
+        boolean marked = container.has(manager.getMarkerKey(), PersistentDataType.BYTE);
+        this.magic = marked || plugin.hasMagicLore(meta);
+        this.legacy = magic && !marked;
+        this.useTimes = container.getOrDefault(manager.getUseTimesKey(), PersistentDataType.INTEGER, 0);
+        this.storedMaxTimes = container.get(manager.getMaxTimesKey(), PersistentDataType.INTEGER);
+        String bound = container.get(bindKey, PersistentDataType.STRING);
+        this.boundPlayer = bound != null ? UUID.fromString(bound) : null;
+        this.blockId = container.get(manager.getBlockIdKey(), PersistentDataType.STRING);
+    }
+
+    public ItemStack getItem() {
+        return item;
+    }
+
+    public boolean isMagic() {
+        return magic;
+    }
+
+    public int getUseTimes() {
+        return useTimes;
+    }
+
+    public boolean hasStoredMaxTimes() {
+        return storedMaxTimes != null;
+    }
+
+    /**
+     * 最大使用次数；非魔法方块返回 0，没有存储值时写入默认值（与 BlockManager.getMaxUseTimes 一致）
+     */
+    public int getMaxTimes() {
+        if (!magic) return 0;
+        if (storedMaxTimes == null) {
+            setMaxTimes(plugin.getDefaultBlockTimes());
+        }
+        return storedMaxTimes;
+    }
+
+    public boolean isBound() {
+        return boundPlayer != null;
+    }
+
+    public UUID getBoundPlayer() {
+        return boundPlayer;
+    }
+
+    public String getBlockId() {
+        return blockId;
+    }
+
+    public List<String> getLore() {
+        List<String> lore = meta.getLore();
+        return lore != null ? lore : new ArrayList<>();
+    }
+
+    public void setUseTimes(int times) {
+        useTimes = times;
+        container.set(manager.getUseTimesKey(), PersistentDataType.INTEGER, times);
+        dirty = true;
+    }
+
+    public void setMaxTimes(int times) {
+        storedMaxTimes = times;
+        container.set(manager.getMaxTimesKey(), PersistentDataType.INTEGER, times);
+        dirty = true;
+    }
+
+    public void setLore(List<String> lore) {
+        meta.setLore(lore);
+        dirty = true;
+    }
+
+    /**
+     * 写入绑定玩家和新的方块 ID
+     */
+    public void bind(UUID player, String newBlockId) {
+        boundPlayer = player;
+        blockId = newBlockId;
+        container.set(bindKey, PersistentDataType.STRING, player.toString());
+        container.set(manager.getBlockIdKey(), PersistentDataType.STRING, newBlockId);
+        dirty = true;
+    }
+
+    public void markMagic() {
+        if (!container.has(manager.getMarkerKey(), PersistentDataType.BYTE)) {
+            container.set(manager.getMarkerKey(), PersistentDataType.BYTE, Constants.MARKER_VALUE);
+            dirty = true;
+        }
+        magic = true;
+        legacy = false;
+    }
+
+    /**
+     * 把所有修改一次写回物品
+     * 旧物品的 PDC 标记只在这里随其他修改一起补写（放置、使用、设置次数），识别检查本身不会修改物品
+     */
+    public void apply() {
+        if (dirty && legacy) {
+            markMagic();
+        }
+        if (dirty) {
+            item.setItemMeta(meta);
+            dirty = false;
+        }
+    }
+}
@@ -0,0 +1,370 @@
+package io.github.syferie.magicblock.block;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 内存映射的定长二进制绑定文件（bindings.dat）
+ * 每条绑定占一个 48 字节的槽位，方块ID -> 槽位 由内存中的开放寻址表维护，
+ * 修改使用次数只是对映射内存的一次 4 字节写入，由写回线程定期 force 落盘
+ *
+ * 材质名保存在 bindings.dat.materials 中（每行一个，行号即编号），
+ * 不使用 Material 序号，升级服务端版本后序号变化不影响已有数据
+ *
+ * 非线程安全，由 BindingStore 的锁保护；force 可以在锁外调用
+ */
+final class MappedBindingFile {
+    private static final int MAGIC = 0x4D424244; // "MBBD"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int RECORD_SIZE = 48;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    // 文件头
+    private static final int H_MAGIC = 0;
+    private static final int H_VERSION = 4;
+    private static final int H_RECORD_SIZE = 8;
+    private static final int H_HIGH_WATER = 12;
+
+    // 槽位内的偏移
+    private static final int R_STATE = 0;      // byte：0 = 空闲，1 = 使用中，新记录最后写入
+    private static final int R_FLAGS = 1;      // byte：bit0 = hidden
+    private static final int R_MATERIAL = 4;   // int：材质编号
+    private static final int R_PLAYER = 8;     // 2 × long
+    private static final int R_BLOCK = 24;     // 2 × long
+    private static final int R_USES = 40;      // int
+    private static final int R_MAX_USES = 44;  // int
+
+    private static final byte FREE = 0;
+    private static final byte USED = 1;
+
+    private final FileChannel channel;
+    private final File materialsFile;
+    private volatile MappedByteBuffer buffer;
+    private int capacity;
+    // 使用过的槽位数，之后的槽位从未写入过
+    private int highWater;
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+    private final SlotIndex index = new SlotIndex();
+
+    private final List<String> materials = new ArrayList<>();
+    private final Map<String, Integer> materialIds = new HashMap<>();
+
+    interface RecordConsumer {
+        void accept(UUID player, String blockId, Binding binding);
+    }
+
+    MappedBindingFile(File dataFile) throws IOException {
+        this.materialsFile = new File(dataFile.getParentFile(), dataFile.getName() + ".materials");
+        if (materialsFile.exists()) {
+            for (String name : Files.readAllLines(materialsFile.toPath(), StandardCharsets.UTF_8)) {
+                materialIds.putIfAbsent(name, materials.size());
+                materials.add(name);
+            }
+        }
+
+        boolean existing = dataFile.exists() && dataFile.length() >= HEADER_SIZE;
+        this.channel = FileChannel.open(dataFile.toPath(),
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (existing) {
+                long size = channel.size();
+                capacity = (int) ((size - HEADER_SIZE) / RECORD_SIZE);
+                map(capacity);
+                if (buffer.getInt(H_MAGIC) != MAGIC || buffer.getInt(H_VERSION) != FORMAT_VERSION
+                        || buffer.getInt(H_RECORD_SIZE) != RECORD_SIZE) {
+                    throw new IOException("不是有效的绑定数据文件: " + dataFile.getName());
+                }
+                highWater = Math.max(0, Math.min(buffer.getInt(H_HIGH_WATER), capacity));
+            } else {
+                capacity = INITIAL_CAPACITY;
+                map(capacity);
+                buffer.putInt(H_MAGIC, MAGIC);
+                buffer.putInt(H_VERSION, FORMAT_VERSION);
+                buffer.putInt(H_RECORD_SIZE, RECORD_SIZE);
+                buffer.putInt(H_HIGH_WATER, 0);
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 读取所有使用中的槽位并建立索引，打开文件后调用一次；返回丢弃的损坏记录数
+     */
+    int readAll(RecordConsumer consumer) {
+        MappedByteBuffer buf = buffer;
+        int broken = 0;
+        for (int slot = 0; slot < highWater; slot++) {
+            int off = offset(slot);
+            if (buf.get(off + R_STATE) != USED) {
+                pushFree(slot);
+                continue;
+            }
+            int materialId = buf.getInt(off + R_MATERIAL);
+            if (materialId < 0 || materialId >= materials.size()) {
+                buf.put(off + R_STATE, FREE);
+                pushFree(slot);
+                broken++;
+                continue;
+            }
+            long blockHi = buf.getLong(off + R_BLOCK);
+            long blockLo = buf.getLong(off + R_BLOCK + 8);
+            int previous = index.put(blockHi, blockLo, slot);
+            if (previous >= 0) {
+                // 同一方块ID出现两次时保留后写入的槽位
+                buf.put(offset(previous) + R_STATE, FREE);
+                pushFree(previous);
+            }
+            consumer.accept(
+                new UUID(buf.getLong(off + R_PLAYER), buf.getLong(off + R_PLAYER + 8)),
+                new UUID(blockHi, blockLo).toString(),
+                new Binding(materials.get(materialId), buf.getInt(off + R_USES), buf.getInt(off + R_MAX_USES),
+                    (buf.get(off + R_FLAGS) & 1) != 0));
+        }
+        return broken;
+    }
+
+    /**
+     * 写入或原地修改绑定，只写入变化的字段；方块ID不是 UUID 时无法保存，返回 false
+     */
+    boolean put(UUID player, String blockId, Binding binding) throws IOException {
+        UUID block = parseBlockId(blockId);
+        if (block == null) return false;
+        int materialId = materialId(binding.getMaterial());
+        byte flags = (byte) (binding.isHidden() ? 1 : 0);
+        long blockHi = block.getMostSignificantBits();
+        long blockLo = block.getLeastSignificantBits();
+
+        int slot = index.get(blockHi, blockLo);
+        if (slot >= 0) {
+            MappedByteBuffer buf = buffer;
+            int off = offset(slot);
+            putIntIfChanged(buf, off + R_USES, binding.getUses());
+            putIntIfChanged(buf, off + R_MAX_USES, binding.getMaxUses());
+            putIntIfChanged(buf, off + R_MATERIAL, materialId);
+            if (buf.get(off + R_FLAGS) != flags) {
+                buf.put(off + R_FLAGS, flags);
+            }
+            if (buf.getLong(off + R_PLAYER) != player.getMostSignificantBits()
+                    || buf.getLong(off + R_PLAYER + 8) != player.getLeastSignificantBits()) {
+                buf.putLong(off + R_PLAYER, player.getMostSignificantBits());
+                buf.putLong(off + R_PLAYER + 8, player.getLeastSignificantBits());
+            }
+            return true;
+        }
+
+        slot = allocate();
+        MappedByteBuffer buf = buffer;
+        int off = offset(slot);
+        buf.put(off + R_FLAGS, flags);
+        buf.putInt(off + R_MATERIAL, materialId);
+        buf.putLong(off + R_PLAYER, player.getMostSignificantBits());
+        buf.putLong(off + R_PLAYER + 8, player.getLeastSignificantBits());
+        buf.putLong(off + R_BLOCK, blockHi);
+        buf.putLong(off + R_BLOCK + 8, blockLo);
+        buf.putInt(off + R_USES, binding.getUses());
+        buf.putInt(off + R_MAX_USES, binding.getMaxUses());
+        // 其余字段写完后才标记为使用中
+        buf.put(off + R_STATE, USED);
+        index.put(blockHi, blockLo, slot);
+        return true;
+    }
+
+    void delete(String blockId) {
+        UUID block = parseBlockId(blockId);
+        if (block == null) return;
+        int slot = index.remove(block.getMostSignificantBits(), block.getLeastSignificantBits());
+        if (slot >= 0) {
+            buffer.put(offset(slot) + R_STATE, FREE);
+            pushFree(slot);
+        }
+    }
+
+    int size() {
+        return index.size;
+    }
+
+    /**
+     * 把映射内存中的修改写入磁盘
+     */
+    void force() throws IOException {
+        try {
+            buffer.force();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    void close() throws IOException {
+        force();
+        channel.close();
+    }
+
+    private int allocate() throws IOException {
+        if (freeCount > 0) {
+            return freeSlots[--freeCount];
+        }
+        if (highWater == capacity) {
+            // 扩容时重新映射更大的区域，旧映射在没有引用后由 GC 释放
+            // 映射失败（磁盘已满等）时容量保持不变，下次写入重新尝试扩容
+            int newCapacity = capacity * 2;
+            map(newCapacity);
+            capacity = newCapacity;
+        }
+        int slot = highWater++;
+        buffer.putInt(H_HIGH_WATER, highWater);
+        return slot;
+    }
+
+    private void map(int slots) throws IOException {
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) slots * RECORD_SIZE);
+    }
+
+    private void pushFree(int slot) {
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        }
+        freeSlots[freeCount++] = slot;
+    }
+
+    private int materialId(String name) throws IOException {
+        Integer id = materialIds.get(name);
+        if (id != null) return id;
+        // 新材质很少出现，同步写入，保证引用它的记录落盘前编号已经保存
+        Files.write(materialsFile.toPath(), (name + "\n").getBytes(StandardCharsets.UTF_8),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND, StandardOpenOption.SYNC);
+        id = materials.size();
+        materials.add(name);
+        materialIds.put(name, id);
+        return id;
+    }
+
+    private static void putIntIfChanged(MappedByteBuffer buf, int index, int value) {
+        if (buf.getInt(index) != value) {
+            buf.putInt(index, value);
+        }
+    }
+
+    private static int offset(int slot) {
+        return HEADER_SIZE + slot * RECORD_SIZE;
+    }
+
+    private static UUID parseBlockId(String blockId) {
+        try {
+            return UUID.fromString(blockId);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 方块UUID -> 槽位 的开放寻址表
+     * 线性探测，删除时把后续条目前移，不留墓碑
+     */
+    static final class SlotIndex {
+        private long[] hi = new long[64];
+        private long[] lo = new long[64];
+        // 槽位 + 1，0 表示空
+        private int[] slots = new int[64];
+        private int mask = 63;
+        private int size;
+
+        int get(long h, long l) {
+            for (int i = hash(h, l) & mask; ; i = (i + 1) & mask) {
+                int slot = slots[i];
+                if (slot == 0) return -1;
+                if (hi[i] == h && lo[i] == l) return slot - 1;
+            }
+        }
+
+        /**
+         * 返回原来的槽位，不存在时返回 -1
+         */
+        int put(long h, long l, int slot) {
+            if ((size + 1) * 2 > slots.length) {
+                resize(slots.length * 2);
+            }
+            int i = hash(h, l) & mask;
+            while (slots[i] != 0) {
+                if (hi[i] == h && lo[i] == l) {
+                    int previous = slots[i] - 1;
+                    slots[i] = slot + 1;
+                    return previous;
+                }
+                i = (i + 1) & mask;
+            }
+            hi[i] = h;
+            lo[i] = l;
+            slots[i] = slot + 1;
+            size++;
+            return -1;
+        }
+
+        int remove(long h, long l) {
+            int i = hash(h, l) & mask;
+            while (true) {
+                if (slots[i] == 0) return -1;
+                if (hi[i] == h && lo[i] == l) break;
+                i = (i + 1) & mask;
+            }
+            int removed = slots[i] - 1;
+            int gap = i;
+            for (int j = (gap + 1) & mask; slots[j] != 0; j = (j + 1) & mask) {
+                int home = hash(hi[j], lo[j]) & mask;
+                // j 的理想位置不在 (gap, j] 之间时，前移到空位不会破坏探测链
+                if (((j - home) & mask) >= ((j - gap) & mask)) {
+                    hi[gap] = hi[j];
+                    lo[gap] = lo[j];
+                    slots[gap] = slots[j];
+                    gap = j;
+                }
+            }
+            slots[gap] = 0;
+            size--;
+            return removed;
+        }
+
+        private void resize(int length) {
+            long[] oldHi = hi;
+            long[] oldLo = lo;
+            int[] oldSlots = slots;
+            hi = new long[length];
+            lo = new long[length];
+            slots = new int[length];
+            mask = length - 1;
+            for (int k = 0; k < oldSlots.length; k++) {
+                if (oldSlots[k] == 0) continue;
+                int i = hash(oldHi[k], oldLo[k]) & mask;
+                while (slots[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                hi[i] = oldHi[k];
+                lo[i] = oldLo[k];
+                slots[i] = oldSlots[k];
+            }
+        }
+
+        static int hash(long h, long l) {
+            long x = h ^ l;
+            x ^= x >>> 33;
+            x *= 0xff51afd7ed558ccdL;
+            x ^= x >>> 33;
+            return (int) x;
+        }
+    }
+}
@@ -0,0 +1,332 @@
+package io.github.syferie.magicblock.block;
+
+import io.github.syferie.magicblock.MagicBlockPlugin;
+import io.github.syferie.magicblock.util.BlockKey;
+import io.github.syferie.magicblock.util.PerformanceSettings;
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.block.BlockState;
+import org.bukkit.block.Container;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Item;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * 取回方块时清理旧副本
+ * 第一步只检查 BoundItemTracker 登记的位置；第二步按 tick 分批补扫在线玩家背包
+ * 和所在世界已加载区块中的掉落物与容器，每 tick 受区块数和耗时双重限制；
+ * 关闭补扫时第二步改为一次性同步完成（旧的取回方式）
+ * Folia 上每个玩家/区块的检查提交到其所属的区域线程执行，全部执行完才算结束
+ */
+final class RetrievalCleanup {
+    // 扫描结束后等待区域线程执行检查的最长时间
+    private static final long PENDING_TIMEOUT_MILLIS = 30_000L;
+
+    private final MagicBlockPlugin plugin;
+    private final BoundItemTracker tracker;
+    private final Player owner;
+    // 旧副本判断：同一玩家、同一材质，且不是本次取回发放的新方块
+    private final Predicate<ItemStack> stale;
+    private final boolean folia;
+    private final AtomicInteger removed = new AtomicInteger();
+    // 已提交到区域线程、尚未执行完的检查数
+    private final AtomicInteger pending = new AtomicInteger();
+
+    // 扫描进度，只在计时器线程（purgeAll 时为调用线程）上访问
+    private UUID[] scanPlayers;
+    private int playerIndex;
+    private UUID scanWorld;
+    private long[] scanChunks;
+    private int chunkIndex;
+    private long startedAt;
+    private long waitingSince;
+    private volatile boolean cancelled;
+
+    RetrievalCleanup(MagicBlockPlugin plugin, BoundItemTracker tracker, Player owner, Predicate<ItemStack> stale) {
+        this.plugin = plugin;
+        this.tracker = tracker;
+        this.owner = owner;
+        this.stale = stale;
+        this.folia = plugin.getFoliaLib().isFolia();
+    }
+
+    /**
+     * 清理取回者自己的背包和所有登记的位置，在取回者所在线程调用
+     */
+    void purgeTracked() {
+        purgeInventory(owner);
+        UUID ownerId = owner.getUniqueId();
+        List<BoundItemTracker.TrackedLocation> locations = tracker.getLocations(ownerId);
+        for (BoundItemTracker.TrackedLocation tracked : locations) {
+            switch (tracked.getKind()) {
+                case PLAYER: {
+                    Player holder = Bukkit.getPlayer(tracked.getId());
+                    // 离线玩家保留登记，上线后再取回时检查
+                    if (holder == null) break;
+                    if (!holder.equals(owner)) {
+                        atEntity(holder, () -> purgeInventory(holder));
+                    }
+                    tracker.untrack(ownerId, tracked);
+                    break;
+                }
+                case ITEM: {
+                    Location location = tracked.toLocation();
+                    if (location == null || !isChunkLoaded(location)) break;
+                    atLocation(location, () -> {
+                        // 只在登记时的区块中查找，掉落物移动到别的区块时由补扫处理
+                        for (Entity entity : location.getChunk().getEntities()) {
+                            if (entity.getUniqueId().equals(tracked.getId())) {
+                                purgeItemEntity(entity);
+                                break;
+                            }
+                        }
+                        tracker.untrack(ownerId, tracked);
+                    });
+                    break;
+                }
+                case CONTAINER: {
+                    Location location = tracked.toLocation();
+                    // 不为清理加载区块，未加载的容器保留登记
+                    if (location == null || !isChunkLoaded(location)) break;
+                    atLocation(location, () -> {
+                        BlockState state = location.getBlock().getState();
+                        if (state instanceof Container) {
+                            purgeContainer((Container) state);
+                        }
+                        tracker.untrack(ownerId, tracked);
+                    });
+                    break;
+                }
+                default:
+                    break;
+            }
+        }
+        plugin.debug("取回方块：检查了 " + locations.size() + " 个登记位置");
+    }
+
+    /**
+     * 开始分 tick 补扫未登记的副本；扫描完成且提交的检查全部执行完后调用 onFinish，被取消时也会调用
+     */
+    void startScan(Runnable onFinish) {
+        prepareScan();
+        plugin.getFoliaLib().getScheduler().runTimer(task -> {
+            // 每次重新读取预算，/mb reload 后下一 tick 生效
+            PerformanceSettings settings = plugin.getPerformanceSettings();
+            if (cancelled || scanStep(settings.getRetrievalScanChunksPerTick(), settings.getRetrievalScanNanosPerTick())
+                    && awaitPending()) {
+                task.cancel();
+                finish(onFinish);
+            }
+        }, 1L, 1L);
+    }
+
+    /**
+     * 一次性检查所有在线玩家和已加载区块；非 Folia 上同步完成，Folia 上等待各区域线程执行完后调用 onFinish
+     */
+    void purgeAll(Runnable onFinish) {
+        prepareScan();
+        scanStep(Integer.MAX_VALUE, Long.MAX_VALUE);
+        if (pending.get() == 0) {
+            finish(onFinish);
+            return;
+        }
+        plugin.getFoliaLib().getScheduler().runTimer(task -> {
+            if (cancelled || awaitPending()) {
+                task.cancel();
+                finish(onFinish);
+            }
+        }, 1L, 1L);
+    }
+
+    /**
+     * 同一玩家再次取回同一材质时停止上一次的补扫，已提交但尚未执行的检查也不再执行
+     */
+    void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * 所有检查都已执行完（没有被取消，也没有等待超时）
+     */
+    boolean isCompleted() {
+        return !cancelled;
+    }
+
+    /**
+     * 在取回者所在线程执行，取回者已离线时不执行
+     */
+    void atOwner(Runnable action) {
+        if (owner.isOnline()) {
+            atEntity(owner, action);
+        }
+    }
+
+    private void prepareScan() {
+        startedAt = System.currentTimeMillis();
+        UUID ownerId = owner.getUniqueId();
+        scanPlayers = Bukkit.getOnlinePlayers().stream()
+            .map(Player::getUniqueId)
+            .filter(id -> !id.equals(ownerId))
+            .toArray(UUID[]::new);
+        World world = owner.getWorld();
+        scanWorld = world.getUID();
+        Chunk[] loaded = world.getLoadedChunks();
+        scanChunks = new long[loaded.length];
+        for (int i = 0; i < loaded.length; i++) {
+            scanChunks[i] = BlockKey.chunkKey(loaded[i].getX(), loaded[i].getZ());
+        }
+    }
+
+    /**
+     * 等待提交到区域线程的检查执行完；区域线程长时间不执行（区块卸载等）时放弃等待
+     */
+    private boolean awaitPending() {
+        if (pending.get() == 0) return true;
+        long now = System.currentTimeMillis();
+        if (waitingSince == 0) {
+            waitingSince = now;
+        } else if (now - waitingSince > PENDING_TIMEOUT_MILLIS) {
+            plugin.debug("取回方块清理：" + pending.get() + " 个区域检查超时未执行");
+            cancelled = true;
+            return true;
+        }
+        return false;
+    }
+
+    private void finish(Runnable onFinish) {
+        onFinish.run();
+        if (!cancelled) {
+            plugin.debug("取回方块清理完成：" + scanPlayers.length + " 名玩家, " + scanChunks.length
+                + " 个区块, 清理 " + removed.get() + " 个副本, 用时 " + (System.currentTimeMillis() - startedAt) + "ms");
+        }
+    }
+
+    /**
+     * 推进一段补扫，全部提交时返回 true
+     */
+    private boolean scanStep(int budget, long nanoBudget) {
+        long start = System.nanoTime();
+        int done = 0;
+
+        while (done < budget && System.nanoTime() - start < nanoBudget) {
+            if (playerIndex < scanPlayers.length) {
+                Player holder = Bukkit.getPlayer(scanPlayers[playerIndex++]);
+                if (holder != null) {
+                    atEntity(holder, () -> purgeInventory(holder));
+                }
+                done++;
+                continue;
+            }
+            if (chunkIndex >= scanChunks.length) return true;
+
+            World world = Bukkit.getWorld(scanWorld);
+            if (world == null) return true;
+            long chunkKey = scanChunks[chunkIndex++];
+            int chunkX = BlockKey.chunkX(chunkKey);
+            int chunkZ = BlockKey.chunkZ(chunkKey);
+            done++;
+            if (!world.isChunkLoaded(chunkX, chunkZ)) continue;
+            atLocation(new Location(world, chunkX << 4, 0, chunkZ << 4), () -> {
+                if (world.isChunkLoaded(chunkX, chunkZ)) {
+                    purgeChunk(world.getChunkAt(chunkX, chunkZ));
+                }
+            });
+        }
+        return false;
+    }
+
+    // ---------- 清理（在对应的实体/区域线程上执行） ----------
+
+    private void purgeInventory(Player holder) {
+        Inventory inventory = holder.getInventory();
+        ItemStack[] contents = inventory.getContents();
+        int count = 0;
+        for (int i = 0; i < contents.length; i++) {
+            if (stale.test(contents[i])) {
+                inventory.setItem(i, null);
+                count++;
+            }
+        }
+        if (count > 0) {
+            removed.addAndGet(count);
+            if (!holder.equals(owner)) {
+                plugin.sendMessage(holder, "messages.block-removed-by-owner");
+            }
+        }
+    }
+
+    private void purgeChunk(Chunk chunk) {
+        for (Entity entity : chunk.getEntities()) {
+            purgeItemEntity(entity);
+        }
+        for (BlockState state : chunk.getTileEntities()) {
+            if (state instanceof Container) {
+                purgeContainer((Container) state);
+            }
+        }
+    }
+
+    private void purgeItemEntity(Entity entity) {
+        if (entity instanceof Item && stale.test(((Item) entity).getItemStack())) {
+            entity.remove();
+            removed.incrementAndGet();
+        }
+    }
+
+    private void purgeContainer(Container container) {
+        Inventory inventory = container.getInventory();
+        ItemStack[] contents = inventory.getContents();
+        boolean updated = false;
+        for (int i = 0; i < contents.length; i++) {
+            if (stale.test(contents[i])) {
+                inventory.setItem(i, null);
+                removed.incrementAndGet();
+                updated = true;
+            }
+        }
+        if (updated) {
+            container.update();
+        }
+    }
+
+    private void atEntity(Player holder, Runnable action) {
+        if (folia) {
+            pending.incrementAndGet();
+            plugin.getFoliaLib().getScheduler().runAtEntity(holder, task -> runPending(action));
+        } else {
+            action.run();
+        }
+    }
+
+    private void atLocation(Location location, Runnable action) {
+        if (folia) {
+            pending.incrementAndGet();
+            plugin.getFoliaLib().getScheduler().runAtLocation(location, task -> runPending(action));
+        } else {
+            action.run();
+        }
+    }
+
+    private void runPending(Runnable action) {
+        try {
+            if (!cancelled) {
+                action.run();
+            }
+        } finally {
+            pending.decrementAndGet();
+        }
+    }
+
+    private static boolean isChunkLoaded(Location location) {
+        return location.getWorld().isChunkLoaded(location.getBlockX() >> 4, location.getBlockZ() >> 4);
+    }
+}
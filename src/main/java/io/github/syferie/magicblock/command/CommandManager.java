@@ -335,7 +335,7 @@ public class CommandManager implements CommandExecutor {
         }
 
         ItemStack item = player.getInventory().getItemInMainHand();
-        if (!plugin.hasMagicLore(item.getItemMeta())) {
+        if (!plugin.getBlockManager().isMagicBlockMeta(item.getItemMeta())) {
             plugin.sendMessage(player, "commands.settimes.must-hold");
             return;
         }
@@ -3,6 +3,7 @@ package io.github.syferie.magicblock.food;
 import io.github.syferie.magicblock.MagicBlockPlugin;
 import io.github.syferie.magicblock.api.IMagicFood;
 import io.github.syferie.magicblock.util.Constants;
+import io.github.syferie.magicblock.util.ProgressBars;
 
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
@@ -35,12 +36,14 @@ public class FoodManager implements Listener, IMagicFood {
     private final MagicBlockPlugin plugin;
     private final NamespacedKey useTimesKey;
     private final NamespacedKey maxTimesKey;
+    private final NamespacedKey markerKey;
     private final Map<UUID, Integer> foodUses = new HashMap<>();
 
     public FoodManager(MagicBlockPlugin plugin) {
         this.plugin = plugin;
         this.useTimesKey = new NamespacedKey(plugin, Constants.FOOD_TIMES_KEY);
         this.maxTimesKey = new NamespacedKey(plugin, "magicfood_maxtimes");
+        this.markerKey = new NamespacedKey(plugin, Constants.FOOD_MARKER_KEY);
     }
 
     @Override
@@ -87,6 +90,7 @@ public class FoodManager implements Listener, IMagicFood {
         }
 
         meta.setLore(lore);
+        meta.getPersistentDataContainer().set(markerKey, PersistentDataType.BYTE, Constants.MARKER_VALUE);
         item.setItemMeta(meta);
 
         return item;
@@ -103,6 +107,7 @@ public class FoodManager implements Listener, IMagicFood {
         } else {
             meta.getPersistentDataContainer().set(useTimesKey, PersistentDataType.INTEGER, times);
         }
+        meta.getPersistentDataContainer().set(markerKey, PersistentDataType.BYTE, Constants.MARKER_VALUE);
 
         item.setItemMeta(meta);
     }
@@ -205,22 +210,7 @@ public class FoodManager implements Listener, IMagicFood {
 
         // 添加进度条
         if (!isInfinite && plugin.getFoodConfig().getBoolean("display.show-info.progress-bar", true)) {
-            StringBuilder progressBar = new StringBuilder();
-            progressBar.append(ChatColor.GRAY).append("[");
-
-            int barLength = 10;
-            double progress = (double) times / maxTimes;
-            int filledBars = (int) Math.round(progress * barLength);
-
-            for (int i = 0; i < barLength; i++) {
-                if (i < filledBars) {
-                    progressBar.append(ChatColor.GREEN).append("■");
-                } else {
-                    progressBar.append(ChatColor.GRAY).append("■");
-                }
-            }
-            progressBar.append(ChatColor.GRAY).append("]");
-            lore.add(progressBar.toString());
+            lore.add(ProgressBars.lore(times, maxTimes));
         }
 
         meta.setLore(lore);
@@ -356,12 +346,14 @@ public class FoodManager implements Listener, IMagicFood {
 
     @Override
     public boolean isMagicFood(ItemStack item) {
-        if (item != null && item.hasItemMeta()) {
-            ItemMeta meta = item.getItemMeta();
-            String specialLore = plugin.getFoodConfig().getString("special-lore", "§7MagicFood");
-            return meta.hasLore() && meta.getLore().contains(specialLore);
-        }
-        return false;
+        if (item == null || !item.hasItemMeta()) return false;
+        ItemMeta meta = item.getItemMeta();
+        if (meta == null) return false;
+        if (meta.getPersistentDataContainer().has(markerKey, PersistentDataType.BYTE)) return true;
+
+        // 兼容旧物品：回退到 Lore 匹配；只读检查，PDC 标记在食用后 setUseTimes 写回物品时补上
+        String specialLore = plugin.getFoodConfig().getString("special-lore", "§7MagicFood");
+        return meta.hasLore() && meta.getLore().contains(specialLore);
     }
 
     public int getFoodUses(UUID playerUUID) {
@@ -266,7 +266,7 @@ public class BlockSelectionGUI {
 
             // 替换方块（左键）
             ItemStack originalItem = originalItems.get(playerId);
-            if (originalItem != null && plugin.hasMagicLore(originalItem.getItemMeta())) {
+            if (originalItem != null && plugin.getBlockManager().isMagicBlockMeta(originalItem.getItemMeta())) {
                 ItemStack newItem = originalItem.clone();
                 newItem.setType(clickedItem.getType());
                 
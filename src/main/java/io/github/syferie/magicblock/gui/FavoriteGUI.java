@@ -259,7 +259,7 @@ public class FavoriteGUI {
         UUID playerId = player.getUniqueId();
         ItemStack originalItem = originalItems.get(playerId);
         
-        if (originalItem != null && plugin.hasMagicLore(originalItem.getItemMeta())) {
+        if (originalItem != null && plugin.getBlockManager().isMagicBlockMeta(originalItem.getItemMeta())) {
             ItemStack newItem = originalItem.clone();
             newItem.setType(material);
             
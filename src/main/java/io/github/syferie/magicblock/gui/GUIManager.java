@@ -66,7 +66,7 @@ public class GUIManager implements Listener {
 
     public void openBlockSelectionGUI(Player player) {
         ItemStack heldItem = player.getInventory().getItemInMainHand();
-        if (!plugin.hasMagicLore(heldItem.getItemMeta())) {
+        if (!plugin.getBlockManager().isMagicBlockMeta(heldItem.getItemMeta())) {
             plugin.sendMessage(player, "messages.must-hold-magic-block");
             return;
         }
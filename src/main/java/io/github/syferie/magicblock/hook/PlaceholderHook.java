@@ -1,14 +1,36 @@
 package io.github.syferie.magicblock.hook;
 
 import io.github.syferie.magicblock.MagicBlockPlugin;
+import io.github.syferie.magicblock.block.BlockManager;
+import io.github.syferie.magicblock.block.MagicItemView;
+import io.github.syferie.magicblock.util.ProgressBars;
 import me.clip.placeholderapi.expansion.PlaceholderExpansion;
 import org.bukkit.OfflinePlayer;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.player.PlayerDropItemEvent;
+import org.bukkit.event.player.PlayerItemConsumeEvent;
+import org.bukkit.event.player.PlayerItemHeldEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.player.PlayerSwapHandItemsEvent;
 import org.bukkit.inventory.ItemStack;
 import org.jetbrains.annotations.NotNull;
 
-public class PlaceholderHook extends PlaceholderExpansion {
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class PlaceholderHook extends PlaceholderExpansion implements Listener {
+    // 快照有效期：一个 tick
+    private static final long SNAPSHOT_TTL_NANOS = 50_000_000L;
 
     private final MagicBlockPlugin plugin;
+    private final Map<UUID, HeldItemSnapshot> snapshots = new ConcurrentHashMap<>();
 
     public PlaceholderHook(MagicBlockPlugin plugin) {
         this.plugin = plugin;
@@ -38,133 +60,69 @@ public class PlaceholderHook extends PlaceholderExpansion {
     public String onRequest(OfflinePlayer player, @NotNull String params) {
         if (player == null) return "";
 
-        // 获取玩家使用魔法方块的总次数
-        if (params.equalsIgnoreCase("block_uses")) {
-            return String.valueOf(plugin.getPlayerUsage(player.getUniqueId()));
-        }
-
-        // 获取玩家使用魔法食物的总次数
-        if (params.equalsIgnoreCase("food_uses")) {
-            if (plugin.getMagicFood() != null) {
-                return String.valueOf(plugin.getMagicFood().getFoodUses(player.getUniqueId()));
-            }
-            return "0";
-        }
-
-        // 获取玩家剩余的魔法方块使用次数
-        if (params.equalsIgnoreCase("remaining_uses")) {
-            if (player.isOnline() && player.getPlayer() != null) {
-                ItemStack item = player.getPlayer().getInventory().getItemInMainHand();
-                if (plugin.getBlockManager().getUseTimes(item) > 0) {
-                    return String.valueOf(plugin.getBlockManager().getUseTimes(item));
+        // 常见情况下参数已是小写，toLowerCase 直接返回原字符串
+        String key = params.toLowerCase(Locale.ROOT);
+        switch (key) {
+            // 获取玩家使用魔法方块的总次数
+            case "block_uses":
+                return String.valueOf(plugin.getPlayerUsage(player.getUniqueId()));
+
+            // 获取玩家使用魔法食物的总次数
+            case "food_uses":
+                if (plugin.getMagicFood() != null) {
+                    return String.valueOf(plugin.getMagicFood().getFoodUses(player.getUniqueId()));
                 }
-            }
-            return "0";
-        }
+                return "0";
 
-        // 获取玩家是否持有魔法方块
-        if (params.equalsIgnoreCase("has_block")) {
-            if (player.isOnline() && player.getPlayer() != null) {
-                ItemStack item = player.getPlayer().getInventory().getItemInMainHand();
-                return String.valueOf(plugin.getBlockManager().isMagicBlock(item));
-            }
-            return "false";
-        }
+            // 获取玩家剩余的魔法方块使用次数
+            case "remaining_uses":
+                return snapshot(player).remainingUses;
 
-        // 获取玩家是否持有魔法食物
-        if (params.equalsIgnoreCase("has_food")) {
-            if (player.isOnline() && player.getPlayer() != null && plugin.getMagicFood() != null) {
-                ItemStack item = player.getPlayer().getInventory().getItemInMainHand();
-                return String.valueOf(plugin.getMagicFood().isMagicFood(item));
-            }
-            return "false";
-        }
+            // 获取玩家是否持有魔法方块
+            case "has_block":
+                return snapshot(player).hasBlock;
 
-        // 获取玩家魔法方块的最大使用次数
-        if (params.equalsIgnoreCase("max_uses")) {
-            if (player.isOnline() && player.getPlayer() != null) {
-                ItemStack item = player.getPlayer().getInventory().getItemInMainHand();
-                if (plugin.getBlockManager().isMagicBlock(item)) {
-                    return String.valueOf(plugin.getBlockManager().getMaxUseTimes(item));
-                }
-            }
-            return "0";
-        }
+            // 获取玩家是否持有魔法食物
+            case "has_food":
+                return snapshot(player).hasFood;
 
-        // 获取玩家魔法方块的使用进度(百分比)
-        if (params.equalsIgnoreCase("uses_progress")) {
-            if (player.isOnline() && player.getPlayer() != null) {
-                ItemStack item = player.getPlayer().getInventory().getItemInMainHand();
-                if (plugin.getBlockManager().isMagicBlock(item)) {
-                    int maxUses = plugin.getBlockManager().getMaxUseTimes(item);
-                    int remainingUses = plugin.getBlockManager().getUseTimes(item);
-                    if (maxUses > 0) {
-                        double progress = ((double)(maxUses - remainingUses) / maxUses) * 100;
-                        return String.format("%.1f", progress);
-                    }
-                }
-            }
-            return "0.0";
-        }
+            // 获取玩家魔法方块的最大使用次数
+            case "max_uses":
+                return snapshot(player).maxUses;
 
-        // 获取玩家魔法方块的进度条
-        if (params.equalsIgnoreCase("progress_bar") || params.equalsIgnoreCase("progressbar")) {
-            if (player.isOnline() && player.getPlayer() != null) {
-                ItemStack item = player.getPlayer().getInventory().getItemInMainHand();
-                if (plugin.getBlockManager().isMagicBlock(item)) {
-                    int maxUses = plugin.getBlockManager().getMaxUseTimes(item);
-                    int remainingUses = plugin.getBlockManager().getUseTimes(item);
+            // 获取玩家魔法方块的使用进度(百分比)
+            case "uses_progress":
+                return snapshot(player).usesProgress;
 
-                    // 检查是否是无限次数
-                    if (maxUses == Integer.MAX_VALUE - 100) {
-                        return "&a∞"; // 无限符号
-                    }
+            // 获取玩家魔法方块的进度条
+            case "progress_bar":
+            case "progressbar":
+                return snapshot(player).progressBar;
 
-                    if (maxUses > 0) {
-                        // 使用插件的进度条生成方法
-                        return plugin.getProgressBar(remainingUses, maxUses);
-                    }
-                }
-            }
-            return "&7无进度条"; // 默认返回空进度条
+            default:
+                break;
         }
 
         // 获取自定义长度的进度条
-        if (params.startsWith("progress_bar_") || params.startsWith("progressbar_")) {
+        if (key.startsWith("progress_bar_") || key.startsWith("progressbar_")) {
             try {
                 // 从参数中提取进度条长度
-                int barLength = Integer.parseInt(params.substring(params.lastIndexOf('_') + 1));
+                int barLength = Integer.parseInt(key.substring(key.lastIndexOf('_') + 1));
                 if (barLength <= 0) barLength = 10; // 默认长度
 
-                if (player.isOnline() && player.getPlayer() != null) {
-                    ItemStack item = player.getPlayer().getInventory().getItemInMainHand();
-                    if (plugin.getBlockManager().isMagicBlock(item)) {
-                        int maxUses = plugin.getBlockManager().getMaxUseTimes(item);
-                        int remainingUses = plugin.getBlockManager().getUseTimes(item);
-
-                        // 检查是否是无限次数
-                        if (maxUses == Integer.MAX_VALUE - 100) {
-                            return "&a∞"; // 无限符号
-                        }
-
-                        if (maxUses > 0) {
-                            // 生成自定义长度的进度条
-                            double usedPercentage = (double) remainingUses / maxUses;
-                            int filledBars = (int) Math.round(usedPercentage * barLength);
-
-                            StringBuilder progressBar = new StringBuilder("&a");
-                            for (int i = 0; i < barLength; i++) {
-                                if (i < filledBars) {
-                                    progressBar.append("■"); // 实心方块
-                                } else {
-                                    progressBar.append("□"); // 空心方块
-                                }
-                            }
-                            return progressBar.toString();
-                        }
+                HeldItemSnapshot snapshot = snapshot(player);
+                if (snapshot.magicBlock) {
+                    // 检查是否是无限次数
+                    if (snapshot.max == BlockManager.INFINITE_USE_TIMES) {
+                        return "&a∞"; // 无限符号
+                    }
+
+                    if (snapshot.max > 0) {
+                        // 自定义长度的进度条（预计算表）
+                        return ProgressBars.custom(snapshot.remaining, snapshot.max, barLength);
                     }
                 }
-                return "&7" + "□".repeat(barLength); // 默认返回空进度条
+                return ProgressBars.emptyCustom(barLength); // 默认返回空进度条
             } catch (NumberFormatException e) {
                 return "&c无效的进度条长度";
             }
@@ -172,4 +130,126 @@ public class PlaceholderHook extends PlaceholderExpansion {
 
         return null;
     }
-}
\ No newline at end of file
+
+    /**
+     * 获取玩家手持物品的快照，同一 tick 内的多个变量共用一次物品读取
+     */
+    private HeldItemSnapshot snapshot(OfflinePlayer offlinePlayer) {
+        Player player = offlinePlayer.getPlayer();
+        if (player == null) return HeldItemSnapshot.EMPTY;
+
+        long now = System.nanoTime();
+        HeldItemSnapshot snapshot = snapshots.get(player.getUniqueId());
+        if (snapshot != null && now - snapshot.createdAt < SNAPSHOT_TTL_NANOS) {
+            return snapshot;
+        }
+
+        snapshot = HeldItemSnapshot.create(plugin, player.getInventory().getItemInMainHand(), now);
+        snapshots.put(player.getUniqueId(), snapshot);
+        return snapshot;
+    }
+
+    private void invalidate(Player player) {
+        snapshots.remove(player.getUniqueId());
+    }
+
+    // 手持物品可能变化的事件：立即作废快照，避免显示上一件物品的数据
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onItemHeld(PlayerItemHeldEvent event) {
+        invalidate(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onSwapHand(PlayerSwapHandItemsEvent event) {
+        invalidate(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onDropItem(PlayerDropItemEvent event) {
+        invalidate(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onBlockPlace(BlockPlaceEvent event) {
+        invalidate(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onConsume(PlayerItemConsumeEvent event) {
+        invalidate(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onInventoryClick(InventoryClickEvent event) {
+        if (event.getWhoClicked() instanceof Player) {
+            invalidate((Player) event.getWhoClicked());
+        }
+    }
+
+    @EventHandler
+    public void onQuit(PlayerQuitEvent event) {
+        invalidate(event.getPlayer());
+    }
+
+    /**
+     * 玩家手持物品的不可变快照，所有变量的返回字符串在创建时一次算好
+     */
+    private static final class HeldItemSnapshot {
+        static final HeldItemSnapshot EMPTY = new HeldItemSnapshot(false, false, 0, 0, Long.MIN_VALUE);
+
+        final boolean magicBlock;
+        final int remaining;
+        final int max;
+        final long createdAt;
+
+        final String remainingUses;
+        final String hasBlock;
+        final String hasFood;
+        final String maxUses;
+        final String usesProgress;
+        final String progressBar;
+
+        private HeldItemSnapshot(boolean magicBlock, boolean magicFood, int remaining, int max, long createdAt) {
+            this.magicBlock = magicBlock;
+            this.remaining = remaining;
+            this.max = max;
+            this.createdAt = createdAt;
+
+            this.remainingUses = remaining > 0 ? String.valueOf(remaining) : "0";
+            this.hasBlock = String.valueOf(magicBlock);
+            this.hasFood = String.valueOf(magicFood);
+            this.maxUses = magicBlock ? String.valueOf(max) : "0";
+
+            if (magicBlock && max > 0) {
+                double progress = ((double) (max - remaining) / max) * 100;
+                this.usesProgress = String.format("%.1f", progress);
+            } else {
+                this.usesProgress = "0.0";
+            }
+
+            if (!magicBlock) {
+                this.progressBar = "&7无进度条"; // 默认返回空进度条
+            } else if (max == BlockManager.INFINITE_USE_TIMES) {
+                this.progressBar = "&a∞"; // 无限符号
+            } else if (max > 0) {
+                this.progressBar = ProgressBars.placeholder(remaining, max);
+            } else {
+                this.progressBar = "&7无进度条";
+            }
+        }
+
+        static HeldItemSnapshot create(MagicBlockPlugin plugin, ItemStack item, long now) {
+            if (item == null || !item.hasItemMeta()) {
+                return new HeldItemSnapshot(false, false, 0, 0, now);
+            }
+
+            // 只读取一次物品元数据；默认最大次数不在这里写回物品
+            MagicItemView view = plugin.getBlockManager().view(item);
+            if (view == null) {
+                return new HeldItemSnapshot(false, false, 0, 0, now);
+            }
+            boolean magicFood = plugin.getMagicFood() != null && plugin.getMagicFood().isMagicFood(item);
+            return new HeldItemSnapshot(view.isMagic(), magicFood, view.getUseTimes(), view.getMaxTimes(), now);
+        }
+    }
+}
@@ -3,7 +3,10 @@ package io.github.syferie.magicblock.listener;
 import com.tcoded.folialib.FoliaLib;
 
 import io.github.syferie.magicblock.MagicBlockPlugin;
+import io.github.syferie.magicblock.block.MagicItemView;
 import io.github.syferie.magicblock.gui.GUIManager;
+import io.github.syferie.magicblock.util.MaterialTables;
+import io.github.syferie.magicblock.util.PerformanceSettings;
 
 import org.bukkit.*;
 import org.bukkit.block.Block;
@@ -30,9 +33,11 @@ import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
 import org.bukkit.persistence.PersistentDataType;
 import org.bukkit.NamespacedKey;
+import org.bukkit.util.BoundingBox;
 
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class BlockListener implements Listener {
     private final MagicBlockPlugin plugin;
@@ -40,54 +45,20 @@ public class BlockListener implements Listener {
     private final List<Material> buildingMaterials;
 
     private static final long GUI_OPEN_COOLDOWN = 300;
+    // 爆炸后清理掉落物时只检查这个存活时间（tick）以内的物品实体，即爆炸当时生成的掉落物
+    private static final int EXPLOSION_DROP_MAX_AGE = 2;
+    // 掉落物检查范围在受影响魔法方块包围盒基础上向外扩展的距离
+    private static final double EXPLOSION_DROP_MARGIN = 1.5;
     private final Map<UUID, Long> lastGuiOpenTime = new HashMap<>();
     private final FoliaLib foliaLib;
 
+    // 本次爆炸中受保护的魔法方块，由 HIGHEST 阶段记录、MONITOR 阶段取出（Folia 下各区域线程并发访问）
+    private final Map<EntityExplodeEvent, List<Block>> explodedMagicBlocks = new ConcurrentHashMap<>();
+
     // 性能优化：位置缓存
     private final Map<String, Set<String>> chunkLocationCache = new HashMap<>();
     private final Map<String, Long> chunkCacheTime = new HashMap<>();
 
-    // 性能优化：红石组件缓存
-    private static final Set<Material> REDSTONE_COMPONENTS = new HashSet<>();
-
-    static {
-        // 预填充红石组件集合，避免每次字符串比较
-        REDSTONE_COMPONENTS.add(Material.LEVER);
-        REDSTONE_COMPONENTS.add(Material.REDSTONE_WIRE);
-        REDSTONE_COMPONENTS.add(Material.REPEATER);
-        REDSTONE_COMPONENTS.add(Material.COMPARATOR);
-        REDSTONE_COMPONENTS.add(Material.REDSTONE_TORCH);
-        REDSTONE_COMPONENTS.add(Material.REDSTONE_WALL_TORCH);
-        REDSTONE_COMPONENTS.add(Material.POWERED_RAIL);
-        REDSTONE_COMPONENTS.add(Material.DETECTOR_RAIL);
-        REDSTONE_COMPONENTS.add(Material.ACTIVATOR_RAIL);
-        REDSTONE_COMPONENTS.add(Material.REDSTONE_LAMP);
-        REDSTONE_COMPONENTS.add(Material.DISPENSER);
-        REDSTONE_COMPONENTS.add(Material.DROPPER);
-        REDSTONE_COMPONENTS.add(Material.HOPPER);
-        REDSTONE_COMPONENTS.add(Material.OBSERVER);
-        REDSTONE_COMPONENTS.add(Material.PISTON);
-        REDSTONE_COMPONENTS.add(Material.STICKY_PISTON);
-        REDSTONE_COMPONENTS.add(Material.DAYLIGHT_DETECTOR);
-        REDSTONE_COMPONENTS.add(Material.TARGET);
-        REDSTONE_COMPONENTS.add(Material.TRIPWIRE);
-        REDSTONE_COMPONENTS.add(Material.TRIPWIRE_HOOK);
-        REDSTONE_COMPONENTS.add(Material.NOTE_BLOCK);
-        REDSTONE_COMPONENTS.add(Material.BELL);
-
-        // 添加压力板
-        for (Material material : Material.values()) {
-            String name = material.name();
-            if (name.endsWith("_PRESSURE_PLATE") ||
-                name.endsWith("_BUTTON") ||
-                name.contains("DOOR") ||
-                name.contains("TRAPDOOR") ||
-                name.contains("GATE")) {
-                REDSTONE_COMPONENTS.add(material);
-            }
-        }
-    }
-
     public BlockListener(MagicBlockPlugin plugin, List<Material> allowedMaterials) {
         this.plugin = plugin;
         this.guiManager = new GUIManager(plugin, allowedMaterials);
@@ -102,7 +73,7 @@ public class BlockListener implements Listener {
 
     private void startCacheCleanupTask() {
         // 从配置读取清理间隔
-        long cleanupInterval = plugin.getConfig().getLong("performance.location-cache.cleanup-interval", 30);
+        long cleanupInterval = plugin.getPerformanceSettings().getLocationCacheCleanupInterval();
         long cleanupTicks = cleanupInterval * 20L; // 转换为 ticks
 
         foliaLib.getScheduler().runTimer(() -> {
@@ -112,15 +83,15 @@ public class BlockListener implements Listener {
 
     private void cleanExpiredCache() {
         // 检查是否启用缓存
-        boolean cacheEnabled = plugin.getConfig().getBoolean("performance.location-cache.enabled", true);
-        if (!cacheEnabled) {
+        PerformanceSettings settings = plugin.getPerformanceSettings();
+        if (!settings.isLocationCacheEnabled()) {
             // 如果缓存被禁用，清空所有缓存
             chunkLocationCache.clear();
             chunkCacheTime.clear();
             return;
         }
 
-        long cacheDuration = plugin.getConfig().getLong("performance.location-cache.duration", 5000);
+        long cacheDuration = settings.getLocationCacheDuration();
         long currentTime = System.currentTimeMillis();
 
         chunkCacheTime.entrySet().removeIf(entry -> {
@@ -153,11 +124,7 @@ public class BlockListener implements Listener {
 
 
     private boolean isConnectableBlock(Material material) {
-        return material.toString().contains("WALL") ||
-               material.toString().contains("FENCE") ||
-               material.toString().contains("PANE") ||
-               material.toString().contains("CHAIN") ||
-               material == Material.IRON_BARS;
+        return MaterialTables.isConnectable(material);
     }
 
     private void updateConnectedBlocks(Block block) {
@@ -238,7 +205,7 @@ public class BlockListener implements Listener {
                 face == BlockFace.EAST || face == BlockFace.WEST) {
                 Block adjacent = fence.getRelative(face);
                 fenceData.setFace(face, adjacent.getType() == fence.getType() ||
-                                     adjacent.getType().toString().contains("FENCE_GATE"));
+                                     MaterialTables.isFenceGate(adjacent.getType()));
             }
         }
         fence.setBlockData(fenceData, true);
@@ -252,7 +219,7 @@ public class BlockListener implements Listener {
                         face == BlockFace.EAST || face == BlockFace.WEST) {
                         Block relative = adjacent.getRelative(face);
                         adjacentFenceData.setFace(face, relative.getType() == adjacent.getType() ||
-                                                     relative.getType().toString().contains("FENCE_GATE"));
+                                                     MaterialTables.isFenceGate(relative.getType()));
                     }
                 }
                 adjacent.setBlockData(adjacentFenceData, true);
@@ -297,7 +264,7 @@ public class BlockListener implements Listener {
         }
 
         ItemStack item = event.getItemInHand();
-        if (plugin.hasMagicLore(item.getItemMeta())) {
+        if (plugin.getBlockManager().isMagicBlockMeta(item.getItemMeta())) {
             handleMagicBlockPlace(event, item);
         }
     }
@@ -305,7 +272,7 @@ public class BlockListener implements Listener {
     @EventHandler
     public void onBlockMultiPlace(org.bukkit.event.block.BlockMultiPlaceEvent event) {
         ItemStack item = event.getItemInHand();
-        if (plugin.hasMagicLore(item.getItemMeta())) {
+        if (plugin.getBlockManager().isMagicBlockMeta(item.getItemMeta())) {
             handleMagicBlockPlace(event, item);
         }
     }
@@ -321,8 +288,12 @@ public class BlockListener implements Listener {
             return;
         }
 
+        // 一次读取物品元数据，绑定和扣减次数都在同一个视图上完成
+        MagicItemView view = plugin.getBlockManager().view(item);
+        if (view == null) return;
+
         // 检查使用次数
-        int useTimes = plugin.getBlockManager().getUseTimes(item);
+        int useTimes = view.getUseTimes();
         if (useTimes <= 0) {
             event.setCancelled(true);
             // 直接发送消息，不使用参数
@@ -334,7 +305,7 @@ public class BlockListener implements Listener {
             plugin.getBlockBindManager().handleDepleted(item);
 
             // 如果配置为移除耗尽的方块
-            if (plugin.getConfig().getBoolean("remove-depleted-blocks", false)) {
+            if (plugin.getGameplaySettings().isRemoveDepletedBlocks()) {
                 // 从玩家手中移除物品
                 player.getInventory().setItemInMainHand(null);
             }
@@ -342,16 +313,16 @@ public class BlockListener implements Listener {
         }
 
         // 检查绑定系统是否启用
-        boolean bindingEnabled = plugin.getConfig().getBoolean("enable-binding-system", true);
+        boolean bindingEnabled = plugin.getGameplaySettings().isBindingEnabled();
 
         // 检查是否已绑定
-        UUID boundPlayer = plugin.getBlockBindManager().getBoundPlayer(item);
+        UUID boundPlayer = view.getBoundPlayer();
         if (bindingEnabled && boundPlayer == null) {
             // 第一次使用时自动绑定
-            plugin.getBlockBindManager().bindBlock(player, item);
+            plugin.getBlockBindManager().bindBlock(player, view);
         } else if (boundPlayer != null && !boundPlayer.equals(player.getUniqueId())) {
             // 检查是否允许使用已绑定的方块
-            if (!plugin.getConfig().getBoolean("allow-use-bound-blocks", false)) {
+            if (!plugin.getGameplaySettings().isAllowUseBoundBlocks()) {
                 event.setCancelled(true);
                 plugin.sendMessage(player, "messages.not-bound-to-you");
                 return;
@@ -373,8 +344,9 @@ public class BlockListener implements Listener {
 
         // 减少使用次数
         if (useTimes > 0) { // -1表示无限使用
-            plugin.getBlockManager().decrementUseTimes(item);
+            plugin.getBlockManager().decrementUseTimes(view);
         }
+        view.apply();
 
         // 记录使用统计
         plugin.incrementPlayerUsage(player.getUniqueId());
@@ -417,7 +389,7 @@ public class BlockListener implements Listener {
         Location blockLocation = eventBlock.getLocation();
 
         // 🚀 性能优化：使用新的索引系统进行 O(1) 查找
-        boolean isMagicBlock = plugin.getIndexManager().isMagicBlock(blockLocation);
+        boolean isMagicBlock = plugin.getIndexManager().isMagicBlock(eventBlock);
         Block targetBlock = eventBlock;
 
         // 检查是否是连接型方块
@@ -461,7 +433,7 @@ public class BlockListener implements Listener {
             ItemStack blockItem = new ItemStack(targetBlock.getType());
 
             // 检查绑定系统是否启用
-            boolean bindingEnabled = plugin.getConfig().getBoolean("enable-binding-system", true);
+            boolean bindingEnabled = plugin.getGameplaySettings().isBindingEnabled();
 
             // 检查绑定状态
             if (bindingEnabled && plugin.getBlockBindManager().isBlockBound(blockItem)) {
@@ -498,28 +470,25 @@ public class BlockListener implements Listener {
         plugin.getPerformanceMonitor().recordPhysicsEvent();
 
         Block block = event.getBlock();
-        Location location = block.getLocation();
         Material type = block.getType();
 
-        // 🚀 性能优化：多层过滤机制
+        // 🚀 性能优化：多层过滤机制（全程使用方块坐标，不创建 Location）
 
         // 第一层：世界级别过滤
-        if (!plugin.getIndexManager().worldHasMagicBlocks(location.getWorld().getName())) {
+        if (!plugin.getIndexManager().worldHasMagicBlocks(block.getWorld())) {
             plugin.getPerformanceMonitor().recordPhysicsEventSkipped();
             return; // 这个世界没有魔法方块，直接跳过
         }
 
         // 第二层：区块级别过滤
-        if (!plugin.getIndexManager().chunkHasMagicBlocks(location)) {
+        if (!plugin.getIndexManager().chunkHasMagicBlocks(block)) {
             plugin.getPerformanceMonitor().recordPhysicsEventSkipped();
             return; // 这个区块没有魔法方块，直接跳过
         }
 
         // 第三层：方块类型过滤
-        boolean physicsOptimizationEnabled = plugin.getConfig().getBoolean("performance.physics-optimization.enabled", true);
-        boolean skipUnaffectedBlocks = plugin.getConfig().getBoolean("performance.physics-optimization.skip-unaffected-blocks", true);
-
-        if (physicsOptimizationEnabled && skipUnaffectedBlocks) {
+        PerformanceSettings settings = plugin.getPerformanceSettings();
+        if (settings.isPhysicsOptimizationEnabled() && settings.isSkipUnaffectedBlocks()) {
             if (!isPhysicsAffectedBlock(type)) {
                 plugin.getPerformanceMonitor().recordPhysicsEventSkipped();
                 return; // 不是受物理影响的方块类型，跳过
@@ -527,7 +496,7 @@ public class BlockListener implements Listener {
         }
 
         // 第四层：精确位置检查（O(1) 查找）
-        if (plugin.getIndexManager().isMagicBlock(location)) {
+        if (plugin.getIndexManager().isMagicBlock(block)) {
             // 允许红石组件的状态改变，但阻止它们被破坏
             if (isRedstoneComponent(type)) {
                 // 如果是由于方块更新引起的状态改变，允许它
@@ -545,45 +514,18 @@ public class BlockListener implements Listener {
         }
     }
 
-    // 性能优化：预检查是否为可能受物理影响的方块
+    // 性能优化：预检查是否为可能受物理影响的方块（启动时预计算的分类表）
     private boolean isPhysicsAffectedBlock(Material type) {
-        // 只检查可能受物理影响的方块类型
-        return type.hasGravity() ||
-               isRedstoneComponent(type) ||
-               type == Material.WATER ||
-               type == Material.LAVA ||
-               type.name().contains("DOOR") ||
-               type.name().contains("TRAPDOOR") ||
-               type.name().contains("GATE") ||
-               type.name().contains("FENCE") ||
-               type.name().contains("WALL") ||
-               type.name().contains("PANE");
+        return MaterialTables.isPhysicsAffected(type);
     }
 
     // 性能优化：预定义允许状态改变的红石组件
     private boolean isRedstoneStateChangeAllowed(Material type) {
-        return type == Material.POWERED_RAIL ||
-               type == Material.DETECTOR_RAIL ||
-               type == Material.ACTIVATOR_RAIL ||
-               type == Material.REDSTONE_LAMP ||
-               type == Material.DISPENSER ||
-               type == Material.DROPPER ||
-               type == Material.HOPPER ||
-               type == Material.PISTON ||
-               type == Material.STICKY_PISTON ||
-               type == Material.OBSERVER ||
-               type == Material.NOTE_BLOCK ||
-               type == Material.DAYLIGHT_DETECTOR ||
-               type.name().contains("DOOR") ||
-               type.name().contains("TRAPDOOR") ||
-               type.name().contains("GATE");
+        return MaterialTables.isRedstoneStateChangeAllowed(type);
     }
 
-
-
     private boolean isRedstoneComponent(Material material) {
-        // 使用预填充的 HashSet 进行 O(1) 查找，避免字符串比较
-        return REDSTONE_COMPONENTS.contains(material);
+        return MaterialTables.isRedstoneComponent(material);
     }
 
     @EventHandler
@@ -597,10 +539,8 @@ public class BlockListener implements Listener {
 
         // 只处理右键交互
         if (clickedBlock != null && event.getAction() == Action.RIGHT_CLICK_BLOCK) {
-            Location clickedLocation = clickedBlock.getLocation();
-
             // 🚀 性能优化：使用新的索引系统进行 O(1) 查找
-            boolean isMagicBlock = plugin.getIndexManager().isMagicBlock(clickedLocation);
+            boolean isMagicBlock = plugin.getIndexManager().isMagicBlock(clickedBlock);
             Block targetBlock = clickedBlock;
 
 
@@ -626,7 +566,7 @@ public class BlockListener implements Listener {
 
                         // 检查绑定状态
                         ItemStack blockItem = new ItemStack(currentType);
-                        boolean bindingEnabled = plugin.getConfig().getBoolean("enable-binding-system", true);
+                        boolean bindingEnabled = plugin.getGameplaySettings().isBindingEnabled();
                         if (bindingEnabled && plugin.getBlockBindManager().isBlockBound(blockItem)) {
                             UUID boundPlayer = plugin.getBlockBindManager().getBoundPlayer(blockItem);
                             if (boundPlayer != null && !boundPlayer.equals(player.getUniqueId())) {
@@ -694,7 +634,7 @@ public class BlockListener implements Listener {
                 }
 
                 // 检查绑定系统是否启用
-                boolean bindingEnabled = plugin.getConfig().getBoolean("enable-binding-system", true);
+                boolean bindingEnabled = plugin.getGameplaySettings().isBindingEnabled();
 
                 // 检查绑定状态
                 if (bindingEnabled) {
@@ -731,7 +671,7 @@ public class BlockListener implements Listener {
         if (GUIManager.isPlayerSearching(player)) {
             ItemStack item = player.getInventory().getItem(event.getNewSlot());
             ItemMeta meta = (item != null) ? item.getItemMeta() : null;
-            boolean hasSpecialLore = plugin.hasMagicLore(meta);
+            boolean hasSpecialLore = plugin.getBlockManager().isMagicBlockMeta(meta);
 
             if (!hasSpecialLore) {
                 GUIManager.setPlayerSearching(player, false);
@@ -853,12 +793,12 @@ public class BlockListener implements Listener {
         Material blockType = block.getType();
 
         // 检查是否是魔法方块
-        if (plugin.getIndexManager().isMagicBlock(blockLocation)) {
+        if (plugin.getIndexManager().isMagicBlock(block)) {
             // 取消事件，防止方块变化和掉落物生成
             event.setCancelled(true);
 
             // 如果是重力方块（沙子、砂砾等）或红石组件类方块，直接移除它们而不产生掉落物
-            if (block.getType().hasGravity() || isRedstoneComponent(blockType)) {
+            if (MaterialTables.hasGravity(blockType) || isRedstoneComponent(blockType)) {
                 // 对于红石组件类方块，立即设置为空气，防止掉落物生成
                 if (isRedstoneComponent(blockType)) {
                     block.setType(Material.AIR);
@@ -890,7 +830,7 @@ public class BlockListener implements Listener {
         Material toBlockType = toBlock.getType();
 
         // 检查目标方块是否是魔法方块
-        if (plugin.getIndexManager().isMagicBlock(toBlock.getLocation())) {
+        if (plugin.getIndexManager().isMagicBlock(toBlock)) {
             // 取消事件，防止液体破坏魔法方块
             event.setCancelled(true);
 
@@ -913,84 +853,54 @@ public class BlockListener implements Listener {
 
     @EventHandler
     public void onBlockPistonExtend(BlockPistonExtendEvent event) {
-        for (Block block : event.getBlocks()) {
-            Location blockLocation = block.getLocation();
-            if (plugin.getIndexManager().isMagicBlock(blockLocation)) {
-                event.setCancelled(true);
-                return;
-            }
+        if (plugin.getIndexManager().containsMagicBlock(event.getBlocks())) {
+            event.setCancelled(true);
         }
     }
 
     @EventHandler
     public void onBlockPistonRetract(BlockPistonRetractEvent event) {
-        for (Block block : event.getBlocks()) {
-            Location blockLocation = block.getLocation();
-            if (plugin.getIndexManager().isMagicBlock(blockLocation)) {
-                event.setCancelled(true);
-                return;
-            }
+        if (plugin.getIndexManager().containsMagicBlock(event.getBlocks())) {
+            event.setCancelled(true);
         }
     }
 
     @EventHandler(priority = EventPriority.HIGHEST)
     public void onEntityExplode(EntityExplodeEvent event) {
-        List<Block> blocksToKeep = new ArrayList<>();
-
-        for (Block block : event.blockList()) {
-            if (plugin.getIndexManager().isMagicBlock(block.getLocation())) {
-                blocksToKeep.add(block);
-
-                // 获取方块类型，用于后续处理
-                Material blockType = block.getType();
-
-                // 延迟1tick移除方块和记录，确保不会产生掉落物
-                final Location blockLocation = block.getLocation();
-
-                // 对于红石组件类方块，需要特别处理
-                if (isRedstoneComponent(blockType)) {
-                    // 立即设置为空气，防止掉落物生成
-                    block.setType(Material.AIR);
-
-                    // 然后移除记录
-                    foliaLib.getScheduler().runLater(() -> {
-                        plugin.getIndexManager().unregisterMagicBlock(blockLocation);
-                    }, 1L);
-                } else {
-                    // 对于其他类型的方块，使用原来的处理方式
-                    foliaLib.getScheduler().runLater(() -> {
-                        if (plugin.getIndexManager().isMagicBlock(blockLocation)) {
-                            block.setType(Material.AIR);
-                            plugin.getIndexManager().unregisterMagicBlock(blockLocation);
-                        }
-                    }, 1L);
-                }
-            }
+        List<Block> magicBlocks = protectExplodedMagicBlocks(event.blockList());
+        if (!magicBlocks.isEmpty()) {
+            explodedMagicBlocks.put(event, magicBlocks);
         }
-
-        // 从爆炸列表中移除魔法方块，防止它们被爆炸破坏并产生掉落物
-        event.blockList().removeAll(blocksToKeep);
     }
 
     @EventHandler(priority = EventPriority.MONITOR)
     public void onEntityExplodeComplete(EntityExplodeEvent event) {
-        if (event.isCancelled()) {
+        // 只有爆炸实际波及魔法方块时才需要清理
+        List<Block> magicBlocks = explodedMagicBlocks.remove(event);
+        if (magicBlocks == null || event.isCancelled()) {
             return;
         }
 
+        // 掉落物检查范围：受影响魔法方块的包围盒
+        Block first = magicBlocks.get(0);
+        World world = first.getWorld();
+        BoundingBox area = BoundingBox.of(first);
+        for (Block block : magicBlocks) {
+            area.union(BoundingBox.of(block));
+        }
+        area.expand(EXPLOSION_DROP_MARGIN);
+
         // 使用FoliaLib在爆炸位置执行清理工作
         foliaLib.getScheduler().runAtLocation(
             event.getLocation(),
             task -> {
-                Collection<Entity> nearbyEntities = event.getLocation().getWorld().getNearbyEntities(
-                        event.getLocation(), 10, 10, 10);
-
-                for (Entity entity : nearbyEntities) {
-                    if (entity instanceof Item) {
-                        Item item = (Item) entity;
-                        if (plugin.getBlockManager().isMagicBlock(item.getItemStack())) {
-                            item.remove(); // 只移除魔法方块掉落物
-                        }
+                Collection<Entity> drops = world.getNearbyEntities(area, entity ->
+                    entity instanceof Item && entity.getTicksLived() <= EXPLOSION_DROP_MAX_AGE);
+
+                for (Entity entity : drops) {
+                    Item item = (Item) entity;
+                    if (plugin.getBlockManager().hasMagicBlockData(item.getItemStack())) {
+                        item.remove(); // 只移除魔法方块掉落物
                     }
                 }
             }
@@ -999,39 +909,32 @@ public class BlockListener implements Listener {
 
     @EventHandler(priority = EventPriority.HIGH)
     public void onBlockExplode(BlockExplodeEvent event) {
-        List<Block> blocksToKeep = new ArrayList<>();
-        for (Block block : event.blockList()) {
-            if (plugin.getIndexManager().isMagicBlock(block.getLocation())) {
-                blocksToKeep.add(block);
-
-                // 获取方块类型，用于后续处理
-                Material blockType = block.getType();
-
-                // 延迟1tick移除方块和记录，确保不会产生掉落物
-                final Location blockLocation = block.getLocation();
+        protectExplodedMagicBlocks(event.blockList());
+    }
 
-                // 对于红石组件类方块，需要特别处理
-                if (isRedstoneComponent(blockType)) {
-                    // 立即设置为空气，防止掉落物生成
-                    block.setType(Material.AIR);
+    /**
+     * 从爆炸方块列表中取出魔法方块，防止它们被爆炸破坏并产生掉落物，随后静默移除
+     * 使用索引的批量接口，按区块跳过没有魔法方块的部分
+     */
+    private List<Block> protectExplodedMagicBlocks(List<Block> blockList) {
+        List<Block> magicBlocks = plugin.getIndexManager().filterMagicBlocks(blockList);
+        if (magicBlocks.isEmpty()) {
+            return magicBlocks;
+        }
 
-                    // 然后移除记录
-                    foliaLib.getScheduler().runLater(() -> {
-                        plugin.getIndexManager().unregisterMagicBlock(blockLocation);
-                    }, 1L);
-                } else {
-                    // 对于其他类型的方块，使用原来的处理方式
-                    foliaLib.getScheduler().runLater(() -> {
-                        if (plugin.getIndexManager().isMagicBlock(blockLocation)) {
-                            block.setType(Material.AIR);
-                            plugin.getIndexManager().unregisterMagicBlock(blockLocation);
-                        }
-                    }, 1L);
-                }
+        for (Block block : magicBlocks) {
+            // 红石组件类方块立即设置为空气，防止掉落物生成
+            if (isRedstoneComponent(block.getType())) {
+                block.setType(Material.AIR);
             }
         }
-        // 从爆炸列表中移除魔法方块，防止它们被爆炸破坏并产生掉落物
-        event.blockList().removeAll(blocksToKeep);
+
+        // 下一 tick 按区域批量置空并注销，避免每个方块各自调度一个任务
+        plugin.getIndexManager().removeMagicBlocksLater(magicBlocks);
+
+        // 从爆炸列表中移除魔法方块
+        blockList.removeAll(new HashSet<>(magicBlocks));
+        return magicBlocks;
     }
 
     @EventHandler(priority = EventPriority.HIGH)
@@ -1045,7 +948,7 @@ public class BlockListener implements Listener {
     @EventHandler(priority = EventPriority.HIGHEST)
     public void onBlockDamage(BlockDamageEvent event) {
         Block block = event.getBlock();
-        if (plugin.getIndexManager().isMagicBlock(block.getLocation())) {
+        if (plugin.getIndexManager().isMagicBlock(block)) {
             // 对于魔法方块，我们不希望它们被损坏
             // 但允许正常的破坏事件处理
             return;
@@ -1055,7 +958,7 @@ public class BlockListener implements Listener {
     @EventHandler(priority = EventPriority.HIGHEST)
     public void onBlockForm(BlockFormEvent event) {
         Block block = event.getBlock();
-        if (plugin.getIndexManager().isMagicBlock(block.getLocation())) {
+        if (plugin.getIndexManager().isMagicBlock(block)) {
             // 阻止魔法方块形成其他方块（如冰形成等）
             event.setCancelled(true);
         }
@@ -1064,7 +967,7 @@ public class BlockListener implements Listener {
     @EventHandler(priority = EventPriority.HIGHEST)
     public void onBlockGrow(BlockGrowEvent event) {
         Block block = event.getBlock();
-        if (plugin.getIndexManager().isMagicBlock(block.getLocation())) {
+        if (plugin.getIndexManager().isMagicBlock(block)) {
             // 阻止魔法方块生长（如作物生长等）
             event.setCancelled(true);
         }
@@ -1073,7 +976,7 @@ public class BlockListener implements Listener {
     @EventHandler(priority = EventPriority.HIGHEST)
     public void onBlockSpread(BlockSpreadEvent event) {
         Block block = event.getBlock();
-        if (plugin.getIndexManager().isMagicBlock(block.getLocation())) {
+        if (plugin.getIndexManager().isMagicBlock(block)) {
             // 阻止魔法方块传播（如火焰传播等）
             event.setCancelled(true);
         }
@@ -1104,7 +1007,7 @@ public class BlockListener implements Listener {
             Material type = adjacent.getType();
 
             // 如果是魔法方块位置上的红石组件，确保它们可以接收红石信号
-            if (plugin.getIndexManager().isMagicBlock(adjacent.getLocation()) && isRedstoneComponent(type)) {
+            if (plugin.getIndexManager().isMagicBlock(adjacent) && isRedstoneComponent(type)) {
                 // 不取消事件，允许红石信号传递
 
                 // 对于特定的方块，可能需要手动更新状态
@@ -1130,7 +1033,7 @@ public class BlockListener implements Listener {
         }
 
         // 如果当前方块本身是魔法方块位置上的红石组件，确保它可以正常工作
-        if (plugin.getIndexManager().isMagicBlock(block.getLocation()) && isRedstoneComponent(block.getType())) {
+        if (plugin.getIndexManager().isMagicBlock(block) && isRedstoneComponent(block.getType())) {
             // 不取消事件，允许红石信号传递
         }
     }
@@ -1167,47 +1070,21 @@ public class BlockListener implements Listener {
      * 检查材料是否是原木类型
      */
     private boolean isLogType(Material material) {
-        return material.name().contains("_LOG") && !material.name().contains("STRIPPED");
+        return MaterialTables.isStrippableLog(material);
     }
 
     /**
      * 检查材料是否是铜类型
      */
     private boolean isCopperType(Material material) {
-        return material.name().contains("COPPER") &&
-               (material.name().contains("EXPOSED") ||
-                material.name().contains("WEATHERED") ||
-                material.name().contains("OXIDIZED")) &&
-               !material.name().contains("WAXED");
+        return MaterialTables.isScrapeableCopper(material);
     }
 
     /**
      * 获取削皮或去氧化后的方块类型
      */
     private Material getStrippedOrScrapedType(Material material) {
-        String materialName = material.name();
-
-        // 处理原木削皮
-        if (materialName.contains("_LOG") && !materialName.contains("STRIPPED")) {
-            try {
-                return Material.valueOf("STRIPPED_" + materialName);
-            } catch (IllegalArgumentException e) {
-                return null;
-            }
-        }
-
-        // 处理铜去氧化
-        if (materialName.contains("COPPER") && !materialName.contains("WAXED")) {
-            if (materialName.contains("OXIDIZED")) {
-                return Material.valueOf(materialName.replace("OXIDIZED_", "WEATHERED_"));
-            } else if (materialName.contains("WEATHERED")) {
-                return Material.valueOf(materialName.replace("WEATHERED_", "EXPOSED_"));
-            } else if (materialName.contains("EXPOSED")) {
-                return Material.valueOf(materialName.replace("EXPOSED_", ""));
-            }
-        }
-
-        return null;
+        return MaterialTables.getStrippedOrScrapedType(material);
     }
 
     /**
@@ -1260,7 +1137,7 @@ public class BlockListener implements Listener {
         for (BlockFace face : new BlockFace[]{BlockFace.NORTH, BlockFace.SOUTH, BlockFace.EAST, BlockFace.WEST}) {
             Block adjacent = fence.getRelative(face);
             boolean shouldConnect = adjacent.getType() == fence.getType() ||
-                                   adjacent.getType().toString().contains("FENCE_GATE") ||
+                                   MaterialTables.isFenceGate(adjacent.getType()) ||
                                    (adjacent.getType().isSolid() && !adjacent.getType().isTransparent());
             fenceData.setFace(face, shouldConnect);
         }
@@ -0,0 +1,196 @@
+package io.github.syferie.magicblock.manager;
+
+import io.github.syferie.magicblock.util.BlockKey;
+
+/**
+ * 单个区块的魔法方块位图
+ * 每个 16 格高的子区块（section）对应一个 4096 位的位图，按需分配
+ *
+ * 性能优化策略：
+ * 1. 成员检查只需一次数组下标计算和一次位测试
+ * 2. 内存与实际存在魔法方块的子区块数量成正比
+ * 3. 子区块清空后立即释放位图
+ *
+ * 非线程安全，由所在 {@link IndexShard} 的 StampedLock 保护；
+ * 读方法在乐观读下不会抛出越界异常
+ */
+public final class ChunkMagicBlocks {
+    private static final int SECTION_WORDS = 64; // 16 * 16 * 16 / 64
+    private static final long[][] NO_SECTIONS = new long[0][];
+
+    private final int chunkX;
+    private final int chunkZ;
+
+    // sections[i] 对应 sectionY = minSection + i
+    private long[][] sections = NO_SECTIONS;
+    private int[] sectionCounts = new int[0];
+    private int minSection;
+    private int size;
+
+    public ChunkMagicBlocks(int chunkX, int chunkZ) {
+        this.chunkX = chunkX;
+        this.chunkZ = chunkZ;
+    }
+
+    public int getChunkX() {
+        return chunkX;
+    }
+
+    public int getChunkZ() {
+        return chunkZ;
+    }
+
+    public boolean contains(int x, int y, int z) {
+        long[][] secs = sections;
+        int index = (y >> 4) - minSection;
+        if (index < 0 || index >= secs.length) return false;
+
+        long[] section = secs[index];
+        if (section == null) return false;
+
+        int bit = bitIndex(x, y, z);
+        return (section[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    public boolean add(int x, int y, int z) {
+        int sectionY = y >> 4;
+        ensureSection(sectionY);
+
+        int index = sectionY - minSection;
+        long[] section = sections[index];
+        if (section == null) {
+            section = new long[SECTION_WORDS];
+            sections[index] = section;
+        }
+
+        int bit = bitIndex(x, y, z);
+        long mask = 1L << bit;
+        if ((section[bit >>> 6] & mask) != 0) return false;
+
+        section[bit >>> 6] |= mask;
+        sectionCounts[index]++;
+        size++;
+        return true;
+    }
+
+    public boolean remove(int x, int y, int z) {
+        int index = (y >> 4) - minSection;
+        if (index < 0 || index >= sections.length) return false;
+
+        long[] section = sections[index];
+        if (section == null) return false;
+
+        int bit = bitIndex(x, y, z);
+        long mask = 1L << bit;
+        if ((section[bit >>> 6] & mask) == 0) return false;
+
+        section[bit >>> 6] &= ~mask;
+        size--;
+        if (--sectionCounts[index] == 0) {
+            // 子区块已空，释放位图
+            sections[index] = null;
+        }
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 已分配位图的子区块数量
+     */
+    public int getAllocatedSections() {
+        int count = 0;
+        for (long[] section : sections) {
+            if (section != null) count++;
+        }
+        return count;
+    }
+
+    /**
+     * 导出区块中所有魔法方块的打包坐标
+     */
+    public long[] toBlockKeys() {
+        long[] result = new long[size];
+        int count = 0;
+        int baseX = chunkX << 4;
+        int baseZ = chunkZ << 4;
+        for (int i = 0; i < sections.length; i++) {
+            long[] section = sections[i];
+            if (section == null) continue;
+
+            int baseY = (minSection + i) << 4;
+            for (int word = 0; word < SECTION_WORDS; word++) {
+                long bits = section[word];
+                while (bits != 0) {
+                    int bit = (word << 6) | Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    result[count++] = BlockKey.pack(
+                        baseX + (bit & 15),
+                        baseY + (bit >>> 8),
+                        baseZ + ((bit >>> 4) & 15));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 导出区块内相对坐标，用于写回区块 PDC
+     */
+    public int[] toLocalPositions() {
+        int[] result = new int[size];
+        int count = 0;
+        for (int i = 0; i < sections.length; i++) {
+            long[] section = sections[i];
+            if (section == null) continue;
+
+            int baseY = (minSection + i) << 4;
+            for (int word = 0; word < SECTION_WORDS; word++) {
+                long bits = section[word];
+                while (bits != 0) {
+                    int bit = (word << 6) | Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    // 位下标低 8 位正好是 (z << 4) | x
+                    result[count++] = ((baseY + (bit >>> 8)) << 8) | (bit & 0xFF);
+                }
+            }
+        }
+        return result;
+    }
+
+    private void ensureSection(int sectionY) {
+        if (sections.length == 0) {
+            minSection = sectionY;
+            sections = new long[1][];
+            sectionCounts = new int[1];
+            return;
+        }
+
+        int maxSection = minSection + sections.length - 1;
+        if (sectionY >= minSection && sectionY <= maxSection) return;
+
+        int newMin = Math.min(minSection, sectionY);
+        int newMax = Math.max(maxSection, sectionY);
+        int offset = minSection - newMin;
+
+        long[][] newSections = new long[newMax - newMin + 1][];
+        int[] newCounts = new int[newSections.length];
+        System.arraycopy(sections, 0, newSections, offset, sections.length);
+        System.arraycopy(sectionCounts, 0, newCounts, offset, sectionCounts.length);
+
+        // 先发布数组再更新偏移；乐观读看到不一致的组合时只会得到错误结果，由锁校验重试
+        this.sections = newSections;
+        this.sectionCounts = newCounts;
+        this.minSection = newMin;
+    }
+
+    private static int bitIndex(int x, int y, int z) {
+        return ((y & 15) << 8) | ((z & 15) << 4) | (x & 15);
+    }
+}
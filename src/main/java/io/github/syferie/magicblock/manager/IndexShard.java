@@ -0,0 +1,407 @@
+package io.github.syferie.magicblock.manager;
+
+import io.github.syferie.magicblock.util.BlockKey;
+import io.github.syferie.magicblock.util.LongHashSet;
+import io.github.syferie.magicblock.util.LongObjectHashMap;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * 魔法方块索引分片
+ * 一个分片覆盖 16x16 个区块（与 Folia 区域划分的最小单位一致），
+ * 区块键（打包的 chunkX/chunkZ）-> 区块位图，成员检查 = 一次区块查找 + 一次位测试
+ *
+ * 写操作持有写锁，读操作使用 StampedLock 乐观读，常态下无锁、无分配
+ */
+final class IndexShard {
+    private final StampedLock lock = new StampedLock();
+    private final LongObjectHashMap<ChunkMagicBlocks> chunks = new LongObjectHashMap<>();
+    // 已读取 PDC、等待后台解码和校验的区块
+    private final LongObjectHashMap<PendingChunk> pendingChunks = new LongObjectHashMap<>();
+    // 内存已修改、尚未写回 PDC 的区块
+    private final LongHashSet dirtyChunks = new LongHashSet();
+    // 已卸载回收的区块 -> 回收时的魔法方块数量，仅用于统计已知总数
+    private final LongObjectHashMap<Integer> evictedCounts = new LongObjectHashMap<>();
+    private int size;
+    private int pendingSize;
+    private int evictedSize;
+    // 所属世界的常驻数量计数（size + pendingSize 的世界级汇总），与本分片的计数在同一把锁内更新
+    private final AtomicInteger worldResidentCount;
+
+    IndexShard(AtomicInteger worldResidentCount) {
+        this.worldResidentCount = worldResidentCount;
+    }
+
+    boolean contains(int x, int y, int z) {
+        long chunkKey = BlockKey.chunkKey(x >> 4, z >> 4);
+        long stamp = lock.tryOptimisticRead();
+        boolean result = containsUnlocked(chunkKey, x, y, z);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                result = containsUnlocked(chunkKey, x, y, z);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return result;
+    }
+
+    private boolean containsUnlocked(long chunkKey, int x, int y, int z) {
+        ChunkMagicBlocks chunk = chunks.get(chunkKey);
+        if (chunk != null && chunk.contains(x, y, z)) return true;
+        if (pendingChunks.isEmpty()) return false;
+
+        PendingChunk pending = pendingChunks.get(chunkKey);
+        return pending != null && pending.contains(BlockKey.packLocal(x, y, z));
+    }
+
+    boolean hasChunk(long chunkKey) {
+        long stamp = lock.tryOptimisticRead();
+        boolean result = chunks.containsKey(chunkKey) || pendingChunks.containsKey(chunkKey);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                result = chunks.containsKey(chunkKey) || pendingChunks.containsKey(chunkKey);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return result;
+    }
+
+    boolean add(int x, int y, int z) {
+        long stamp = lock.writeLock();
+        try {
+            int chunkX = x >> 4;
+            int chunkZ = z >> 4;
+            long chunkKey = BlockKey.chunkKey(chunkX, chunkZ);
+            PendingChunk pending = pendingChunks.get(chunkKey);
+            if (pending != null && pending.contains(BlockKey.packLocal(x, y, z))) {
+                return false;
+            }
+
+            ChunkMagicBlocks chunk = chunks.get(chunkKey);
+            if (chunk == null) {
+                chunk = new ChunkMagicBlocks(chunkX, chunkZ);
+                chunks.put(chunkKey, chunk);
+            }
+            if (!chunk.add(x, y, z)) {
+                return false;
+            }
+            size++;
+            worldResidentCount.incrementAndGet();
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    boolean remove(int x, int y, int z) {
+        long stamp = lock.writeLock();
+        try {
+            long chunkKey = BlockKey.chunkKey(x >> 4, z >> 4);
+            ChunkMagicBlocks chunk = chunks.get(chunkKey);
+            if (chunk != null && chunk.remove(x, y, z)) {
+                size--;
+                worldResidentCount.decrementAndGet();
+                // 如果区块没有魔法方块了，清理区块索引
+                if (chunk.isEmpty()) {
+                    chunks.remove(chunkKey);
+                }
+                return true;
+            }
+
+            PendingChunk pending = pendingChunks.get(chunkKey);
+            int local = BlockKey.packLocal(x, y, z);
+            if (pending != null && pending.contains(local)) {
+                pending.removed.add(local);
+                pending.live--;
+                pendingSize--;
+                worldResidentCount.decrementAndGet();
+                return true;
+            }
+            return false;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * 登记等待校验的区块
+     * @return false 表示区块已在索引中
+     */
+    boolean addPending(long chunkKey, PendingChunk pending) {
+        long stamp = lock.writeLock();
+        try {
+            if (chunks.containsKey(chunkKey) || pendingChunks.containsKey(chunkKey)) {
+                return false;
+            }
+            pendingChunks.put(chunkKey, pending);
+            pendingSize += pending.live;
+            worldResidentCount.addAndGet(pending.live);
+
+            // 区块重新加载，不再计入已回收数量
+            Integer evicted = evictedCounts.remove(chunkKey);
+            if (evicted != null) {
+                evictedSize -= evicted;
+            }
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * 用校验后的位图替换等待中的区块，并应用等待期间的移除
+     * @return 加入索引的数量；等待项已失效（如索引被重载）则返回 -1
+     */
+    int completePending(long chunkKey, PendingChunk pending, ChunkMagicBlocks decoded) {
+        long stamp = lock.writeLock();
+        try {
+            if (pendingChunks.get(chunkKey) != pending) {
+                return -1;
+            }
+            pendingChunks.remove(chunkKey);
+            pendingSize -= pending.live;
+            worldResidentCount.addAndGet(-pending.live);
+
+            int chunkX = decoded.getChunkX();
+            int chunkZ = decoded.getChunkZ();
+            pending.removed.forEach(local -> decoded.remove(
+                BlockKey.localX(chunkX, (int) local),
+                BlockKey.localY((int) local),
+                BlockKey.localZ(chunkZ, (int) local)));
+
+            ChunkMagicBlocks chunk = chunks.get(chunkKey);
+            if (chunk == null) {
+                if (!decoded.isEmpty()) {
+                    chunks.put(chunkKey, decoded);
+                    size += decoded.size();
+                    worldResidentCount.addAndGet(decoded.size());
+                }
+                return decoded.size();
+            }
+
+            // 等待期间有新放置的方块，合并到已有位图
+            int added = 0;
+            for (long blockKey : decoded.toBlockKeys()) {
+                if (chunk.add(BlockKey.unpackX(blockKey), BlockKey.unpackY(blockKey), BlockKey.unpackZ(blockKey))) {
+                    added++;
+                }
+            }
+            size += added;
+            worldResidentCount.addAndGet(added);
+            return added;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    long[] snapshotChunk(long chunkKey) {
+        long stamp = lock.readLock();
+        try {
+            ChunkMagicBlocks chunk = chunks.get(chunkKey);
+            long[] keys = chunk != null ? chunk.toBlockKeys() : new long[0];
+
+            PendingChunk pending = pendingChunks.get(chunkKey);
+            if (pending == null) return keys;
+
+            int[] locals = new int[pending.live];
+            pending.collectLive(locals, 0);
+            long[] result = Arrays.copyOf(keys, keys.length + locals.length);
+            int chunkX = BlockKey.chunkX(chunkKey);
+            int chunkZ = BlockKey.chunkZ(chunkKey);
+            for (int i = 0; i < locals.length; i++) {
+                result[keys.length + i] = BlockKey.pack(
+                    BlockKey.localX(chunkX, locals[i]),
+                    BlockKey.localY(locals[i]),
+                    BlockKey.localZ(chunkZ, locals[i]));
+            }
+            return result;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * 已校验的区块位图坐标快照（不含等待中的数据）
+     */
+    long[] snapshotResidentChunk(long chunkKey) {
+        long stamp = lock.readLock();
+        try {
+            ChunkMagicBlocks chunk = chunks.get(chunkKey);
+            return chunk != null ? chunk.toBlockKeys() : new long[0];
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    int chunkSize(long chunkKey) {
+        long stamp = lock.readLock();
+        try {
+            ChunkMagicBlocks chunk = chunks.get(chunkKey);
+            return chunk != null ? chunk.size() : 0;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * 标记区块待写回
+     * @return true 表示区块此前是干净的，需要调度一次写回
+     */
+    boolean markDirty(long chunkKey) {
+        long stamp = lock.writeLock();
+        try {
+            return dirtyChunks.add(chunkKey);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * 取出待写回区块的当前内容并清除脏标记
+     * 等待校验的数据也一并写回，避免丢失
+     * @return 区块内相对坐标；区块不是脏的则返回 null
+     */
+    int[] takeDirty(long chunkKey) {
+        long stamp = lock.writeLock();
+        try {
+            if (!dirtyChunks.remove(chunkKey)) return null;
+            ChunkMagicBlocks chunk = chunks.get(chunkKey);
+            int[] positions = chunk != null ? chunk.toLocalPositions() : new int[0];
+
+            PendingChunk pending = pendingChunks.get(chunkKey);
+            if (pending == null) return positions;
+
+            int[] result = Arrays.copyOf(positions, positions.length + pending.live);
+            pending.collectLive(result, positions.length);
+            return result;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * 从内存中回收区块（数据已在 PDC 中）
+     * @return 回收的魔法方块数量；区块仍有未写回的修改则返回 -1
+     */
+    int evict(long chunkKey) {
+        long stamp = lock.writeLock();
+        try {
+            if (dirtyChunks.contains(chunkKey)) return -1;
+
+            int count = 0;
+            ChunkMagicBlocks chunk = chunks.remove(chunkKey);
+            if (chunk != null) {
+                count += chunk.size();
+                size -= chunk.size();
+                worldResidentCount.addAndGet(-chunk.size());
+            }
+            PendingChunk pending = pendingChunks.remove(chunkKey);
+            if (pending != null) {
+                count += pending.live;
+                pendingSize -= pending.live;
+                worldResidentCount.addAndGet(-pending.live);
+            }
+            if (count > 0) {
+                evictedCounts.put(chunkKey, count);
+                evictedSize += count;
+            }
+            return count;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    long[] residentChunkKeys() {
+        long stamp = lock.readLock();
+        try {
+            return chunks.keys();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    long[] snapshotDirty() {
+        long stamp = lock.readLock();
+        try {
+            return dirtyChunks.toArray();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    int size() {
+        long stamp = lock.tryOptimisticRead();
+        int result = size + pendingSize;
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                result = size + pendingSize;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 常驻 + 已回收的魔法方块总数
+     */
+    int knownSize() {
+        long stamp = lock.readLock();
+        try {
+            return size + pendingSize + evictedSize;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    int evictedChunkCount() {
+        long stamp = lock.readLock();
+        try {
+            return evictedCounts.size();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    int chunkCount() {
+        long stamp = lock.readLock();
+        try {
+            return chunks.size();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    int pendingChunkCount() {
+        long stamp = lock.readLock();
+        try {
+            return pendingChunks.size();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    int sectionCount() {
+        long stamp = lock.readLock();
+        try {
+            int count = 0;
+            for (ChunkMagicBlocks chunk : chunks.values()) {
+                count += chunk.getAllocatedSections();
+            }
+            return count;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    boolean isEmpty() {
+        return size() == 0;
+    }
+}
@@ -4,6 +4,7 @@ import io.github.syferie.magicblock.MagicBlockPlugin;
 import org.bukkit.Bukkit;
 import org.bukkit.Chunk;
 import org.bukkit.Location;
+import org.bukkit.Material;
 import org.bukkit.World;
 import org.bukkit.block.Block;
 import org.bukkit.inventory.ItemStack;
@@ -12,48 +13,86 @@ import org.bukkit.persistence.PersistentDataType;
 import org.bukkit.NamespacedKey;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.world.ChunkLoadEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
+import org.bukkit.event.world.WorldSaveEvent;
+import io.github.syferie.magicblock.util.BlockKey;
+import io.github.syferie.magicblock.util.LongHashSet;
+import io.github.syferie.magicblock.util.LongObjectHashMap;
+import io.github.syferie.magicblock.util.PerformanceSettings;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * 魔法方块索引管理器
  * 实现高性能的魔法方块位置索引和查找
  *
  * 性能优化策略：
- * 1. 内存索引：O(1) 快速查找
- * 2. 区块缓存：减少内存使用
+ * 1. 内存索引：按世界 UID 划分，区块键 -> 子区块位图，O(1) 无分配查找
+ * 2. 区块位图：内存与实际存在魔法方块的子区块数量成正比
  * 3. 持久化存储：数据安全保障
  * 4. 智能过滤：早期事件过滤
  * 5. 区块加载时自动恢复：解决重启后数据丢失问题
+ * 6. 写合并：同一区块在一个 tick 内的多次修改只写一次 PDC
+ * 7. 卸载回收：区块卸载后从内存移除，常驻内存与已加载区块数量成正比
+ * 8. 增量清理：按游标分片校验，每 tick 有条目数和耗时上限
+ * 9. 区域分片：每个世界按 16x16 区块分片加锁，Folia 各区域线程互不争用
  */
 public class MagicBlockIndexManager implements Listener {
     private final MagicBlockPlugin plugin;
-    private final NamespacedKey magicBlockKey;
+    // 区块 PDC：区块内相对坐标的 int 数组（当前格式）
+    private final NamespacedKey positionsKey;
+    // 区块 PDC：旧版 "world,x,y,z;..." 字符串格式，读取时自动升级
+    private final NamespacedKey legacyLocationKey;
     
-    // 第一层：全局内存索引 - 最快的查找
-    private final Set<String> globalMagicBlockIndex = ConcurrentHashMap.newKeySet();
+    // 按世界 UID 划分的索引，每个世界内部再按区域分片
+    // 查找路径只做 UUID 哈希和 long 探测，不创建 String / Location
+    private final Map<UUID, WorldIndex> worldIndexes = new ConcurrentHashMap<>();
     
-    // 第二层：区块级别索引 - 减少内存使用和提供区块过滤
-    private final Map<String, Set<String>> chunkMagicBlocks = new ConcurrentHashMap<>();
-    
-    // 第三层：世界级别索引 - 用于快速判断世界是否有魔法方块
-    private final Set<String> worldsWithMagicBlocks = ConcurrentHashMap.newKeySet();
-    
-    // 性能统计
-    private long totalLookups = 0;
-    private long cacheHits = 0;
-    private long cacheMisses = 0;
+    // 性能统计（LongAdder 分段计数，多个区域线程并发累加不会互相争用）
+    private final LongAdder totalLookups = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+    // 实际执行的区块 PDC 写入次数 / 被合并掉的写入次数
+    private final LongAdder pdcWrites = new LongAdder();
+    private final LongAdder coalescedWrites = new LongAdder();
+
+    // 增量清理游标（只在清理定时任务中访问）
+    private final ArrayDeque<UUID> sweepWorlds = new ArrayDeque<>();
+    private UUID sweepWorld;
+    private long[] sweepChunks = new long[0];
+    private int sweepChunkIndex;
+    // 清理进度，getPerformanceStats 会从其他线程读取
+    private volatile int sweepTotalChunks;
+    private volatile int sweepDoneChunks;
+    private volatile boolean sweeping;
+    private long sweepStartedAt;
+    private long nextSweepAt;
+    private long sweepCheckedAtStart;
+    private long sweepRemovedAtStart;
+    private long sweepNanosAtStart;
+    // 清理统计
+    private final LongAdder sweepChecked = new LongAdder();
+    private final LongAdder sweepRemoved = new LongAdder();
+    private final LongAdder sweepNanos = new LongAdder();
+    private volatile long completedSweeps;
+    private volatile long lastSweepMillis;
+    private volatile long lastSweepThroughput;
     
     public MagicBlockIndexManager(MagicBlockPlugin plugin) {
         this.plugin = plugin;
-        this.magicBlockKey = new NamespacedKey(plugin, "magicblock_location");
+        this.positionsKey = new NamespacedKey(plugin, "magicblock_positions");
+        this.legacyLocationKey = new NamespacedKey(plugin, "magicblock_location");
         
         // 启动时加载现有的魔法方块索引
         loadExistingMagicBlocks();
         
-        // 启动定期清理任务
+        // 启动定期清理任务（第一轮在一个清理间隔之后开始）
+        nextSweepAt = System.currentTimeMillis()
+            + plugin.getPerformanceSettings().getCleanupIntervalMillis();
         startCleanupTask();
     }
     
@@ -62,26 +101,16 @@ public class MagicBlockIndexManager implements Listener {
      * 当魔法方块被放置时调用
      */
     public void registerMagicBlock(Location location, ItemStack magicBlock) {
-        String locationKey = serializeLocation(location);
-        String chunkKey = getChunkKey(location);
-        String worldName = location.getWorld().getName();
-        
-        // 1. 添加到全局索引
-        globalMagicBlockIndex.add(locationKey);
-        
-        // 2. 添加到区块索引
-        chunkMagicBlocks.computeIfAbsent(chunkKey, k -> ConcurrentHashMap.newKeySet())
-                       .add(locationKey);
-        
-        // 3. 标记世界包含魔法方块
-        worldsWithMagicBlocks.add(worldName);
-        
-        // 4. 持久化存储（异步）
-        plugin.getFoliaLib().getScheduler().runAtLocation(location, task -> {
-            saveToPersistentStorage(location, magicBlock);
-        });
+        World world = location.getWorld();
+        if (world == null) return;
+
+        // 1. 添加到世界索引（同时维护区块索引）
+        if (indexBlock(world, location.getBlockX(), location.getBlockY(), location.getBlockZ())) {
+            // 2. 持久化存储（同区块的修改合并到下一 tick 一次写入）
+            markChunkDirty(world, location.getBlockX() >> 4, location.getBlockZ() >> 4);
+        }
         
-        plugin.debug("注册魔法方块: " + locationKey);
+        plugin.debug("注册魔法方块: " + serializeLocation(location));
     }
     
     /**
@@ -89,50 +118,96 @@ public class MagicBlockIndexManager implements Listener {
      * 当魔法方块被破坏时调用
      */
     public void unregisterMagicBlock(Location location) {
-        String locationKey = serializeLocation(location);
-        String chunkKey = getChunkKey(location);
-        
-        // 1. 从全局索引移除
-        boolean removed = globalMagicBlockIndex.remove(locationKey);
+        World world = location.getWorld();
+        if (world == null) return;
+
+        WorldIndex index = worldIndexes.get(world.getUID());
+        if (index == null) return;
+
+        // 1. 从世界索引移除（同时清理空区块，世界是否为空由索引本身判断）
+        boolean removed = index.remove(location.getBlockX(), location.getBlockY(), location.getBlockZ());
         
         if (removed) {
-            // 2. 从区块索引移除
-            Set<String> chunkBlocks = chunkMagicBlocks.get(chunkKey);
-            if (chunkBlocks != null) {
-                chunkBlocks.remove(locationKey);
-                
-                // 如果区块没有魔法方块了，清理区块索引
-                if (chunkBlocks.isEmpty()) {
-                    chunkMagicBlocks.remove(chunkKey);
-                }
-            }
+            // 2. 从持久化存储移除（同区块的修改合并到下一 tick 一次写入）
+            markChunkDirty(world, location.getBlockX() >> 4, location.getBlockZ() >> 4);
             
-            // 3. 检查世界是否还有魔法方块
-            checkAndCleanupWorld(location.getWorld().getName());
-            
-            // 4. 从持久化存储移除（异步）
-            plugin.getFoliaLib().getScheduler().runAtLocation(location, task -> {
-                removeFromPersistentStorage(location);
-            });
-            
-            plugin.debug("移除魔法方块: " + locationKey);
+            plugin.debug("移除魔法方块: " + serializeLocation(location));
         }
     }
     
+    /**
+     * 下一 tick 批量移除魔法方块：置为空气并从索引注销（用于爆炸）
+     * 按 Folia 区域分段（16x16 区块，与索引分片一致）分组，每组只调度一个任务并在分段所属线程执行，
+     * 同一区块的注销合并为一次 PDC 写入
+     */
+    public void removeMagicBlocksLater(List<Block> blocks) {
+        if (blocks.isEmpty()) return;
+
+        Map<World, LongObjectHashMap<List<Block>>> groups = new HashMap<>();
+        for (Block block : blocks) {
+            long sectionKey = WorldIndex.shardKey(BlockKey.chunkKey(block.getX() >> 4, block.getZ() >> 4));
+            groups.computeIfAbsent(block.getWorld(), world -> new LongObjectHashMap<>())
+                .computeIfAbsent(sectionKey, key -> new ArrayList<>())
+                .add(block);
+        }
+
+        for (LongObjectHashMap<List<Block>> sections : groups.values()) {
+            for (List<Block> batch : sections.values()) {
+                plugin.getFoliaLib().getScheduler().runAtLocationLater(
+                    batch.get(0).getLocation(), () -> removeMagicBlocks(batch), 1L);
+            }
+        }
+    }
+
+    private void removeMagicBlocks(List<Block> batch) {
+        int removed = 0;
+        for (Block block : batch) {
+            WorldIndex index = worldIndexes.get(block.getWorld().getUID());
+            if (index == null || !index.contains(block.getX(), block.getY(), block.getZ())) continue;
+
+            if (block.getType() != Material.AIR) {
+                block.setType(Material.AIR);
+            }
+            if (index.remove(block.getX(), block.getY(), block.getZ())) {
+                markChunkDirty(block.getWorld(), block.getX() >> 4, block.getZ() >> 4);
+                removed++;
+            }
+        }
+        if (removed > 0) {
+            plugin.debug("批量移除魔法方块: " + removed + " 个");
+        }
+    }
+
     /**
      * 超高性能的魔法方块检查
      * O(1) 时间复杂度
      */
     public boolean isMagicBlock(Location location) {
-        totalLookups++;
+        World world = location.getWorld();
+        if (world == null) return false;
+        return isMagicBlock(world, location.getBlockX(), location.getBlockY(), location.getBlockZ());
+    }
+
+    /**
+     * 直接使用方块坐标检查，避免 block.getLocation() 创建新的 Location
+     */
+    public boolean isMagicBlock(Block block) {
+        return isMagicBlock(block.getWorld(), block.getX(), block.getY(), block.getZ());
+    }
+
+    /**
+     * 热路径：UUID 哈希 + 区块键探测 + 位图位测试，无 String / Location 分配
+     */
+    public boolean isMagicBlock(World world, int x, int y, int z) {
+        totalLookups.increment();
         
-        String locationKey = serializeLocation(location);
-        boolean result = globalMagicBlockIndex.contains(locationKey);
+        WorldIndex index = worldIndexes.get(world.getUID());
+        boolean result = index != null && index.contains(x, y, z);
         
         if (result) {
-            cacheHits++;
+            cacheHits.increment();
         } else {
-            cacheMisses++;
+            cacheMisses.increment();
         }
         
         return result;
@@ -143,8 +218,18 @@ public class MagicBlockIndexManager implements Listener {
      * 用于早期事件过滤
      */
     public boolean chunkHasMagicBlocks(Location location) {
-        String chunkKey = getChunkKey(location);
-        return chunkMagicBlocks.containsKey(chunkKey);
+        World world = location.getWorld();
+        if (world == null) return false;
+        return chunkHasMagicBlocks(world, location.getBlockX() >> 4, location.getBlockZ() >> 4);
+    }
+
+    public boolean chunkHasMagicBlocks(Block block) {
+        return chunkHasMagicBlocks(block.getWorld(), block.getX() >> 4, block.getZ() >> 4);
+    }
+
+    public boolean chunkHasMagicBlocks(World world, int chunkX, int chunkZ) {
+        WorldIndex index = worldIndexes.get(world.getUID());
+        return index != null && index.hasChunk(BlockKey.chunkKey(chunkX, chunkZ));
     }
     
     /**
@@ -152,211 +237,561 @@ public class MagicBlockIndexManager implements Listener {
      * 用于最早期的事件过滤
      */
     public boolean worldHasMagicBlocks(String worldName) {
-        return worldsWithMagicBlocks.contains(worldName);
+        World world = Bukkit.getWorld(worldName);
+        return world != null && worldHasMagicBlocks(world);
+    }
+
+    public boolean worldHasMagicBlocks(World world) {
+        WorldIndex index = worldIndexes.get(world.getUID());
+        return index != null && !index.isEmpty();
+    }
+
+    /**
+     * 批量检查：返回方块列表（活塞推动、爆炸）中的魔法方块
+     * 整个世界或整个区块没有魔法方块时直接跳过，其余方块只做位图检查，无 Location / String 分配
+     */
+    public List<Block> filterMagicBlocks(Collection<Block> blocks) {
+        List<Block> result = new ArrayList<>();
+        scanMagicBlocks(blocks, result);
+        return result;
+    }
+
+    /**
+     * 批量检查：方块列表中是否包含魔法方块，找到第一个即返回
+     */
+    public boolean containsMagicBlock(Collection<Block> blocks) {
+        return scanMagicBlocks(blocks, null);
+    }
+
+    /**
+     * @param result 为 null 时找到第一个魔法方块即停止
+     * @return 是否找到魔法方块
+     */
+    private boolean scanMagicBlocks(Collection<Block> blocks, List<Block> result) {
+        if (blocks.isEmpty()) return false;
+
+        World lastWorld = null;
+        WorldIndex index = null;
+        // 区块级过滤：连续方块通常落在同一区块，先比较上一个区块，再查已确认为空的区块集合
+        boolean chunkResolved = false;
+        long lastChunk = 0;
+        boolean lastChunkHasBlocks = false;
+        LongHashSet emptyChunks = null;
+
+        int checked = 0;
+        int found = 0;
+        for (Block block : blocks) {
+            World world = block.getWorld();
+            if (world != lastWorld) {
+                lastWorld = world;
+                index = worldIndexes.get(world.getUID());
+                if (index != null && index.isEmpty()) index = null;
+                chunkResolved = false;
+                emptyChunks = null;
+            }
+            if (index == null) continue;
+
+            int x = block.getX();
+            int z = block.getZ();
+            long chunkKey = BlockKey.chunkKey(x >> 4, z >> 4);
+            if (!chunkResolved || chunkKey != lastChunk) {
+                chunkResolved = true;
+                lastChunk = chunkKey;
+                if (emptyChunks != null && emptyChunks.contains(chunkKey)) {
+                    lastChunkHasBlocks = false;
+                } else {
+                    lastChunkHasBlocks = index.hasChunk(chunkKey);
+                    if (!lastChunkHasBlocks) {
+                        if (emptyChunks == null) emptyChunks = new LongHashSet();
+                        emptyChunks.add(chunkKey);
+                    }
+                }
+            }
+            if (!lastChunkHasBlocks) continue;
+
+            checked++;
+            if (index.contains(x, block.getY(), z)) {
+                found++;
+                if (result == null) break;
+                result.add(block);
+            }
+        }
+
+        totalLookups.add(checked);
+        cacheHits.add(found);
+        cacheMisses.add(checked - found);
+        return found > 0;
     }
     
     /**
      * 获取区块中的所有魔法方块位置
+     * 兼容旧接口：返回 "world,x,y,z" 格式的字符串集合
      */
     public Set<String> getMagicBlocksInChunk(Location location) {
-        String chunkKey = getChunkKey(location);
-        Set<String> chunkBlocks = chunkMagicBlocks.get(chunkKey);
-        return chunkBlocks != null ? new HashSet<>(chunkBlocks) : new HashSet<>();
+        Set<String> result = new HashSet<>();
+        World world = location.getWorld();
+        if (world == null) return result;
+
+        WorldIndex index = worldIndexes.get(world.getUID());
+        if (index == null) return result;
+
+        long chunkKey = BlockKey.chunkKey(location.getBlockX() >> 4, location.getBlockZ() >> 4);
+        for (long blockKey : index.snapshotChunk(chunkKey)) {
+            result.add(serializeKey(world.getName(), blockKey));
+        }
+        return result;
     }
     
     /**
      * 获取性能统计信息
      */
     public Map<String, Object> getPerformanceStats() {
+        int totalBlocks = 0;
+        int totalChunks = 0;
+        int totalSections = 0;
+        int pendingChunks = 0;
+        int knownBlocks = 0;
+        int evictedChunks = 0;
+        int totalShards = 0;
+        int totalWorlds = 0;
+        for (WorldIndex index : worldIndexes.values()) {
+            int size = index.size();
+            totalBlocks += size;
+            totalChunks += index.chunkCount();
+            totalSections += index.sectionCount();
+            pendingChunks += index.pendingChunkCount();
+            knownBlocks += index.knownSize();
+            evictedChunks += index.evictedChunkCount();
+            totalShards += index.shardCount();
+            if (size > 0) {
+                totalWorlds++;
+            }
+        }
+
         Map<String, Object> stats = new HashMap<>();
-        stats.put("totalMagicBlocks", globalMagicBlockIndex.size());
-        stats.put("totalChunks", chunkMagicBlocks.size());
-        stats.put("totalWorlds", worldsWithMagicBlocks.size());
-        stats.put("totalLookups", totalLookups);
-        stats.put("cacheHits", cacheHits);
-        stats.put("cacheMisses", cacheMisses);
+        stats.put("totalMagicBlocks", totalBlocks);
+        stats.put("totalChunks", totalChunks);
+        stats.put("totalSections", totalSections);
+        stats.put("pendingChunks", pendingChunks);
+        stats.put("knownMagicBlocks", knownBlocks);
+        stats.put("evictedChunks", evictedChunks);
+        stats.put("totalShards", totalShards);
+        stats.put("sweepActive", sweeping);
+        stats.put("sweepProgress", sweeping && sweepTotalChunks > 0
+            ? Math.min(100.0, (double) sweepDoneChunks / sweepTotalChunks * 100) : 100.0);
+        stats.put("sweepCompleted", completedSweeps);
+        stats.put("sweepChecked", sweepChecked.sum());
+        stats.put("sweepRemoved", sweepRemoved.sum());
+        stats.put("sweepThroughput", lastSweepThroughput);
+        stats.put("lastSweepMillis", lastSweepMillis);
+        stats.put("totalWorlds", totalWorlds);
+        long lookups = totalLookups.sum();
+        long hits = cacheHits.sum();
+        stats.put("totalLookups", lookups);
+        stats.put("cacheHits", hits);
+        stats.put("cacheMisses", cacheMisses.sum());
+        stats.put("pdcWrites", pdcWrites.sum());
+        stats.put("coalescedWrites", coalescedWrites.sum());
         
-        double hitRate = totalLookups > 0 ? (double) cacheHits / totalLookups * 100 : 0;
+        double hitRate = lookups > 0 ? (double) hits / lookups * 100 : 0;
         stats.put("cacheHitRate", hitRate);
         
         return stats;
     }
     
     // 辅助方法
+    private boolean indexBlock(World world, int x, int y, int z) {
+        WorldIndex index = worldIndexes.computeIfAbsent(world.getUID(), uid -> new WorldIndex());
+        return index.add(x, y, z);
+    }
+
     private String serializeLocation(Location loc) {
         return loc.getWorld().getName() + "," +
                loc.getBlockX() + "," +
                loc.getBlockY() + "," +
                loc.getBlockZ();
     }
-    
-    private String getChunkKey(Location loc) {
-        return loc.getWorld().getName() + "_" + loc.getChunk().getX() + "_" + loc.getChunk().getZ();
+
+    private String serializeKey(String worldName, long blockKey) {
+        return worldName + "," +
+               BlockKey.unpackX(blockKey) + "," +
+               BlockKey.unpackY(blockKey) + "," +
+               BlockKey.unpackZ(blockKey);
     }
     
-    private void checkAndCleanupWorld(String worldName) {
-        // 检查世界是否还有魔法方块
-        boolean hasBlocks = chunkMagicBlocks.keySet().stream()
-                .anyMatch(chunkKey -> chunkKey.startsWith(worldName + "_"));
-        
-        if (!hasBlocks) {
-            worldsWithMagicBlocks.remove(worldName);
+    /**
+     * 标记区块待写回，并在区块首次变脏时调度一次写回
+     * 同一区块在写回前的后续修改只计入合并次数
+     */
+    private void markChunkDirty(World world, int chunkX, int chunkZ) {
+        WorldIndex index = worldIndexes.get(world.getUID());
+        if (index == null) return;
+
+        if (!index.markDirty(BlockKey.chunkKey(chunkX, chunkZ))) {
+            coalescedWrites.increment();
+            return;
         }
+
+        Location chunkLocation = new Location(world, chunkX << 4, 0, chunkZ << 4);
+        plugin.getFoliaLib().getScheduler().runAtLocationLater(chunkLocation, () -> {
+            if (world.isChunkLoaded(chunkX, chunkZ)) {
+                flushChunk(world.getChunkAt(chunkX, chunkZ));
+            }
+        }, 1L);
     }
-    
-    private void saveToPersistentStorage(Location location, ItemStack magicBlock) {
-        // 保存到区块的持久化数据中
-        String locationString = serializeLocation(location);
-        PersistentDataContainer container = location.getChunk().getPersistentDataContainer();
-        
-        // 获取现有的位置列表
-        String existingData = container.get(magicBlockKey, PersistentDataType.STRING);
-        Set<String> locations = new HashSet<>();
-        
-        if (existingData != null && !existingData.isEmpty()) {
-            locations.addAll(Arrays.asList(existingData.split(";")));
+
+    /**
+     * 将区块的内存索引写回 PDC（必须在区块所属线程调用）
+     */
+    private void flushChunk(Chunk chunk) {
+        WorldIndex index = worldIndexes.get(chunk.getWorld().getUID());
+        if (index == null) return;
+
+        int[] positions = index.takeDirty(BlockKey.chunkKey(chunk.getX(), chunk.getZ()));
+        if (positions == null) return;
+
+        PersistentDataContainer container = chunk.getPersistentDataContainer();
+        if (positions.length == 0) {
+            container.remove(positionsKey);
+        } else {
+            container.set(positionsKey, PersistentDataType.INTEGER_ARRAY, positions);
         }
-        
-        locations.add(locationString);
-        
-        // 保存更新后的位置列表
-        String joinedLocations = String.join(";", locations);
-        container.set(magicBlockKey, PersistentDataType.STRING, joinedLocations);
+        container.remove(legacyLocationKey);
+        pdcWrites.increment();
     }
-    
-    private void removeFromPersistentStorage(Location location) {
-        String locationString = serializeLocation(location);
-        PersistentDataContainer container = location.getChunk().getPersistentDataContainer();
-        
-        String existingData = container.get(magicBlockKey, PersistentDataType.STRING);
-        if (existingData == null) return;
-        
-        Set<String> locations = new HashSet<>(Arrays.asList(existingData.split(";")));
-        locations.remove(locationString);
-        
-        if (locations.isEmpty()) {
-            container.remove(magicBlockKey);
+
+    /**
+     * 写回所有待写回的区块，只在插件关闭时调用（重载见 {@link #reload()}）
+     * Folia 关闭时已无法再调度区域任务，直接在当前线程逐个区块尝试写入；
+     * 服务端拒绝访问的区块（关闭前最后一 tick 内的修改）会被跳过并记录警告
+     */
+    public void flushAll() {
+        boolean folia = plugin.getFoliaLib().isFolia();
+        int failed = 0;
+        for (Map.Entry<UUID, WorldIndex> entry : worldIndexes.entrySet()) {
+            World world = Bukkit.getWorld(entry.getKey());
+            if (world == null) continue;
+            if (!folia) {
+                flushWorld(world, entry.getValue());
+                continue;
+            }
+            for (long chunkKey : entry.getValue().snapshotDirty()) {
+                int chunkX = BlockKey.chunkX(chunkKey);
+                int chunkZ = BlockKey.chunkZ(chunkKey);
+                try {
+                    if (world.isChunkLoaded(chunkX, chunkZ)) {
+                        flushChunk(world.getChunkAt(chunkX, chunkZ));
+                    }
+                } catch (RuntimeException e) {
+                    failed++;
+                }
+            }
+        }
+        if (failed > 0) {
+            plugin.getLogger().warning("Folia 关闭时有 " + failed + " 个区块的魔法方块索引未能写回，"
+                + "这些区块中最后一 tick 内放置的魔法方块在重启后将不再被识别");
+        }
+    }
+
+    private void flushWorld(World world, WorldIndex index) {
+        for (long chunkKey : index.snapshotDirty()) {
+            int chunkX = BlockKey.chunkX(chunkKey);
+            int chunkZ = BlockKey.chunkZ(chunkKey);
+            if (world.isChunkLoaded(chunkX, chunkZ)) {
+                flushChunk(world.getChunkAt(chunkX, chunkZ));
+            }
+        }
+    }
+
+    /**
+     * 读取区块 PDC 中的魔法方块相对坐标
+     * 如果存在旧版字符串数据，会在此处一次性升级为二进制格式
+     */
+    private int[] readPositions(Chunk chunk, PersistentDataContainer container) {
+        int[] positions = container.get(positionsKey, PersistentDataType.INTEGER_ARRAY);
+        if (container.has(legacyLocationKey, PersistentDataType.STRING)) {
+            positions = upgradeLegacyData(chunk, container, positions);
+        }
+        return positions != null ? positions : new int[0];
+    }
+
+    /**
+     * 🔧 数据升级：将旧版 "world,x,y,z;..." 字符串转换为区块内相对坐标数组
+     */
+    private int[] upgradeLegacyData(Chunk chunk, PersistentDataContainer container, int[] existing) {
+        String legacyData = container.get(legacyLocationKey, PersistentDataType.STRING);
+        Set<Integer> merged = new LinkedHashSet<>();
+        if (existing != null) {
+            for (int local : existing) {
+                merged.add(local);
+            }
+        }
+
+        String worldName = chunk.getWorld().getName();
+        if (legacyData != null && !legacyData.isEmpty()) {
+            for (String locationStr : legacyData.split(";")) {
+                try {
+                    String[] parts = locationStr.split(",");
+                    if (parts.length != 4 || !parts[0].equals(worldName)) continue;
+
+                    int x = Integer.parseInt(parts[1]);
+                    int y = Integer.parseInt(parts[2]);
+                    int z = Integer.parseInt(parts[3]);
+                    if (x >> 4 != chunk.getX() || z >> 4 != chunk.getZ()) continue;
+
+                    merged.add(BlockKey.packLocal(x, y, z));
+                } catch (NumberFormatException e) {
+                    plugin.debug("升级区块魔法方块数据时跳过无效位置: " + locationStr);
+                }
+            }
+        }
+
+        int[] positions = new int[merged.size()];
+        int i = 0;
+        for (int local : merged) {
+            positions[i++] = local;
+        }
+
+        if (positions.length > 0) {
+            container.set(positionsKey, PersistentDataType.INTEGER_ARRAY, positions);
         } else {
-            String joinedLocations = String.join(";", locations);
-            container.set(magicBlockKey, PersistentDataType.STRING, joinedLocations);
+            container.remove(positionsKey);
         }
+        container.remove(legacyLocationKey);
+
+        plugin.debug("区块 " + chunk.getX() + "," + chunk.getZ() + " 的魔法方块数据已升级为二进制格式 (" + positions.length + " 个)");
+        return positions;
     }
-    
+
     private void loadExistingMagicBlocks() {
         plugin.getLogger().info("正在加载现有魔法方块索引...");
         
         int loadedCount = 0;
         for (World world : Bukkit.getWorlds()) {
             for (Chunk chunk : world.getLoadedChunks()) {
-                PersistentDataContainer container = chunk.getPersistentDataContainer();
-                String locationsData = container.get(magicBlockKey, PersistentDataType.STRING);
-                
-                if (locationsData != null && !locationsData.isEmpty()) {
-                    String[] locations = locationsData.split(";");
-                    for (String locationStr : locations) {
-                        try {
-                            String[] parts = locationStr.split(",");
-                            if (parts.length == 4) {
-                                World locWorld = Bukkit.getWorld(parts[0]);
-                                if (locWorld != null) {
-                                    Location loc = new Location(locWorld, 
-                                        Integer.parseInt(parts[1]),
-                                        Integer.parseInt(parts[2]),
-                                        Integer.parseInt(parts[3]));
-                                    
-                                    // 验证方块是否仍然存在
-                                    Block block = loc.getBlock();
-                                    if (!block.getType().isAir()) {
-                                        // 添加到索引（不触发持久化）
-                                        String locationKey = serializeLocation(loc);
-                                        String chunkKey = getChunkKey(loc);
-                                        
-                                        globalMagicBlockIndex.add(locationKey);
-                                        chunkMagicBlocks.computeIfAbsent(chunkKey, k -> ConcurrentHashMap.newKeySet())
-                                                       .add(locationKey);
-                                        worldsWithMagicBlocks.add(world.getName());
-                                        
-                                        loadedCount++;
-                                    }
-                                }
-                            }
-                        } catch (Exception e) {
-                            plugin.debug("加载魔法方块位置时出错: " + locationStr + " - " + e.getMessage());
-                        }
-                    }
-                }
+                loadedCount += loadMagicBlocksFromChunk(chunk);
             }
         }
         
-        plugin.getLogger().info("已加载 " + loadedCount + " 个魔法方块到索引中");
+        plugin.getLogger().info("已读取 " + loadedCount + " 个魔法方块位置，正在后台校验");
     }
     
     private void startCleanupTask() {
-        // 每5分钟清理一次无效的索引
-        plugin.getFoliaLib().getScheduler().runTimer(() -> {
-            cleanupInvalidEntries();
-        }, 6000L, 6000L); // 5分钟 = 6000 ticks
+        // 每 tick 推进一小段增量清理，每轮清理间隔由配置决定
+        plugin.getFoliaLib().getScheduler().runTimer(this::cleanupStep, 20L, 1L);
     }
-    
-    private void cleanupInvalidEntries() {
-        plugin.debug("开始清理无效的魔法方块索引...");
-        
+
+    /**
+     * 增量清理：按游标逐个区块校验，每 tick 受条目数和耗时双重限制
+     * 只处理当前已加载的区块，不会因为清理而触发区块加载
+     */
+    private void cleanupStep() {
+        if (!sweeping) {
+            if (System.currentTimeMillis() < nextSweepAt) return;
+            beginSweep();
+        }
+
+        PerformanceSettings settings = plugin.getPerformanceSettings();
+        int entryBudget = settings.getCleanupEntriesPerTick();
+        long nanoBudget = settings.getCleanupNanosPerTick();
+        boolean folia = plugin.getFoliaLib().isFolia();
+
+        long start = System.nanoTime();
+        int checked = 0;
+        while (checked < entryBudget && System.nanoTime() - start < nanoBudget) {
+            if (sweepChunkIndex >= sweepChunks.length && !advanceSweepWorld()) {
+                finishSweep();
+                return;
+            }
+            if (sweepChunkIndex >= sweepChunks.length) continue;
+
+            long chunkKey = sweepChunks[sweepChunkIndex++];
+            sweepDoneChunks++;
+
+            World world = Bukkit.getWorld(sweepWorld);
+            WorldIndex index = worldIndexes.get(sweepWorld);
+            if (world == null || index == null) {
+                // 世界在清理过程中被卸载，跳过剩余区块
+                sweepDoneChunks += sweepChunks.length - sweepChunkIndex;
+                sweepChunkIndex = sweepChunks.length;
+                continue;
+            }
+
+            if (folia) {
+                // Folia：清理任务运行在全局区域线程，区块的加载状态和方块数据只能在区块所属线程读取，
+                // 整个区块的校验（包括是否已加载）都提交到该线程；预算按区块条目数估算
+                checked += Math.max(1, index.chunkSize(chunkKey));
+                int chunkX = BlockKey.chunkX(chunkKey);
+                int chunkZ = BlockKey.chunkZ(chunkKey);
+                Location chunkLocation = new Location(world, chunkX << 4, 0, chunkZ << 4);
+                plugin.getFoliaLib().getScheduler().runAtLocation(chunkLocation, task ->
+                    validateChunk(world, index, chunkKey));
+            } else {
+                checked += validateChunk(world, index, chunkKey);
+            }
+        }
+    }
+
+    private void beginSweep() {
         int removedCount = 0;
-        Iterator<String> iterator = globalMagicBlockIndex.iterator();
-        
-        while (iterator.hasNext()) {
-            String locationKey = iterator.next();
-            try {
-                String[] parts = locationKey.split(",");
-                if (parts.length == 4) {
-                    World world = Bukkit.getWorld(parts[0]);
-                    if (world != null) {
-                        Location loc = new Location(world,
-                            Integer.parseInt(parts[1]),
-                            Integer.parseInt(parts[2]),
-                            Integer.parseInt(parts[3]));
-                        
-                        // 检查方块是否仍然存在
-                        if (loc.getBlock().getType().isAir()) {
-                            // 方块不存在，从索引中移除
-                            iterator.remove();
-                            
-                            // 同时从区块索引中移除
-                            String chunkKey = getChunkKey(loc);
-                            Set<String> chunkBlocks = chunkMagicBlocks.get(chunkKey);
-                            if (chunkBlocks != null) {
-                                chunkBlocks.remove(locationKey);
-                                if (chunkBlocks.isEmpty()) {
-                                    chunkMagicBlocks.remove(chunkKey);
-                                }
-                            }
-                            
-                            removedCount++;
-                        }
-                    }
-                }
-            } catch (Exception e) {
-                // 无效的位置格式，移除
-                iterator.remove();
+        for (Map.Entry<UUID, WorldIndex> entry : worldIndexes.entrySet()) {
+            if (Bukkit.getWorld(entry.getKey()) == null) {
+                // 世界已卸载，整个世界的索引失效
+                removedCount += entry.getValue().size();
+                worldIndexes.remove(entry.getKey());
+            }
+        }
+        if (removedCount > 0) {
+            plugin.debug("清理了已卸载世界的 " + removedCount + " 个魔法方块索引");
+        }
+
+        sweepWorlds.clear();
+        sweepWorlds.addAll(worldIndexes.keySet());
+        sweepTotalChunks = 0;
+        for (WorldIndex index : worldIndexes.values()) {
+            sweepTotalChunks += index.chunkCount();
+        }
+        sweepDoneChunks = 0;
+        sweepChunks = new long[0];
+        sweepChunkIndex = 0;
+        sweepStartedAt = System.currentTimeMillis();
+        sweepCheckedAtStart = sweepChecked.sum();
+        sweepRemovedAtStart = sweepRemoved.sum();
+        sweepNanosAtStart = sweepNanos.sum();
+        sweeping = true;
+    }
+
+    private boolean advanceSweepWorld() {
+        sweepWorld = sweepWorlds.poll();
+        if (sweepWorld == null) return false;
+
+        WorldIndex index = worldIndexes.get(sweepWorld);
+        sweepChunks = index != null ? index.residentChunkKeys() : new long[0];
+        sweepChunkIndex = 0;
+        return true;
+    }
+
+    private void finishSweep() {
+        sweeping = false;
+        sweepWorld = null;
+        sweepChunks = new long[0];
+        completedSweeps++;
+
+        long now = System.currentTimeMillis();
+        long interval = plugin.getPerformanceSettings().getCleanupIntervalMillis();
+        nextSweepAt = sweepStartedAt + interval;
+        lastSweepMillis = now - sweepStartedAt;
+
+        long checked = sweepChecked.sum() - sweepCheckedAtStart;
+        long removed = sweepRemoved.sum() - sweepRemovedAtStart;
+        long nanos = sweepNanos.sum() - sweepNanosAtStart;
+        lastSweepThroughput = nanos > 0 ? checked * 1_000_000_000L / nanos : 0;
+
+        if (removed > 0) {
+            plugin.debug("清理了 " + removed + " 个无效的魔法方块索引（校验 " + checked + " 个，耗时 " + lastSweepMillis + "ms）");
+        }
+
+        enforceResidentChunkLimit();
+    }
+
+    /**
+     * 校验单个已加载区块中的魔法方块（必须在区块所属线程调用）
+     * @return 校验的条目数
+     */
+    private int validateChunk(World world, WorldIndex index, long chunkKey) {
+        int chunkX = BlockKey.chunkX(chunkKey);
+        int chunkZ = BlockKey.chunkZ(chunkKey);
+        if (!world.isChunkLoaded(chunkX, chunkZ)) return 0;
+
+        long start = System.nanoTime();
+        Chunk chunk = world.getChunkAt(chunkX, chunkZ);
+        long[] blockKeys = index.snapshotResidentChunk(chunkKey);
+        int removedCount = 0;
+        for (long blockKey : blockKeys) {
+            int x = BlockKey.unpackX(blockKey);
+            int y = BlockKey.unpackY(blockKey);
+            int z = BlockKey.unpackZ(blockKey);
+            // 检查方块是否仍然存在
+            if (chunk.getBlock(x & 15, y, z & 15).getType().isAir() && index.remove(x, y, z)) {
                 removedCount++;
             }
         }
-        
+
         if (removedCount > 0) {
-            plugin.debug("清理了 " + removedCount + " 个无效的魔法方块索引");
+            // 方块不存在，从索引中移除后写回区块数据
+            markChunkDirty(world, chunkX, chunkZ);
+            sweepRemoved.add(removedCount);
+        }
+        sweepChecked.add(blockKeys.length);
+        sweepNanos.add(System.nanoTime() - start);
+        return blockKeys.length;
+    }
+
+    /**
+     * 常驻区块数超过上限时，回收已经不在加载状态的区块（例如错过了卸载事件）
+     * 已加载区块的数据必须常驻，否则查找会返回错误结果，因此上限只是保护性的
+     */
+    private void enforceResidentChunkLimit() {
+        int maxResidentChunks = plugin.getPerformanceSettings().getMaxResidentChunks();
+        if (maxResidentChunks <= 0) return;
+
+        int residentChunks = 0;
+        for (WorldIndex index : worldIndexes.values()) {
+            residentChunks += index.chunkCount();
+        }
+        if (residentChunks <= maxResidentChunks) return;
+
+        boolean folia = plugin.getFoliaLib().isFolia();
+        int evictedChunks = 0;
+        for (Map.Entry<UUID, WorldIndex> entry : worldIndexes.entrySet()) {
+            World world = Bukkit.getWorld(entry.getKey());
+            if (world == null) continue;
+
+            WorldIndex index = entry.getValue();
+            for (long chunkKey : index.residentChunkKeys()) {
+                int chunkX = BlockKey.chunkX(chunkKey);
+                int chunkZ = BlockKey.chunkZ(chunkKey);
+                if (folia) {
+                    // Folia：加载状态只能在区块所属线程读取，回收结果在下一轮清理时计入
+                    Location chunkLocation = new Location(world, chunkX << 4, 0, chunkZ << 4);
+                    plugin.getFoliaLib().getScheduler().runAtLocation(chunkLocation, task -> {
+                        if (!world.isChunkLoaded(chunkX, chunkZ)) {
+                            index.evict(chunkKey);
+                        }
+                    });
+                } else if (!world.isChunkLoaded(chunkX, chunkZ) && index.evict(chunkKey) >= 0) {
+                    residentChunks--;
+                    evictedChunks++;
+                }
+            }
+        }
+        if (folia) return;
+
+        if (evictedChunks > 0) {
+            plugin.debug("回收了 " + evictedChunks + " 个未加载的魔法方块区块");
+        }
+        if (residentChunks > maxResidentChunks) {
+            plugin.getLogger().warning("魔法方块索引常驻区块数 (" + residentChunks + ") 超过上限 ("
+                + maxResidentChunks + ")，这些区块仍处于加载状态，无法回收");
         }
     }
     
     /**
      * 重载索引系统
+     * Folia 下命令线程无法访问区域线程拥有的区块，改为逐个区块在其所属线程重建，见 {@link #reloadOnRegions()}
      */
     public void reload() {
         plugin.getLogger().info("重载魔法方块索引系统...");
 
-        // 清空现有索引
-        globalMagicBlockIndex.clear();
-        chunkMagicBlocks.clear();
-        worldsWithMagicBlocks.clear();
+        if (plugin.getFoliaLib().isFolia()) {
+            int scheduled = reloadOnRegions();
+            plugin.getLogger().info("魔法方块索引系统重载已提交到各区域线程 (" + scheduled + " 个区块)");
+            return;
+        }
+
+        // 写回尚未持久化的修改，然后清空现有索引
+        flushAll();
+        worldIndexes.clear();
 
         // 重新加载
         loadExistingMagicBlocks();
@@ -364,6 +799,49 @@ public class MagicBlockIndexManager implements Listener {
         plugin.getLogger().info("魔法方块索引系统重载完成");
     }
 
+    /**
+     * Folia 重载：不整体清空索引，每个常驻或待写回的区块在其所属线程上依次写回、回收、重新读取；
+     * 三步在同一个任务里完成，期间该区块的修改只会发生在同一线程上，待写回的修改不会丢失
+     * 未加载的区块在卸载时已经写回，只回收，下次加载时从区块数据恢复
+     * @return 提交的区块数
+     */
+    private int reloadOnRegions() {
+        int scheduled = 0;
+        for (Map.Entry<UUID, WorldIndex> entry : worldIndexes.entrySet()) {
+            World world = Bukkit.getWorld(entry.getKey());
+            if (world == null) continue;
+
+            WorldIndex index = entry.getValue();
+            LongHashSet chunkKeys = new LongHashSet();
+            for (long chunkKey : index.residentChunkKeys()) {
+                chunkKeys.add(chunkKey);
+            }
+            // 最后一个方块被移除的区块已不在常驻集合中，但仍需写回
+            for (long chunkKey : index.snapshotDirty()) {
+                chunkKeys.add(chunkKey);
+            }
+
+            for (long chunkKey : chunkKeys.toArray()) {
+                int chunkX = BlockKey.chunkX(chunkKey);
+                int chunkZ = BlockKey.chunkZ(chunkKey);
+                Location chunkLocation = new Location(world, chunkX << 4, 0, chunkZ << 4);
+                plugin.getFoliaLib().getScheduler().runAtLocation(chunkLocation, task -> {
+                    if (!world.isChunkLoaded(chunkX, chunkZ)) {
+                        index.evict(chunkKey);
+                        return;
+                    }
+                    Chunk chunk = world.getChunkAt(chunkX, chunkZ);
+                    flushChunk(chunk);
+                    if (index.evict(chunkKey) >= 0) {
+                        loadMagicBlocksFromChunk(chunk);
+                    }
+                });
+                scheduled++;
+            }
+        }
+        return scheduled;
+    }
+
     /**
      * 🔧 修复：监听区块加载事件，自动恢复魔法方块索引
      * 解决服务器重启后魔法方块会掉落的问题
@@ -371,66 +849,131 @@ public class MagicBlockIndexManager implements Listener {
     @EventHandler
     public void onChunkLoad(ChunkLoadEvent event) {
         Chunk chunk = event.getChunk();
-        String chunkKey = chunk.getWorld().getName() + "_" + chunk.getX() + "_" + chunk.getZ();
 
         // 检查该区块是否已经在索引中
-        if (chunkMagicBlocks.containsKey(chunkKey)) {
+        if (chunkHasMagicBlocks(chunk.getWorld(), chunk.getX(), chunk.getZ())) {
             return; // 已经加载过了
         }
 
-        // 从PCD中恢复魔法方块索引
+        // 从PCD中恢复魔法方块索引（解码和校验延后执行）
         loadMagicBlocksFromChunk(chunk);
     }
 
+    /**
+     * 区块卸载前写回尚未持久化的修改，然后从内存中回收
+     * 数据已在区块 PDC 中，区块再次加载时会重新恢复
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkUnload(ChunkUnloadEvent event) {
+        Chunk chunk = event.getChunk();
+        flushChunk(chunk);
+
+        if (!plugin.getPerformanceSettings().isEvictOnUnload()) {
+            return;
+        }
+
+        WorldIndex index = worldIndexes.get(chunk.getWorld().getUID());
+        if (index != null) {
+            index.evict(BlockKey.chunkKey(chunk.getX(), chunk.getZ()));
+        }
+    }
+
+    /**
+     * 世界保存时写回该世界所有待写回的区块
+     */
+    @EventHandler
+    public void onWorldSave(WorldSaveEvent event) {
+        World world = event.getWorld();
+        WorldIndex index = worldIndexes.get(world.getUID());
+        if (index == null) return;
+
+        if (!plugin.getFoliaLib().isFolia()) {
+            flushWorld(world, index);
+            return;
+        }
+
+        // Folia：每个区块在其所属区域线程写回
+        for (long chunkKey : index.snapshotDirty()) {
+            int chunkX = BlockKey.chunkX(chunkKey);
+            int chunkZ = BlockKey.chunkZ(chunkKey);
+            Location chunkLocation = new Location(world, chunkX << 4, 0, chunkZ << 4);
+            plugin.getFoliaLib().getScheduler().runAtLocation(chunkLocation, task -> {
+                if (world.isChunkLoaded(chunkX, chunkZ)) {
+                    flushChunk(world.getChunkAt(chunkX, chunkZ));
+                }
+            });
+        }
+    }
+
     /**
      * 从指定区块的PCD中加载魔法方块索引
+     * 事件线程只读取原始数组并登记为等待状态，查找在此期间直接扫描原始数组；
+     * 解码在异步线程完成，方块校验在区块所属线程的下一 tick 批量执行
+     * @return 登记的魔法方块位置数量
      */
-    private void loadMagicBlocksFromChunk(Chunk chunk) {
+    private int loadMagicBlocksFromChunk(Chunk chunk) {
         PersistentDataContainer container = chunk.getPersistentDataContainer();
-        String locationsData = container.get(magicBlockKey, PersistentDataType.STRING);
+        int[] positions = readPositions(chunk, container);
+        if (positions.length == 0) {
+            return 0;
+        }
+
+        World world = chunk.getWorld();
+        int chunkX = chunk.getX();
+        int chunkZ = chunk.getZ();
+        long chunkKey = BlockKey.chunkKey(chunkX, chunkZ);
+        WorldIndex index = worldIndexes.computeIfAbsent(world.getUID(), uid -> new WorldIndex());
+        PendingChunk pending = new PendingChunk(positions);
+        if (!index.addPending(chunkKey, pending)) {
+            return 0;
+        }
 
-        if (locationsData != null && !locationsData.isEmpty()) {
-            String[] locations = locationsData.split(";");
-            int loadedCount = 0;
+        plugin.getFoliaLib().getScheduler().runAsync(task -> {
+            // 异步解码为位图
+            ChunkMagicBlocks decoded = new ChunkMagicBlocks(chunkX, chunkZ);
+            for (int local : positions) {
+                decoded.add(BlockKey.localX(chunkX, local), BlockKey.localY(local), BlockKey.localZ(chunkZ, local));
+            }
 
-            for (String locationStr : locations) {
-                try {
-                    String[] parts = locationStr.split(",");
-                    if (parts.length == 4) {
-                        World world = Bukkit.getWorld(parts[0]);
-                        if (world != null) {
-                            Location loc = new Location(world,
-                                Integer.parseInt(parts[1]),
-                                Integer.parseInt(parts[2]),
-                                Integer.parseInt(parts[3]));
-
-                            // 验证方块是否仍然存在
-                            Block block = loc.getBlock();
-                            if (!block.getType().isAir()) {
-                                // 添加到索引（不触发持久化）
-                                String locationKey = serializeLocation(loc);
-                                String chunkKey = getChunkKey(loc);
-
-                                globalMagicBlockIndex.add(locationKey);
-                                chunkMagicBlocks.computeIfAbsent(chunkKey, k -> ConcurrentHashMap.newKeySet())
-                                               .add(locationKey);
-                                worldsWithMagicBlocks.add(world.getName());
-
-                                loadedCount++;
-                            } else {
-                                // 方块不存在，从PCD中清理
-                                plugin.debug("清理不存在的魔法方块: " + locationStr);
-                            }
-                        }
-                    }
-                } catch (Exception e) {
-                    plugin.debug("加载区块魔法方块位置时出错: " + locationStr + " - " + e.getMessage());
+            Location chunkLocation = new Location(world, chunkX << 4, 0, chunkZ << 4);
+            plugin.getFoliaLib().getScheduler().runAtLocation(chunkLocation, validateTask ->
+                completeChunkLoad(world, chunkKey, pending, decoded));
+        });
+        return positions.length;
+    }
+
+    /**
+     * 在区块所属线程校验解码结果，然后替换等待中的数据
+     */
+    private void completeChunkLoad(World world, long chunkKey, PendingChunk pending, ChunkMagicBlocks decoded) {
+        WorldIndex index = worldIndexes.get(world.getUID());
+        if (index == null) return;
+
+        int chunkX = BlockKey.chunkX(chunkKey);
+        int chunkZ = BlockKey.chunkZ(chunkKey);
+        int staleCount = 0;
+        if (world.isChunkLoaded(chunkX, chunkZ)) {
+            Chunk chunk = world.getChunkAt(chunkX, chunkZ);
+            for (int local : decoded.toLocalPositions()) {
+                int y = BlockKey.localY(local);
+                // 验证方块是否仍然存在
+                if (chunk.getBlock(local & 15, y, (local >> 4) & 15).getType().isAir()) {
+                    decoded.remove(BlockKey.localX(chunkX, local), y, BlockKey.localZ(chunkZ, local));
+                    staleCount++;
                 }
             }
+        }
 
-            if (loadedCount > 0) {
-                plugin.debug("从区块 " + chunk.getX() + "," + chunk.getZ() + " 恢复了 " + loadedCount + " 个魔法方块");
-            }
+        int loadedCount = index.completePending(chunkKey, pending, decoded);
+        if (loadedCount < 0) return;
+
+        if (staleCount > 0) {
+            // PDC 中有已不存在的方块，写回一次以清理
+            plugin.debug("区块 " + chunkX + "," + chunkZ + " 清理了 " + staleCount + " 个不存在的魔法方块");
+            markChunkDirty(world, chunkX, chunkZ);
+        }
+        if (loadedCount > 0) {
+            plugin.debug("从区块 " + chunkX + "," + chunkZ + " 恢复了 " + loadedCount + " 个魔法方块");
         }
     }
 }
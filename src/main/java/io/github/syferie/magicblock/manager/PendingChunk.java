@@ -0,0 +1,36 @@
+package io.github.syferie.magicblock.manager;
+
+import io.github.syferie.magicblock.util.LongHashSet;
+
+/**
+ * 区块加载后尚未完成解码和校验的魔法方块数据
+ * 在校验完成前，查找直接线性扫描原始数组
+ */
+final class PendingChunk {
+    final int[] positions;
+    // 等待期间被移除的相对坐标
+    final LongHashSet removed = new LongHashSet();
+    int live;
+
+    PendingChunk(int[] positions) {
+        this.positions = positions;
+        this.live = positions.length;
+    }
+
+    boolean contains(int local) {
+        for (int position : positions) {
+            if (position == local) {
+                return !removed.contains(local);
+            }
+        }
+        return false;
+    }
+
+    void collectLive(int[] target, int offset) {
+        for (int position : positions) {
+            if (!removed.contains(position)) {
+                target[offset++] = position;
+            }
+        }
+    }
+}
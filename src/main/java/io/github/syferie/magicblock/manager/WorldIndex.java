@@ -0,0 +1,210 @@
+package io.github.syferie.magicblock.manager;
+
+import io.github.syferie.magicblock.util.BlockKey;
+import io.github.syferie.magicblock.util.LongObjectHashMap;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * 单个世界的魔法方块索引
+ * 按区域（16x16 区块）分片，每个分片有独立的锁，Folia 各区域线程基本只访问自己的分片
+ *
+ * 分片按固定坐标划分，与 Folia 运行时的区域合并/拆分无关：
+ * 区域合并后一个线程会访问多个分片，拆分后多个线程访问不同分片，正确性只依赖分片自身的锁
+ */
+final class WorldIndex {
+    // 分片大小 = 2^4 个区块，对应 Folia 默认的区域分段大小
+    private static final int SHARD_SHIFT = 4;
+
+    private final StampedLock shardLock = new StampedLock();
+    private final LongObjectHashMap<IndexShard> shards = new LongObjectHashMap<>();
+    // 世界级常驻魔法方块计数，由各分片在增删时同步维护，worldHasMagicBlocks 只需读取这一个值
+    private final AtomicInteger residentCount = new AtomicInteger();
+
+    static long shardKey(long chunkKey) {
+        return BlockKey.chunkKey(BlockKey.chunkX(chunkKey) >> SHARD_SHIFT, BlockKey.chunkZ(chunkKey) >> SHARD_SHIFT);
+    }
+
+    /**
+     * 查找分片（乐观读，常态下无锁）
+     */
+    private IndexShard shard(long chunkKey) {
+        long shardKey = shardKey(chunkKey);
+        long stamp = shardLock.tryOptimisticRead();
+        IndexShard shard = shards.get(shardKey);
+        if (!shardLock.validate(stamp)) {
+            stamp = shardLock.readLock();
+            try {
+                shard = shards.get(shardKey);
+            } finally {
+                shardLock.unlockRead(stamp);
+            }
+        }
+        return shard;
+    }
+
+    private IndexShard shardOrCreate(long chunkKey) {
+        IndexShard shard = shard(chunkKey);
+        if (shard != null) return shard;
+
+        long stamp = shardLock.writeLock();
+        try {
+            return shards.computeIfAbsent(shardKey(chunkKey), key -> new IndexShard(residentCount));
+        } finally {
+            shardLock.unlockWrite(stamp);
+        }
+    }
+
+    private List<IndexShard> allShards() {
+        long stamp = shardLock.readLock();
+        try {
+            return shards.values();
+        } finally {
+            shardLock.unlockRead(stamp);
+        }
+    }
+
+    boolean contains(int x, int y, int z) {
+        IndexShard shard = shard(BlockKey.chunkKey(x >> 4, z >> 4));
+        return shard != null && shard.contains(x, y, z);
+    }
+
+    boolean hasChunk(long chunkKey) {
+        IndexShard shard = shard(chunkKey);
+        return shard != null && shard.hasChunk(chunkKey);
+    }
+
+    boolean add(int x, int y, int z) {
+        return shardOrCreate(BlockKey.chunkKey(x >> 4, z >> 4)).add(x, y, z);
+    }
+
+    boolean remove(int x, int y, int z) {
+        IndexShard shard = shard(BlockKey.chunkKey(x >> 4, z >> 4));
+        return shard != null && shard.remove(x, y, z);
+    }
+
+    boolean addPending(long chunkKey, PendingChunk pending) {
+        return shardOrCreate(chunkKey).addPending(chunkKey, pending);
+    }
+
+    int completePending(long chunkKey, PendingChunk pending, ChunkMagicBlocks decoded) {
+        IndexShard shard = shard(chunkKey);
+        return shard != null ? shard.completePending(chunkKey, pending, decoded) : -1;
+    }
+
+    long[] snapshotChunk(long chunkKey) {
+        IndexShard shard = shard(chunkKey);
+        return shard != null ? shard.snapshotChunk(chunkKey) : new long[0];
+    }
+
+    long[] snapshotResidentChunk(long chunkKey) {
+        IndexShard shard = shard(chunkKey);
+        return shard != null ? shard.snapshotResidentChunk(chunkKey) : new long[0];
+    }
+
+    int chunkSize(long chunkKey) {
+        IndexShard shard = shard(chunkKey);
+        return shard != null ? shard.chunkSize(chunkKey) : 0;
+    }
+
+    boolean markDirty(long chunkKey) {
+        return shardOrCreate(chunkKey).markDirty(chunkKey);
+    }
+
+    int[] takeDirty(long chunkKey) {
+        IndexShard shard = shard(chunkKey);
+        return shard != null ? shard.takeDirty(chunkKey) : null;
+    }
+
+    int evict(long chunkKey) {
+        IndexShard shard = shard(chunkKey);
+        return shard != null ? shard.evict(chunkKey) : 0;
+    }
+
+    long[] residentChunkKeys() {
+        long[] result = new long[0];
+        for (IndexShard shard : allShards()) {
+            result = concat(result, shard.residentChunkKeys());
+        }
+        return result;
+    }
+
+    long[] snapshotDirty() {
+        long[] result = new long[0];
+        for (IndexShard shard : allShards()) {
+            result = concat(result, shard.snapshotDirty());
+        }
+        return result;
+    }
+
+    /**
+     * 常驻魔法方块数量（含等待校验的数据），O(1)
+     */
+    int size() {
+        return residentCount.get();
+    }
+
+    int knownSize() {
+        int size = 0;
+        for (IndexShard shard : allShards()) {
+            size += shard.knownSize();
+        }
+        return size;
+    }
+
+    int chunkCount() {
+        int count = 0;
+        for (IndexShard shard : allShards()) {
+            count += shard.chunkCount();
+        }
+        return count;
+    }
+
+    int pendingChunkCount() {
+        int count = 0;
+        for (IndexShard shard : allShards()) {
+            count += shard.pendingChunkCount();
+        }
+        return count;
+    }
+
+    int evictedChunkCount() {
+        int count = 0;
+        for (IndexShard shard : allShards()) {
+            count += shard.evictedChunkCount();
+        }
+        return count;
+    }
+
+    int sectionCount() {
+        int count = 0;
+        for (IndexShard shard : allShards()) {
+            count += shard.sectionCount();
+        }
+        return count;
+    }
+
+    int shardCount() {
+        long stamp = shardLock.readLock();
+        try {
+            return shards.size();
+        } finally {
+            shardLock.unlockRead(stamp);
+        }
+    }
+
+    boolean isEmpty() {
+        return residentCount.get() == 0;
+    }
+
+    private static long[] concat(long[] first, long[] second) {
+        if (first.length == 0) return second;
+        if (second.length == 0) return first;
+        long[] result = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+}
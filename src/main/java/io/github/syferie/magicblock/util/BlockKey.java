@@ -0,0 +1,75 @@
+package io.github.syferie.magicblock.util;
+
+/**
+ * 方块坐标打包工具
+ * 将方块坐标 (x, y, z) 打包为单个 long，作为索引的键，避免每次查找都拼接字符串
+ *
+ * 位布局（与原版 BlockPos 一致）：
+ * x: 26 位 | z: 26 位 | y: 12 位
+ * 覆盖 ±33554432 的水平范围和 -2048 ~ 2047 的高度范围
+ */
+public final class BlockKey {
+    private BlockKey() {}
+
+    private static final int XZ_BITS = 26;
+    private static final int Y_BITS = 12;
+    private static final long XZ_MASK = (1L << XZ_BITS) - 1;
+    private static final long Y_MASK = (1L << Y_BITS) - 1;
+    private static final int X_SHIFT = Y_BITS + XZ_BITS;
+    private static final int Z_SHIFT = Y_BITS;
+
+    public static long pack(int x, int y, int z) {
+        return ((x & XZ_MASK) << X_SHIFT) | ((z & XZ_MASK) << Z_SHIFT) | (y & Y_MASK);
+    }
+
+    public static int unpackX(long key) {
+        return (int) (key >> X_SHIFT);
+    }
+
+    public static int unpackY(long key) {
+        return (int) (key << (64 - Y_BITS) >> (64 - Y_BITS));
+    }
+
+    public static int unpackZ(long key) {
+        return (int) (key << (64 - X_SHIFT) >> (64 - XZ_BITS));
+    }
+
+    /**
+     * 区块键：chunkX 占高 32 位，chunkZ 占低 32 位
+     */
+    public static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    public static long chunkKeyOf(long blockKey) {
+        return chunkKey(unpackX(blockKey) >> 4, unpackZ(blockKey) >> 4);
+    }
+
+    public static int chunkX(long chunkKey) {
+        return (int) (chunkKey >> 32);
+    }
+
+    public static int chunkZ(long chunkKey) {
+        return (int) chunkKey;
+    }
+
+    /**
+     * 区块内相对坐标：y 占高位（保留符号），z、x 各占 4 位
+     * 用于区块 PDC 的二进制存储，世界和区块由所在区块隐含
+     */
+    public static int packLocal(int x, int y, int z) {
+        return (y << 8) | ((z & 15) << 4) | (x & 15);
+    }
+
+    public static int localX(int chunkX, int local) {
+        return (chunkX << 4) | (local & 15);
+    }
+
+    public static int localY(int local) {
+        return local >> 8;
+    }
+
+    public static int localZ(int chunkZ, int local) {
+        return (chunkZ << 4) | ((local >> 4) & 15);
+    }
+}
@@ -12,4 +12,9 @@ public final class Constants {
     // 数据键
     public static final String BLOCK_TIMES_KEY = "magicblock_usetimes";
     public static final String FOOD_TIMES_KEY = "magicfood_usetimes";
+
+    // 物品标记键（BYTE，值为 1），用于 O(1) 识别魔法方块/魔法食物
+    public static final String BLOCK_MARKER_KEY = "magicblock_marker";
+    public static final String FOOD_MARKER_KEY = "magicfood_marker";
+    public static final byte MARKER_VALUE = 1;
 } 
\ No newline at end of file
@@ -0,0 +1,91 @@
+package io.github.syferie.magicblock.util;
+
+import org.bukkit.ChatColor;
+import org.bukkit.configuration.file.FileConfiguration;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 物品显示相关配置的不可变快照（魔法 Lore、装饰 Lore、信息行开关）
+ * 颜色代码在构建时一次性转换，Lore 生成和魔法方块识别时直接使用
+ */
+public final class DisplaySettings {
+    private final String magicLore;
+    private final String strippedMagicLore;
+    private final String usageLorePrefix;
+    private final String blockNameFormat;
+    private final boolean decorativeLoreEnabled;
+    private final List<String> decorativeLoreLines;
+    private final boolean showBoundPlayer;
+    private final boolean showUsageCount;
+    private final boolean showProgressBar;
+
+    private DisplaySettings(FileConfiguration config) {
+        this.magicLore = ChatColor.translateAlternateColorCodes('&', config.getString("magic-lore", "&e⚡ &7MagicBlock"));
+        this.strippedMagicLore = ChatColor.stripColor(magicLore);
+        this.usageLorePrefix = config.getString("usage-lore-prefix", "Total times:");
+        this.blockNameFormat = config.getString("display.block-name-format", "&b✦ %s &b✦");
+        this.decorativeLoreEnabled = config.getBoolean("display.decorative-lore.enabled", true);
+
+        List<String> lines = new ArrayList<>();
+        for (String line : config.getStringList("display.decorative-lore.lines")) {
+            lines.add(ChatColor.translateAlternateColorCodes('&', line));
+        }
+        this.decorativeLoreLines = Collections.unmodifiableList(lines);
+
+        this.showBoundPlayer = config.getBoolean("display.show-info.bound-player", true);
+        this.showUsageCount = config.getBoolean("display.show-info.usage-count", true);
+        this.showProgressBar = config.getBoolean("display.show-info.progress-bar", true);
+    }
+
+    public static DisplaySettings load(FileConfiguration config) {
+        return new DisplaySettings(config);
+    }
+
+    /**
+     * 已转换颜色代码的魔法方块标识 Lore
+     */
+    public String getMagicLore() {
+        return magicLore;
+    }
+
+    /**
+     * 去除格式代码后的魔法方块标识 Lore
+     */
+    public String getStrippedMagicLore() {
+        return strippedMagicLore;
+    }
+
+    public String getUsageLorePrefix() {
+        return usageLorePrefix;
+    }
+
+    public String getBlockNameFormat() {
+        return blockNameFormat;
+    }
+
+    public boolean isDecorativeLoreEnabled() {
+        return decorativeLoreEnabled;
+    }
+
+    /**
+     * 已转换颜色代码的装饰 Lore（只读）
+     */
+    public List<String> getDecorativeLoreLines() {
+        return decorativeLoreLines;
+    }
+
+    public boolean isShowBoundPlayer() {
+        return showBoundPlayer;
+    }
+
+    public boolean isShowUsageCount() {
+        return showUsageCount;
+    }
+
+    public boolean isShowProgressBar() {
+        return showProgressBar;
+    }
+}
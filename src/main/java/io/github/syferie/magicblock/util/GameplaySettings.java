@@ -0,0 +1,40 @@
+package io.github.syferie.magicblock.util;
+
+import org.bukkit.configuration.file.FileConfiguration;
+
+/**
+ * 放置/破坏/绑定流程用到的玩法配置快照
+ */
+public final class GameplaySettings {
+    private final boolean bindingEnabled;
+    private final boolean allowUseBoundBlocks;
+    private final boolean removeDepletedBlocks;
+    private final int defaultBlockTimes;
+
+    private GameplaySettings(FileConfiguration config) {
+        this.bindingEnabled = config.getBoolean("enable-binding-system", true);
+        this.allowUseBoundBlocks = config.getBoolean("allow-use-bound-blocks", false);
+        this.removeDepletedBlocks = config.getBoolean("remove-depleted-blocks", false);
+        this.defaultBlockTimes = config.getInt("default-block-times", 100);
+    }
+
+    public static GameplaySettings load(FileConfiguration config) {
+        return new GameplaySettings(config);
+    }
+
+    public boolean isBindingEnabled() {
+        return bindingEnabled;
+    }
+
+    public boolean isAllowUseBoundBlocks() {
+        return allowUseBoundBlocks;
+    }
+
+    public boolean isRemoveDepletedBlocks() {
+        return removeDepletedBlocks;
+    }
+
+    public int getDefaultBlockTimes() {
+        return defaultBlockTimes;
+    }
+}
@@ -0,0 +1,188 @@
+package io.github.syferie.magicblock.util;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * 原始类型 long 开放寻址哈希集合
+ * 用于魔法方块索引的热路径，避免 Long 装箱和额外的对象分配
+ *
+ * 实现说明：
+ * 1. 线性探测 + 回移删除，不使用墓碑标记
+ * 2. 使用 0 作为空槽位标记，键 0 通过单独的标志位保存
+ * 3. 非线程安全，由调用方负责同步
+ */
+public final class LongHashSet {
+    private static final float LOAD_FACTOR = 0.5f;
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    private boolean containsZero;
+    private int size;
+    private int maxFill;
+
+    public LongHashSet() {
+        this(MIN_CAPACITY);
+    }
+
+    public LongHashSet(int expectedSize) {
+        int capacity = tableSizeFor(expectedSize);
+        this.keys = new long[capacity];
+        this.maxFill = (int) (capacity * LOAD_FACTOR);
+    }
+
+    public boolean add(long key) {
+        if (key == 0) {
+            if (containsZero) return false;
+            containsZero = true;
+            size++;
+            return true;
+        }
+
+        long[] table = keys;
+        int mask = table.length - 1;
+        int pos = mix(key) & mask;
+        long current;
+        while ((current = table[pos]) != 0) {
+            if (current == key) return false;
+            pos = (pos + 1) & mask;
+        }
+        table[pos] = key;
+
+        if (++size > maxFill) {
+            rehash(table.length << 1);
+        }
+        return true;
+    }
+
+    public boolean contains(long key) {
+        if (key == 0) return containsZero;
+
+        // 只读取一次数组引用，保证乐观读下不会越界
+        long[] table = keys;
+        int mask = table.length - 1;
+        int pos = mix(key) & mask;
+        for (int probes = 0; probes < table.length; probes++) {
+            long current = table[pos];
+            if (current == 0) return false;
+            if (current == key) return true;
+            pos = (pos + 1) & mask;
+        }
+        return false;
+    }
+
+    public boolean remove(long key) {
+        if (key == 0) {
+            if (!containsZero) return false;
+            containsZero = false;
+            size--;
+            return true;
+        }
+
+        long[] table = keys;
+        int mask = table.length - 1;
+        int pos = mix(key) & mask;
+        long current;
+        while ((current = table[pos]) != 0) {
+            if (current == key) {
+                size--;
+                shiftKeys(table, pos);
+                return true;
+            }
+            pos = (pos + 1) & mask;
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        containsZero = false;
+        size = 0;
+    }
+
+    public void forEach(LongConsumer action) {
+        if (containsZero) {
+            action.accept(0L);
+        }
+        for (long key : keys) {
+            if (key != 0) {
+                action.accept(key);
+            }
+        }
+    }
+
+    public long[] toArray() {
+        long[] result = new long[size];
+        int index = 0;
+        if (containsZero) {
+            result[index++] = 0L;
+        }
+        for (long key : keys) {
+            if (key != 0) {
+                result[index++] = key;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 回移删除：把后续探测链上的元素前移，填补被删除的位置
+     */
+    private void shiftKeys(long[] table, int pos) {
+        int mask = table.length - 1;
+        int last;
+        int slot;
+        long current;
+        for (;;) {
+            pos = ((last = pos) + 1) & mask;
+            for (;;) {
+                if ((current = table[pos]) == 0) {
+                    table[last] = 0;
+                    return;
+                }
+                slot = mix(current) & mask;
+                if (last <= pos ? last >= slot || slot > pos : last >= slot && slot > pos) break;
+                pos = (pos + 1) & mask;
+            }
+            table[last] = current;
+        }
+    }
+
+    private void rehash(int newCapacity) {
+        long[] oldTable = keys;
+        long[] newTable = new long[newCapacity];
+        int mask = newCapacity - 1;
+        for (long key : oldTable) {
+            if (key != 0) {
+                int pos = mix(key) & mask;
+                while (newTable[pos] != 0) {
+                    pos = (pos + 1) & mask;
+                }
+                newTable[pos] = key;
+            }
+        }
+        // 新表填充完成后再发布，乐观读只会看到完整的表
+        this.maxFill = (int) (newCapacity * LOAD_FACTOR);
+        this.keys = newTable;
+    }
+
+    static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 32;
+        return (int) (h ^ (h >>> 16));
+    }
+
+    static int tableSizeFor(int expectedSize) {
+        int needed = (int) Math.ceil(Math.max(expectedSize, 1) / LOAD_FACTOR);
+        int capacity = Integer.highestOneBit(Math.max(needed, MIN_CAPACITY) - 1) << 1;
+        return Math.max(capacity, MIN_CAPACITY);
+    }
+}
@@ -0,0 +1,246 @@
+package io.github.syferie.magicblock.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.LongFunction;
+
+/**
+ * 原始类型 long 键的开放寻址哈希表
+ * 用于区块键（chunkX/chunkZ 打包为 long）到区块数据的映射，查找时无装箱
+ *
+ * 与 {@link LongHashSet} 相同：线性探测、回移删除、键 0 单独保存，非线程安全
+ */
+public final class LongObjectHashMap<V> {
+    private static final float LOAD_FACTOR = 0.5f;
+
+    /**
+     * 键和值放在同一个对象里，扩容时一次性替换，保证乐观读看到的键值数组一致
+     */
+    private static final class Table {
+        final long[] keys;
+        final Object[] values;
+
+        Table(int capacity) {
+            this.keys = new long[capacity];
+            this.values = new Object[capacity];
+        }
+    }
+
+    /**
+     * 遍历回调
+     */
+    @FunctionalInterface
+    public interface EntryConsumer<V> {
+        void accept(long key, V value);
+    }
+
+    private Table table;
+    private boolean containsZero;
+    private Object zeroValue;
+    private int size;
+    private int maxFill;
+
+    public LongObjectHashMap() {
+        this(16);
+    }
+
+    public LongObjectHashMap(int expectedSize) {
+        int capacity = LongHashSet.tableSizeFor(expectedSize);
+        this.table = new Table(capacity);
+        this.maxFill = (int) (capacity * LOAD_FACTOR);
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        if (key == 0) return containsZero ? (V) zeroValue : null;
+
+        Table t = table;
+        long[] keys = t.keys;
+        int mask = keys.length - 1;
+        int pos = LongHashSet.mix(key) & mask;
+        for (int probes = 0; probes < keys.length; probes++) {
+            long current = keys[pos];
+            if (current == 0) return null;
+            if (current == key) return (V) t.values[pos];
+            pos = (pos + 1) & mask;
+        }
+        return null;
+    }
+
+    public boolean containsKey(long key) {
+        if (key == 0) return containsZero;
+        return get(key) != null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        if (key == 0) {
+            V previous = containsZero ? (V) zeroValue : null;
+            if (!containsZero) size++;
+            containsZero = true;
+            zeroValue = value;
+            return previous;
+        }
+
+        Table t = table;
+        long[] keys = t.keys;
+        int mask = keys.length - 1;
+        int pos = LongHashSet.mix(key) & mask;
+        long current;
+        while ((current = keys[pos]) != 0) {
+            if (current == key) {
+                V previous = (V) t.values[pos];
+                t.values[pos] = value;
+                return previous;
+            }
+            pos = (pos + 1) & mask;
+        }
+        // 先写值再写键，乐观读不会看到有键无值的槽位
+        t.values[pos] = value;
+        keys[pos] = key;
+
+        if (++size > maxFill) {
+            rehash(keys.length << 1);
+        }
+        return null;
+    }
+
+    public V computeIfAbsent(long key, LongFunction<V> factory) {
+        V value = get(key);
+        if (value == null) {
+            value = factory.apply(key);
+            put(key, value);
+        }
+        return value;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        if (key == 0) {
+            if (!containsZero) return null;
+            V previous = (V) zeroValue;
+            containsZero = false;
+            zeroValue = null;
+            size--;
+            return previous;
+        }
+
+        Table t = table;
+        long[] keys = t.keys;
+        int mask = keys.length - 1;
+        int pos = LongHashSet.mix(key) & mask;
+        long current;
+        while ((current = keys[pos]) != 0) {
+            if (current == key) {
+                V previous = (V) t.values[pos];
+                size--;
+                shiftKeys(t, pos);
+                return previous;
+            }
+            pos = (pos + 1) & mask;
+        }
+        return null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(table.keys, 0L);
+        Arrays.fill(table.values, null);
+        containsZero = false;
+        zeroValue = null;
+        size = 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEach(EntryConsumer<V> action) {
+        if (containsZero) {
+            action.accept(0L, (V) zeroValue);
+        }
+        Table t = table;
+        for (int i = 0; i < t.keys.length; i++) {
+            if (t.keys[i] != 0) {
+                action.accept(t.keys[i], (V) t.values[i]);
+            }
+        }
+    }
+
+    public long[] keys() {
+        long[] result = new long[size];
+        int index = 0;
+        if (containsZero) {
+            result[index++] = 0L;
+        }
+        for (long key : table.keys) {
+            if (key != 0) {
+                result[index++] = key;
+            }
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<V> values() {
+        List<V> result = new ArrayList<>(size);
+        if (containsZero) {
+            result.add((V) zeroValue);
+        }
+        Table t = table;
+        for (int i = 0; i < t.keys.length; i++) {
+            if (t.keys[i] != 0) {
+                result.add((V) t.values[i]);
+            }
+        }
+        return result;
+    }
+
+    private void shiftKeys(Table t, int pos) {
+        long[] keys = t.keys;
+        Object[] values = t.values;
+        int mask = keys.length - 1;
+        int last;
+        int slot;
+        long current;
+        for (;;) {
+            pos = ((last = pos) + 1) & mask;
+            for (;;) {
+                if ((current = keys[pos]) == 0) {
+                    keys[last] = 0;
+                    values[last] = null;
+                    return;
+                }
+                slot = LongHashSet.mix(current) & mask;
+                if (last <= pos ? last >= slot || slot > pos : last >= slot && slot > pos) break;
+                pos = (pos + 1) & mask;
+            }
+            keys[last] = current;
+            values[last] = values[pos];
+        }
+    }
+
+    private void rehash(int newCapacity) {
+        Table oldTable = table;
+        Table newTable = new Table(newCapacity);
+        int mask = newCapacity - 1;
+        for (int i = 0; i < oldTable.keys.length; i++) {
+            long key = oldTable.keys[i];
+            if (key != 0) {
+                int pos = LongHashSet.mix(key) & mask;
+                while (newTable.keys[pos] != 0) {
+                    pos = (pos + 1) & mask;
+                }
+                newTable.keys[pos] = key;
+                newTable.values[pos] = oldTable.values[i];
+            }
+        }
+        this.maxFill = (int) (newCapacity * LOAD_FACTOR);
+        this.table = newTable;
+    }
+}
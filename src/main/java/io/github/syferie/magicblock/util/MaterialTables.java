@@ -0,0 +1,198 @@
+package io.github.syferie.magicblock.util;
+
+import org.bukkit.Material;
+
+/**
+ * 方块材质分类表
+ * 启动时按 Material.ordinal() 一次性计算所有分类，物理事件等热路径只做数组下标查找，不再做字符串匹配
+ */
+public final class MaterialTables {
+    private static final int GRAVITY = 1;
+    private static final int REDSTONE_COMPONENT = 1 << 1;
+    private static final int REDSTONE_STATE_CHANGE = 1 << 2;
+    private static final int PHYSICS_AFFECTED = 1 << 3;
+    private static final int CONNECTABLE = 1 << 4;
+    private static final int FENCE_GATE = 1 << 5;
+    private static final int STRIPPABLE_LOG = 1 << 6;
+    private static final int SCRAPEABLE_COPPER = 1 << 7;
+
+    private static final Material[] MATERIALS = Material.values();
+    private static final byte[] FLAGS = new byte[MATERIALS.length];
+    // 斧头右键后的方块类型（原木削皮 / 铜去氧化），没有对应类型时为 null
+    private static final Material[] STRIPPED_OR_SCRAPED = new Material[MATERIALS.length];
+
+    static {
+        for (Material material : MATERIALS) {
+            String name = material.name();
+            int flags = 0;
+
+            if (material.hasGravity()) {
+                flags |= GRAVITY;
+            }
+            if (isRedstoneComponentName(material, name)) {
+                flags |= REDSTONE_COMPONENT;
+            }
+            if (isRedstoneStateChangeName(material, name)) {
+                flags |= REDSTONE_STATE_CHANGE;
+            }
+            if ((flags & (GRAVITY | REDSTONE_COMPONENT)) != 0 ||
+                material == Material.WATER ||
+                material == Material.LAVA ||
+                name.contains("DOOR") ||
+                name.contains("GATE") ||
+                name.contains("FENCE") ||
+                name.contains("WALL") ||
+                name.contains("PANE")) {
+                flags |= PHYSICS_AFFECTED;
+            }
+            if (name.contains("WALL") ||
+                name.contains("FENCE") ||
+                name.contains("PANE") ||
+                name.contains("CHAIN") ||
+                material == Material.IRON_BARS) {
+                flags |= CONNECTABLE;
+            }
+            if (name.contains("FENCE_GATE")) {
+                flags |= FENCE_GATE;
+            }
+            if (name.contains("_LOG") && !name.contains("STRIPPED")) {
+                flags |= STRIPPABLE_LOG;
+            }
+            if (name.contains("COPPER") && !name.contains("WAXED") &&
+                (name.contains("EXPOSED") || name.contains("WEATHERED") || name.contains("OXIDIZED"))) {
+                flags |= SCRAPEABLE_COPPER;
+            }
+
+            FLAGS[material.ordinal()] = (byte) flags;
+            STRIPPED_OR_SCRAPED[material.ordinal()] = computeStrippedOrScraped(name, flags);
+        }
+    }
+
+    private MaterialTables() {}
+
+    private static boolean isRedstoneComponentName(Material material, String name) {
+        switch (material) {
+            case LEVER:
+            case REDSTONE_WIRE:
+            case REPEATER:
+            case COMPARATOR:
+            case REDSTONE_TORCH:
+            case REDSTONE_WALL_TORCH:
+            case POWERED_RAIL:
+            case DETECTOR_RAIL:
+            case ACTIVATOR_RAIL:
+            case REDSTONE_LAMP:
+            case DISPENSER:
+            case DROPPER:
+            case HOPPER:
+            case OBSERVER:
+            case PISTON:
+            case STICKY_PISTON:
+            case DAYLIGHT_DETECTOR:
+            case TARGET:
+            case TRIPWIRE:
+            case TRIPWIRE_HOOK:
+            case NOTE_BLOCK:
+            case BELL:
+                return true;
+            default:
+                return name.endsWith("_PRESSURE_PLATE") ||
+                       name.endsWith("_BUTTON") ||
+                       name.contains("DOOR") ||
+                       name.contains("GATE");
+        }
+    }
+
+    private static boolean isRedstoneStateChangeName(Material material, String name) {
+        switch (material) {
+            case POWERED_RAIL:
+            case DETECTOR_RAIL:
+            case ACTIVATOR_RAIL:
+            case REDSTONE_LAMP:
+            case DISPENSER:
+            case DROPPER:
+            case HOPPER:
+            case PISTON:
+            case STICKY_PISTON:
+            case OBSERVER:
+            case NOTE_BLOCK:
+            case DAYLIGHT_DETECTOR:
+                return true;
+            default:
+                return name.contains("DOOR") || name.contains("GATE");
+        }
+    }
+
+    private static Material computeStrippedOrScraped(String name, int flags) {
+        String target = null;
+        if ((flags & STRIPPABLE_LOG) != 0) {
+            target = "STRIPPED_" + name;
+        } else if ((flags & SCRAPEABLE_COPPER) != 0) {
+            if (name.contains("OXIDIZED")) {
+                target = name.replace("OXIDIZED_", "WEATHERED_");
+            } else if (name.contains("WEATHERED")) {
+                target = name.replace("WEATHERED_", "EXPOSED_");
+            } else {
+                target = name.replace("EXPOSED_", "");
+            }
+        }
+        return target != null ? Material.getMaterial(target) : null;
+    }
+
+    public static boolean hasGravity(Material material) {
+        return (FLAGS[material.ordinal()] & GRAVITY) != 0;
+    }
+
+    /**
+     * 红石组件（拉杆、红石线、按钮、压力板、门、栅栏门等）
+     */
+    public static boolean isRedstoneComponent(Material material) {
+        return (FLAGS[material.ordinal()] & REDSTONE_COMPONENT) != 0;
+    }
+
+    /**
+     * 允许因红石信号改变状态的组件（铁轨、活塞、门等）
+     */
+    public static boolean isRedstoneStateChangeAllowed(Material material) {
+        return (FLAGS[material.ordinal()] & REDSTONE_STATE_CHANGE) != 0;
+    }
+
+    /**
+     * 可能受物理更新影响的方块：重力方块、红石组件、流体、门、栅栏、墙、玻璃板
+     */
+    public static boolean isPhysicsAffected(Material material) {
+        return (FLAGS[material.ordinal()] & PHYSICS_AFFECTED) != 0;
+    }
+
+    /**
+     * 会与相邻方块连接的方块：墙、栅栏、玻璃板、锁链、铁栏杆
+     */
+    public static boolean isConnectable(Material material) {
+        return (FLAGS[material.ordinal()] & CONNECTABLE) != 0;
+    }
+
+    public static boolean isFenceGate(Material material) {
+        return (FLAGS[material.ordinal()] & FENCE_GATE) != 0;
+    }
+
+    /**
+     * 可用斧头削皮的原木
+     */
+    public static boolean isStrippableLog(Material material) {
+        return (FLAGS[material.ordinal()] & STRIPPABLE_LOG) != 0;
+    }
+
+    /**
+     * 可用斧头去氧化的铜方块（未打蜡且已氧化）
+     */
+    public static boolean isScrapeableCopper(Material material) {
+        return (FLAGS[material.ordinal()] & SCRAPEABLE_COPPER) != 0;
+    }
+
+    /**
+     * 获取削皮或去氧化后的方块类型，没有对应类型时返回 null
+     */
+    public static Material getStrippedOrScrapedType(Material material) {
+        return STRIPPED_OR_SCRAPED[material.ordinal()];
+    }
+}
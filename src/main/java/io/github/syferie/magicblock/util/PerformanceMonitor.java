@@ -18,6 +18,7 @@ public class PerformanceMonitor {
     private final AtomicLong loreUpdates = new AtomicLong(0);
     private final AtomicLong loreCacheHits = new AtomicLong(0);
     private final AtomicLong loreCacheMisses = new AtomicLong(0);
+    private final AtomicLong loreCacheEvictions = new AtomicLong(0);
     private final AtomicLong databaseOperations = new AtomicLong(0);
     private final AtomicLong asyncOperations = new AtomicLong(0);
     private final AtomicInteger activeTasks = new AtomicInteger(0);
@@ -63,6 +64,11 @@ public class PerformanceMonitor {
         loreCacheMisses.incrementAndGet();
     }
     
+    // 记录缓存淘汰
+    public void recordCacheEviction(int count) {
+        loreCacheEvictions.addAndGet(count);
+    }
+    
     // 记录数据库操作
     public void recordDatabaseOperation(long duration) {
         databaseOperations.incrementAndGet();
@@ -141,6 +147,7 @@ public class PerformanceMonitor {
         sender.sendMessage("§6Lore 系统:");
         sender.sendMessage("§7  总更新次数: §a" + totalLoreOps);
         sender.sendMessage("§7  缓存命中率: §a" + String.format("%.1f%%", cacheHitRate));
+        sender.sendMessage("§7  命中/未命中/淘汰: §a" + cacheHits + " §7/ §a" + cacheMisses + " §7/ §a" + loreCacheEvictions.get());
         sender.sendMessage("§7  平均更新时间: §a" + String.format("%.2fms", avgLoreTime));
         sender.sendMessage("");
         
@@ -148,11 +155,20 @@ public class PerformanceMonitor {
         Map<String, Object> indexStats = plugin.getIndexManager().getPerformanceStats();
 
         sender.sendMessage("§6🚀 魔法方块索引系统:");
-        sender.sendMessage("§7  总魔法方块数: §a" + indexStats.get("totalMagicBlocks"));
+        sender.sendMessage("§7  常驻/已知魔法方块: §a" + indexStats.get("totalMagicBlocks") + " §7/ §a" + indexStats.get("knownMagicBlocks"));
+        sender.sendMessage("§7  已回收区块数: §a" + indexStats.get("evictedChunks"));
         sender.sendMessage("§7  活跃区块数: §a" + indexStats.get("totalChunks"));
+        sender.sendMessage("§7  索引分片数: §a" + indexStats.get("totalShards"));
+        sender.sendMessage("§7  位图子区块数: §a" + indexStats.get("totalSections"));
+        sender.sendMessage("§7  待校验区块数: §a" + indexStats.get("pendingChunks"));
         sender.sendMessage("§7  活跃世界数: §a" + indexStats.get("totalWorlds"));
         sender.sendMessage("§7  总查找次数: §a" + indexStats.get("totalLookups"));
         sender.sendMessage("§7  索引命中率: §a" + String.format("%.1f%%", (Double) indexStats.get("cacheHitRate")));
+        sender.sendMessage("§7  区块PDC写入: §a" + indexStats.get("pdcWrites") + " §7(合并 §a" + indexStats.get("coalescedWrites") + "§7)");
+        sender.sendMessage("§7  增量清理: §a" + String.format("%.1f%%", (Double) indexStats.get("sweepProgress"))
+            + " §7(已完成 §a" + indexStats.get("sweepCompleted") + " §7轮, 上轮 §a" + indexStats.get("lastSweepMillis") + "ms§7)");
+        sender.sendMessage("§7  清理校验/移除: §a" + indexStats.get("sweepChecked") + " §7/ §a" + indexStats.get("sweepRemoved")
+            + " §7(§a" + indexStats.get("sweepThroughput") + " §7条/秒)");
         sender.sendMessage("");
 
         // 位置检查性能统计（旧系统，已弃用）
@@ -217,7 +233,9 @@ public class PerformanceMonitor {
         boolean hasIssues = false;
 
         if (cacheHitRate < 50 && totalLoreOps > 100) {
-            sender.sendMessage("§c  建议增加 Lore 缓存时间以提高命中率");
+            sender.sendMessage(loreCacheEvictions.get() > cacheHits
+                ? "§c  Lore 缓存淘汰频繁，建议增大 lore-cache.max-size"
+                : "§c  建议增加 Lore 缓存时间以提高命中率");
             hasIssues = true;
         }
         if (locCacheHitRate < 70 && totalLocationOps > 100) {
@@ -260,6 +278,7 @@ public class PerformanceMonitor {
         loreUpdates.set(0);
         loreCacheHits.set(0);
         loreCacheMisses.set(0);
+        loreCacheEvictions.set(0);
         databaseOperations.set(0);
         asyncOperations.set(0);
         activeTasks.set(0);
@@ -0,0 +1,178 @@
+package io.github.syferie.magicblock.util;
+
+import org.bukkit.configuration.file.FileConfiguration;
+
+/**
+ * performance 配置节的不可变快照
+ * 在启动和 /mb reload 时整体重建，热路径只读取字段，不再遍历 YAML 节点树
+ */
+public final class PerformanceSettings {
+    // 物理事件优化
+    private final boolean physicsOptimizationEnabled;
+    private final boolean skipUnaffectedBlocks;
+
+    // 位置缓存
+    private final boolean locationCacheEnabled;
+    private final long locationCacheDuration;
+    private final long locationCacheCleanupInterval;
+
+    // Lore 缓存
+    private final boolean loreCacheEnabled;
+    private final long loreCacheDuration;
+    private final int loreCacheMaxSize;
+
+    // 统计保存
+    private final int statisticsBatchThreshold;
+    private final long statisticsSaveInterval;
+
+    // 魔法方块索引
+    private final boolean evictOnUnload;
+    private final int maxResidentChunks;
+    private final long cleanupIntervalMillis;
+    private final int cleanupEntriesPerTick;
+    private final long cleanupNanosPerTick;
+
+    // 绑定数据写回
+    private final long bindingFlushIntervalMillis;
+    private final boolean bindingJournalEnabled;
+    private final int bindingJournalCompactThreshold;
+    private final boolean bindingBinaryFormat;
+
+    // 取回绑定方块
+    private final int retrievalTrackedLocations;
+    private final boolean retrievalFallbackScanEnabled;
+    private final int retrievalScanChunksPerTick;
+    private final long retrievalScanNanosPerTick;
+
+    private PerformanceSettings(FileConfiguration config) {
+        this.physicsOptimizationEnabled = config.getBoolean("performance.physics-optimization.enabled", true);
+        this.skipUnaffectedBlocks = config.getBoolean("performance.physics-optimization.skip-unaffected-blocks", true);
+
+        this.locationCacheEnabled = config.getBoolean("performance.location-cache.enabled", true);
+        this.locationCacheDuration = config.getLong("performance.location-cache.duration", 5000);
+        this.locationCacheCleanupInterval = config.getLong("performance.location-cache.cleanup-interval", 30);
+
+        this.loreCacheEnabled = config.getBoolean("performance.lore-cache.enabled", true);
+        this.loreCacheDuration = config.getLong("performance.lore-cache.duration", 5000);
+        this.loreCacheMaxSize = config.getInt("performance.lore-cache.max-size", 1000);
+
+        // 阈值至少为 1，避免取模时除零
+        this.statisticsBatchThreshold = Math.max(1, config.getInt("performance.statistics.batch-threshold", 50));
+        this.statisticsSaveInterval = config.getLong("performance.statistics.save-interval", 30000);
+
+        this.evictOnUnload = config.getBoolean("performance.block-index.evict-on-unload", true);
+        this.maxResidentChunks = config.getInt("performance.block-index.max-resident-chunks", 0);
+        this.cleanupIntervalMillis = config.getLong("performance.block-index.cleanup.interval", 300) * 1000L;
+        this.cleanupEntriesPerTick = Math.max(1, config.getInt("performance.block-index.cleanup.entries-per-tick", 256));
+        this.cleanupNanosPerTick = Math.max(1L, config.getLong("performance.block-index.cleanup.max-micros-per-tick", 500) * 1000L);
+
+        this.bindingFlushIntervalMillis = Math.max(1, config.getLong("performance.binding-storage.flush-interval", 5)) * 1000L;
+        this.bindingJournalEnabled = config.getBoolean("performance.binding-storage.journal.enabled", true);
+        this.bindingJournalCompactThreshold = Math.max(1, config.getInt("performance.binding-storage.journal.compact-threshold", 20000));
+        this.bindingBinaryFormat = "binary".equalsIgnoreCase(config.getString("performance.binding-storage.format", "text"));
+
+        this.retrievalTrackedLocations = Math.max(1, config.getInt("performance.block-retrieval.tracked-locations-per-player", 64));
+        this.retrievalFallbackScanEnabled = config.getBoolean("performance.block-retrieval.fallback-scan.enabled", true);
+        this.retrievalScanChunksPerTick = Math.max(1, config.getInt("performance.block-retrieval.fallback-scan.chunks-per-tick", 32));
+        this.retrievalScanNanosPerTick = Math.max(1, config.getLong("performance.block-retrieval.fallback-scan.max-micros-per-tick", 500)) * 1000L;
+    }
+
+    public static PerformanceSettings load(FileConfiguration config) {
+        return new PerformanceSettings(config);
+    }
+
+    public boolean isPhysicsOptimizationEnabled() {
+        return physicsOptimizationEnabled;
+    }
+
+    public boolean isSkipUnaffectedBlocks() {
+        return skipUnaffectedBlocks;
+    }
+
+    public boolean isLocationCacheEnabled() {
+        return locationCacheEnabled;
+    }
+
+    public long getLocationCacheDuration() {
+        return locationCacheDuration;
+    }
+
+    /**
+     * 位置缓存清理间隔（秒），只在启动时读取
+     */
+    public long getLocationCacheCleanupInterval() {
+        return locationCacheCleanupInterval;
+    }
+
+    public boolean isLoreCacheEnabled() {
+        return loreCacheEnabled;
+    }
+
+    public long getLoreCacheDuration() {
+        return loreCacheDuration;
+    }
+
+    public int getLoreCacheMaxSize() {
+        return loreCacheMaxSize;
+    }
+
+    public int getStatisticsBatchThreshold() {
+        return statisticsBatchThreshold;
+    }
+
+    public long getStatisticsSaveInterval() {
+        return statisticsSaveInterval;
+    }
+
+    public boolean isEvictOnUnload() {
+        return evictOnUnload;
+    }
+
+    public int getMaxResidentChunks() {
+        return maxResidentChunks;
+    }
+
+    public long getCleanupIntervalMillis() {
+        return cleanupIntervalMillis;
+    }
+
+    public int getCleanupEntriesPerTick() {
+        return cleanupEntriesPerTick;
+    }
+
+    public long getCleanupNanosPerTick() {
+        return cleanupNanosPerTick;
+    }
+
+    public long getBindingFlushIntervalMillis() {
+        return bindingFlushIntervalMillis;
+    }
+
+    public boolean isBindingJournalEnabled() {
+        return bindingJournalEnabled;
+    }
+
+    public int getBindingJournalCompactThreshold() {
+        return bindingJournalCompactThreshold;
+    }
+
+    public boolean isBindingBinaryFormat() {
+        return bindingBinaryFormat;
+    }
+
+    public int getRetrievalTrackedLocations() {
+        return retrievalTrackedLocations;
+    }
+
+    public boolean isRetrievalFallbackScanEnabled() {
+        return retrievalFallbackScanEnabled;
+    }
+
+    public int getRetrievalScanChunksPerTick() {
+        return retrievalScanChunksPerTick;
+    }
+
+    public long getRetrievalScanNanosPerTick() {
+        return retrievalScanNanosPerTick;
+    }
+}
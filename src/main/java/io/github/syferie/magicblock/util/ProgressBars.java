@@ -0,0 +1,112 @@
+package io.github.syferie.magicblock.util;
+
+import org.bukkit.ChatColor;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 预计算的进度条字符串表
+ * 每种样式按 (长度 × 填充格数) 预先生成全部字符串，调用时只计算填充格数并返回表中的常量，
+ * 计分板等每 tick 刷新的 PAPI 变量不再产生任何字符串分配
+ */
+public final class ProgressBars {
+    // 物品 Lore 中的进度条：[■■■■■■■■■■]
+    private static final int LORE_LENGTH = 10;
+    // %magicblock_progress_bar% 的默认长度
+    private static final int PLACEHOLDER_LENGTH = 20;
+    // %magicblock_progress_bar_<n>% 预计算的最大长度，超过时按需生成
+    private static final int MAX_CUSTOM_LENGTH = 64;
+
+    private static final String[] LORE = buildLoreTable(LORE_LENGTH);
+    private static final String[] PLACEHOLDER = buildPlaceholderTable("§a", PLACEHOLDER_LENGTH);
+    // 自定义长度的表在第一次使用时生成，下标为长度
+    private static final AtomicReferenceArray<String[]> CUSTOM = new AtomicReferenceArray<>(MAX_CUSTOM_LENGTH + 1);
+    private static final AtomicReferenceArray<String> CUSTOM_EMPTY = new AtomicReferenceArray<>(MAX_CUSTOM_LENGTH + 1);
+
+    private ProgressBars() {}
+
+    /**
+     * 物品 Lore 的进度条（剩余次数 / 最大次数，四舍五入）
+     */
+    public static String lore(int remaining, int max) {
+        return LORE[filled(remaining, max, LORE_LENGTH, true)];
+    }
+
+    /**
+     * 默认长度的 PAPI 进度条（向下取整，与原 getProgressBar 一致）
+     */
+    public static String placeholder(int current, int max) {
+        return PLACEHOLDER[filled(current, max, PLACEHOLDER_LENGTH, false)];
+    }
+
+    /**
+     * 自定义长度的 PAPI 进度条（四舍五入）
+     */
+    public static String custom(int remaining, int max, int length) {
+        int filled = filled(remaining, max, length, true);
+        if (length > MAX_CUSTOM_LENGTH) {
+            return buildPlaceholder("&a", length, filled);
+        }
+        String[] table = CUSTOM.get(length);
+        if (table == null) {
+            table = buildPlaceholderTable("&a", length);
+            if (!CUSTOM.compareAndSet(length, null, table)) {
+                table = CUSTOM.get(length);
+            }
+        }
+        return table[filled];
+    }
+
+    /**
+     * 没有手持魔法方块时的空进度条
+     */
+    public static String emptyCustom(int length) {
+        if (length > MAX_CUSTOM_LENGTH) {
+            return "&7" + "□".repeat(length);
+        }
+        String empty = CUSTOM_EMPTY.get(length);
+        if (empty == null) {
+            empty = "&7" + "□".repeat(length);
+            CUSTOM_EMPTY.compareAndSet(length, null, empty);
+        }
+        return empty;
+    }
+
+    private static int filled(int current, int max, int length, boolean round) {
+        if (max <= 0) return 0;
+        int filled = round
+            ? (int) Math.round((double) current / max * length)
+            : (int) (length * ((float) current / max));
+        return Math.max(0, Math.min(length, filled));
+    }
+
+    private static String[] buildLoreTable(int length) {
+        String[] table = new String[length + 1];
+        for (int filled = 0; filled <= length; filled++) {
+            StringBuilder bar = new StringBuilder();
+            bar.append(ChatColor.GRAY).append("[");
+            for (int i = 0; i < length; i++) {
+                if (i < filled) {
+                    bar.append(ChatColor.GREEN).append("■");
+                } else {
+                    bar.append(ChatColor.GRAY).append("■");
+                }
+            }
+            bar.append(ChatColor.GRAY).append("]");
+            table[filled] = bar.toString();
+        }
+        return table;
+    }
+
+    private static String[] buildPlaceholderTable(String color, int length) {
+        String[] table = new String[length + 1];
+        for (int filled = 0; filled <= length; filled++) {
+            table[filled] = buildPlaceholder(color, length, filled);
+        }
+        return table;
+    }
+
+    private static String buildPlaceholder(String color, int length, int filled) {
+        return color + "■".repeat(filled) + "□".repeat(length - filled);
+    }
+}
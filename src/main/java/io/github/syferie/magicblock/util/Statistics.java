@@ -78,8 +78,9 @@ public class Statistics {
         long currentTime = System.currentTimeMillis();
 
         // 从配置读取性能设置
-        int batchThreshold = plugin.getConfig().getInt("performance.statistics.batch-threshold", 50);
-        long saveInterval = plugin.getConfig().getLong("performance.statistics.save-interval", 30000);
+        PerformanceSettings settings = plugin.getPerformanceSettings();
+        int batchThreshold = settings.getStatisticsBatchThreshold();
+        long saveInterval = settings.getStatisticsSaveInterval();
 
         // 条件1：达到批量保存阈值
         // 条件2：距离上次保存超过指定时间间隔
@@ -0,0 +1,90 @@
+package io.github.syferie.magicblock;
+
+import io.github.syferie.magicblock.util.PerformanceSettings;
+import org.bukkit.Server;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.plugin.PluginDescriptionFile;
+import org.bukkit.plugin.PluginLogger;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.io.File;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * 单元测试用的插件实例
+ * 与基准测试环境一样绕过服务端的插件加载器直接分配 MagicBlockPlugin，
+ * 只注入配置、日志和性能配置快照，适用于不访问世界和调度器的存储类测试
+ */
+public final class TestEnvironment {
+    private static final Logger SERVER_LOGGER = quietLogger();
+
+    private TestEnvironment() {}
+
+    /**
+     * 以给定的配置项（完整路径 -> 值）创建插件，未给出的配置项使用默认值
+     */
+    public static MagicBlockPlugin plugin(File dataFolder, Map<String, Object> settings) {
+        try {
+            YamlConfiguration config = new YamlConfiguration();
+            settings.forEach(config::set);
+
+            // JavaPlugin 的构造函数要求由服务端的插件类加载器加载，这里直接分配实例再注入字段
+            MagicBlockPlugin instance = allocate(MagicBlockPlugin.class);
+            try (InputStream in = MagicBlockPlugin.class.getClassLoader().getResourceAsStream("plugin.yml")) {
+                if (in == null) {
+                    throw new IllegalStateException("找不到资源文件: plugin.yml");
+                }
+                setField(JavaPlugin.class, instance, "description", new PluginDescriptionFile(in));
+            }
+            setField(JavaPlugin.class, instance, "server", server());
+            setField(JavaPlugin.class, instance, "dataFolder", dataFolder);
+            setField(JavaPlugin.class, instance, "newConfig", config);
+            setField(JavaPlugin.class, instance, "logger", new PluginLogger(instance));
+            setField(MagicBlockPlugin.class, instance, "performanceSettings", PerformanceSettings.load(config));
+            return instance;
+        } catch (Exception e) {
+            throw new IllegalStateException("无法初始化测试环境", e);
+        }
+    }
+
+    /**
+     * 只提供日志的 Server：插件日志以它为父日志，测试输出中不打印存储类的警告
+     */
+    private static Server server() {
+        return (Server) Proxy.newProxyInstance(Server.class.getClassLoader(), new Class<?>[]{Server.class},
+            (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "getLogger": return SERVER_LOGGER;
+                    case "equals": return proxy == args[0];
+                    case "hashCode": return System.identityHashCode(proxy);
+                    case "toString": return "ServerStub";
+                    default: return null;
+                }
+            });
+    }
+
+    private static Logger quietLogger() {
+        Logger logger = Logger.getLogger("MagicBlockTest");
+        logger.setUseParentHandlers(false);
+        return logger;
+    }
+
+    private static <T> T allocate(Class<T> type) throws Exception {
+        Field unsafeField = Class.forName("sun.misc.Unsafe").getDeclaredField("theUnsafe");
+        unsafeField.setAccessible(true);
+        Object unsafe = unsafeField.get(null);
+        Method allocateInstance = unsafe.getClass().getMethod("allocateInstance", Class.class);
+        return type.cast(allocateInstance.invoke(unsafe, type));
+    }
+
+    private static void setField(Class<?> owner, Object target, String name, Object value) throws Exception {
+        Field field = owner.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+}
@@ -0,0 +1,218 @@
+package io.github.syferie.magicblock.block;
+
+import io.github.syferie.magicblock.MagicBlockPlugin;
+import io.github.syferie.magicblock.TestEnvironment;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 绑定日志的重放与压缩测试：写到一半的最后一行、压缩失败后的重复记录、写回重试时的记录顺序
+ * 快照使用 JSON 格式；需要压缩失败时把快照文件放在不存在的目录里
+ */
+class BindingStoreJournalTest {
+    private static final UUID ALICE = UUID.fromString("00000000-0000-0000-0000-00000000000a");
+    private static final UUID BOB = UUID.fromString("00000000-0000-0000-0000-00000000000b");
+    private static final String STONE = "11111111-1111-1111-1111-111111111111";
+    private static final String DIRT = "22222222-2222-2222-2222-222222222222";
+    private static final String GLASS = "33333333-3333-3333-3333-333333333333";
+
+    @TempDir
+    File dir;
+
+    private File json;
+    private File journal;
+    private final Map<String, Object> settings = new HashMap<>();
+    private final List<BindingStore> opened = new ArrayList<>();
+
+    @BeforeEach
+    void createSnapshot() throws IOException {
+        json = new File(dir, "bindings.json");
+        journal = new File(dir, "bindings.journal");
+        Files.write(json.toPath(), "{}".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @AfterEach
+    void closeStores() {
+        for (BindingStore store : opened) {
+            store.shutdown();
+        }
+    }
+
+    @Test
+    void truncatedLastLineIsIgnored() throws IOException {
+        // 快照写不出去，日志保持重放后的样子
+        File missing = new File(dir, "missing");
+        String complete = "{\"op\":\"put\",\"p\":\"" + ALICE + "\",\"b\":\"" + STONE + "\",\"m\":\"STONE\",\"u\":5,\"x\":10}\n";
+        String partial = "{\"op\":\"put\",\"p\":\"" + ALICE + "\",\"b\":\"" + DIRT + "\",\"m\":\"DI";
+        Files.write(journal.toPath(), (complete + partial).getBytes(StandardCharsets.UTF_8));
+
+        BindingStore store = open(missing);
+        assertBinding(store.get(ALICE, STONE), "STONE", 5, 10);
+        assertNull(store.get(ALICE, DIRT));
+        // 半行被截掉，之后追加的记录从新的一行开始
+        assertEquals(complete, read(journal));
+
+        store.put(BOB, GLASS, new Binding("GLASS", 3, 3, true));
+        store.flush();
+        assertEquals(2, lines(journal).size());
+
+        BindingStore reopened = open(missing);
+        assertBinding(reopened.get(ALICE, STONE), "STONE", 5, 10);
+        assertBinding(reopened.get(BOB, GLASS), "GLASS", 3, 3);
+        assertTrue(reopened.get(BOB, GLASS).isHidden());
+        assertEquals(2, reopened.size());
+    }
+
+    @Test
+    void corruptLineStopsReplay() throws IOException {
+        String first = "{\"op\":\"put\",\"p\":\"" + ALICE + "\",\"b\":\"" + STONE + "\",\"m\":\"STONE\",\"u\":5,\"x\":10}\n";
+        String later = "{\"op\":\"del\",\"p\":\"" + ALICE + "\",\"b\":\"" + STONE + "\"}\n";
+        Files.write(journal.toPath(), (first + "{\"op\":\n" + later).getBytes(StandardCharsets.UTF_8));
+
+        BindingStore store = open();
+        // 损坏行之后的记录不可信，不会被重放
+        assertBinding(store.get(ALICE, STONE), "STONE", 5, 10);
+        assertEquals(0, journal.length());
+    }
+
+    @Test
+    void replayOverNewerSnapshotIsIdempotent() throws IOException {
+        settings.put("performance.binding-storage.journal.compact-threshold", 1000);
+        BindingStore store = open();
+        store.put(ALICE, STONE, new Binding("STONE", 5, 10, false));
+        store.put(ALICE, DIRT, new Binding("DIRT", 2, 2, false));
+        store.flush();
+        store.updateByBlockId(STONE, binding -> binding.withUses(4));
+        store.removeByBlockId(DIRT);
+        store.put(ALICE, DIRT, new Binding("DIRT", 7, 7, false));
+        store.put(BOB, STONE, new Binding("STONE", 1, 10, false));
+        store.removePlayer(ALICE);
+        store.put(ALICE, GLASS, new Binding("GLASS", 9, 9, false));
+        store.flush();
+        byte[] journalBeforeCompaction = Files.readAllBytes(journal.toPath());
+        assertTrue(journalBeforeCompaction.length > 0);
+
+        // 关闭时写出快照并清空日志；模拟清空日志之前崩溃，所有记录在快照之后再重放一遍
+        opened.remove(store);
+        store.shutdown();
+        assertEquals(0, journal.length());
+        Files.write(journal.toPath(), journalBeforeCompaction);
+
+        BindingStore reopened = open();
+        assertEquals(2, reopened.size());
+        assertEquals(BOB, reopened.getOwner(STONE));
+        assertBinding(reopened.get(BOB, STONE), "STONE", 1, 10);
+        assertBinding(reopened.get(ALICE, GLASS), "GLASS", 9, 9);
+        assertNull(reopened.getByBlockId(DIRT));
+        assertEquals(0, journal.length());
+    }
+
+    @Test
+    void failedCompactionDoesNotDuplicateRecords() throws IOException {
+        // 每次写回都要压缩，快照目录不存在，压缩总是失败
+        settings.put("performance.binding-storage.journal.compact-threshold", 1);
+        File missing = new File(dir, "missing");
+        BindingStore store = open(missing);
+
+        store.put(ALICE, STONE, new Binding("STONE", 5, 10, false));
+        store.flush();
+        store.put(ALICE, DIRT, new Binding("DIRT", 2, 2, false));
+        store.flush();
+        store.flush();
+        // 已经追加的记录不会因为压缩失败再次追加
+        assertEquals(2, lines(journal).size());
+
+        // 快照目录恢复后下一次写回完成压缩
+        assertTrue(missing.mkdirs());
+        store.updateByBlockId(STONE, binding -> binding.withUses(4));
+        store.flush();
+        assertEquals(0, journal.length());
+        assertTrue(new File(missing, "bindings.yml").exists());
+    }
+
+    @Test
+    void failedAppendKeepsModificationOrder() throws IOException {
+        // 日志目录不存在时追加失败，记录放回队列
+        File journalDir = new File(dir, "journal");
+        journal = new File(journalDir, "bindings.journal");
+        settings.put("performance.binding-storage.journal.compact-threshold", 1000);
+        BindingStore store = open();
+
+        store.put(ALICE, STONE, new Binding("STONE", 5, 10, false));
+        store.put(ALICE, DIRT, new Binding("DIRT", 2, 2, false));
+        store.flush();
+        assertFalse(journal.exists());
+
+        // 失败之后的修改必须排在放回的记录后面
+        store.removePlayer(ALICE);
+        store.put(ALICE, GLASS, new Binding("GLASS", 9, 9, false));
+        store.put(BOB, STONE, new Binding("STONE", 3, 10, false));
+        store.flush();
+        store.updateByBlockId(STONE, binding -> binding.withUses(2));
+        store.removeByBlockId(GLASS);
+        store.put(ALICE, GLASS, new Binding("GLASS", 8, 9, false));
+
+        assertTrue(journalDir.mkdirs());
+        store.flush();
+        byte[] records = Files.readAllBytes(journal.toPath());
+        assertEquals(3, lines(journal).size());
+
+        // 丢掉关闭时写出的快照，只从日志恢复
+        opened.remove(store);
+        store.shutdown();
+        Files.write(json.toPath(), "{}".getBytes(StandardCharsets.UTF_8));
+        Files.write(journal.toPath(), records);
+
+        BindingStore reopened = open();
+        assertEquals(2, reopened.size());
+        assertBinding(reopened.get(BOB, STONE), "STONE", 2, 10);
+        assertBinding(reopened.get(ALICE, GLASS), "GLASS", 8, 9);
+        assertNull(reopened.getByBlockId(DIRT));
+    }
+
+    private BindingStore open() {
+        return open(dir);
+    }
+
+    /**
+     * 打开存储；snapshotDir 是快照（bindings.yml / bindings.json）所在目录
+     */
+    private BindingStore open(File snapshotDir) {
+        MagicBlockPlugin plugin = TestEnvironment.plugin(dir, settings);
+        File snapshot = snapshotDir.equals(dir) ? json : new File(snapshotDir, "bindings.json");
+        BindingStore store = new BindingStore(plugin, new File(snapshotDir, "bindings.yml"), snapshot,
+            journal, new File(dir, "bindings.dat"));
+        store.load();
+        opened.add(store);
+        return store;
+    }
+
+    private static void assertBinding(Binding binding, String material, int uses, int maxUses) {
+        assertNotNull(binding);
+        assertEquals(material, binding.getMaterial());
+        assertEquals(uses, binding.getUses());
+        assertEquals(maxUses, binding.getMaxUses());
+    }
+
+    private static String read(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+
+    private static List<String> lines(File file) throws IOException {
+        return file.exists() ? Files.readAllLines(file.toPath(), StandardCharsets.UTF_8) : new ArrayList<>();
+    }
+}
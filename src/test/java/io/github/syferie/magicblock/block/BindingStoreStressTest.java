@@ -0,0 +1,126 @@
+package io.github.syferie.magicblock.block;
+
+import io.github.syferie.magicblock.MagicBlockPlugin;
+import io.github.syferie.magicblock.TestEnvironment;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 10 万条绑定下的正确性测试：按方块ID查找所属玩家、按方块ID更新、按条件查找，以及写出后重新加载
+ */
+class BindingStoreStressTest {
+    private static final int TOTAL_BINDINGS = 100_000;
+    private static final int BINDINGS_PER_PLAYER = 10;
+    private static final String[] MATERIALS = {"STONE", "OAK_LOG", "GLASS", "DIRT", "SAND"};
+
+    @TempDir
+    File dir;
+
+    @Test
+    void textFormatRoundTrip() throws IOException {
+        // 快照使用 JSON 格式
+        Files.write(new File(dir, "bindings.json").toPath(), "{}".getBytes(StandardCharsets.UTF_8));
+        roundTrip(new HashMap<>());
+    }
+
+    @Test
+    void binaryFormatRoundTrip() {
+        Map<String, Object> settings = new HashMap<>();
+        settings.put("performance.binding-storage.format", "binary");
+        roundTrip(settings);
+        assertTrue(new File(dir, "bindings.dat").exists());
+    }
+
+    private void roundTrip(Map<String, Object> settings) {
+        MagicBlockPlugin plugin = TestEnvironment.plugin(dir, settings);
+        UUID[] players = new UUID[TOTAL_BINDINGS / BINDINGS_PER_PLAYER];
+        String[] blockIds = new String[TOTAL_BINDINGS];
+        Random random = new Random(23);
+
+        BindingStore store = open(plugin);
+        for (int i = 0; i < TOTAL_BINDINGS; i++) {
+            int player = i / BINDINGS_PER_PLAYER;
+            if (players[player] == null) {
+                players[player] = new UUID(random.nextLong(), random.nextLong());
+            }
+            blockIds[i] = new UUID(random.nextLong(), random.nextLong()).toString();
+            store.put(players[player], blockIds[i], new Binding(MATERIALS[i % MATERIALS.length], 64, 64, false));
+        }
+        assertEquals(TOTAL_BINDINGS, store.size());
+
+        for (int i = 0; i < TOTAL_BINDINGS; i++) {
+            assertEquals(players[i / BINDINGS_PER_PLAYER], store.getOwner(blockIds[i]), "owner " + i);
+        }
+        assertNull(store.getOwner(UUID.randomUUID().toString()));
+
+        // 每隔 7 条更新一次剩余次数，每隔 13 条删除一条
+        for (int i = 0; i < TOTAL_BINDINGS; i += 7) {
+            final int uses = i % 64;
+            assertTrue(store.updateByBlockId(blockIds[i], binding -> binding.withUses(uses)), "update " + i);
+        }
+        for (int i = 0; i < TOTAL_BINDINGS; i += 13) {
+            assertNotNull(store.removeByBlockId(blockIds[i]), "remove " + i);
+        }
+        assertFalse(store.updateByBlockId(blockIds[0], binding -> binding.withUses(1)));
+
+        // 按条件查找返回玩家第一条满足条件的绑定，没有满足条件的绑定时返回 null
+        for (int p = 0; p < players.length; p += 101) {
+            for (int m = 0; m < MATERIALS.length; m++) {
+                String material = MATERIALS[m];
+                assertEquals(expectedFirst(blockIds, p, material),
+                    store.findBlockId(players[p], binding -> material.equals(binding.getMaterial())), "find " + p + " " + material);
+            }
+            assertNull(store.findBlockId(players[p], binding -> "BEDROCK".equals(binding.getMaterial())));
+        }
+
+        store.shutdown();
+        BindingStore reopened = open(plugin);
+        try {
+            assertEquals(TOTAL_BINDINGS - (TOTAL_BINDINGS + 12) / 13, reopened.size());
+            for (int i = 0; i < TOTAL_BINDINGS; i++) {
+                Binding binding = reopened.getByBlockId(blockIds[i]);
+                if (i % 13 == 0) {
+                    assertNull(binding, "removed " + i);
+                    continue;
+                }
+                assertNotNull(binding, "binding " + i);
+                assertEquals(players[i / BINDINGS_PER_PLAYER], reopened.getOwner(blockIds[i]));
+                assertEquals(MATERIALS[i % MATERIALS.length], binding.getMaterial());
+                assertEquals(i % 7 == 0 ? i % 64 : 64, binding.getUses(), "uses " + i);
+                assertEquals(64, binding.getMaxUses());
+            }
+        } finally {
+            reopened.shutdown();
+        }
+    }
+
+    private BindingStore open(MagicBlockPlugin plugin) {
+        BindingStore store = new BindingStore(plugin, new File(dir, "bindings.yml"), new File(dir, "bindings.json"),
+            new File(dir, "bindings.journal"), new File(dir, "bindings.dat"));
+        store.load();
+        return store;
+    }
+
+    /**
+     * 玩家 p 的绑定中第一条未删除、材质为 material 的方块ID
+     */
+    private static String expectedFirst(String[] blockIds, int p, String material) {
+        for (int i = p * BINDINGS_PER_PLAYER; i < (p + 1) * BINDINGS_PER_PLAYER; i++) {
+            if (i % 13 != 0 && MATERIALS[i % MATERIALS.length].equals(material)) {
+                return blockIds[i];
+            }
+        }
+        return null;
+    }
+}
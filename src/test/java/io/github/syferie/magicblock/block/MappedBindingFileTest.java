@@ -0,0 +1,211 @@
+package io.github.syferie.magicblock.block;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * bindings.dat 的格式测试：32 字节文件头、48 字节槽位、扩容后重新打开，以及槽位索引的删除前移
+ */
+class MappedBindingFileTest {
+    private static final int HEADER_SIZE = 32;
+    private static final int RECORD_SIZE = 48;
+    private static final UUID PLAYER = UUID.fromString("01234567-89ab-cdef-0123-456789abcdef");
+
+    @TempDir
+    File dir;
+
+    @Test
+    void headerAndRecordLayout() throws IOException {
+        File data = new File(dir, "bindings.dat");
+        UUID first = UUID.fromString("11111111-2222-3333-4444-555555555555");
+        UUID second = UUID.fromString("66666666-7777-8888-9999-aaaaaaaaaaaa");
+        MappedBindingFile file = new MappedBindingFile(data);
+        assertTrue(file.put(PLAYER, first.toString(), new Binding("STONE", 5, 10, false)));
+        assertTrue(file.put(PLAYER, second.toString(), new Binding("GLASS", 7, 8, true)));
+        file.close();
+
+        ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(data.toPath()));
+        assertEquals(HEADER_SIZE + 1024 * RECORD_SIZE, buf.capacity());
+        assertEquals(0x4D424244, buf.getInt(0));
+        assertEquals(1, buf.getInt(4));
+        assertEquals(RECORD_SIZE, buf.getInt(8));
+        assertEquals(2, buf.getInt(12));
+
+        assertRecord(buf, HEADER_SIZE, first, 0, 5, 10, false);
+        assertRecord(buf, HEADER_SIZE + RECORD_SIZE, second, 1, 7, 8, true);
+        // 高水位之后的槽位从未写入
+        assertEquals(0, buf.get(HEADER_SIZE + 2 * RECORD_SIZE));
+        assertEquals("STONE\nGLASS\n", new String(Files.readAllBytes(new File(dir, "bindings.dat.materials").toPath()),
+            StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void updateAndDeleteInPlace() throws IOException {
+        File data = new File(dir, "bindings.dat");
+        String blockId = UUID.randomUUID().toString();
+        String other = UUID.randomUUID().toString();
+        MappedBindingFile file = new MappedBindingFile(data);
+        file.put(PLAYER, blockId, new Binding("STONE", 5, 10, false));
+        file.put(PLAYER, other, new Binding("STONE", 5, 10, false));
+        file.put(PLAYER, blockId, new Binding("STONE", 4, 10, true));
+        assertEquals(2, file.size());
+
+        // 删除的槽位被下一条新记录复用，高水位不变
+        file.delete(blockId);
+        assertEquals(1, file.size());
+        String reused = UUID.randomUUID().toString();
+        file.put(PLAYER, reused, new Binding("DIRT", 1, 1, false));
+        assertFalse(file.put(PLAYER, "not-a-uuid", new Binding("DIRT", 1, 1, false)));
+        file.close();
+
+        ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(data.toPath()));
+        assertEquals(2, buf.getInt(12));
+        assertRecord(buf, HEADER_SIZE, UUID.fromString(reused), 1, 1, 1, false);
+        assertEquals(Map.of(other, "STONE:5/10", reused, "DIRT:1/1"), readAll(data));
+    }
+
+    @Test
+    void growAndReopen() throws IOException {
+        File data = new File(dir, "bindings.dat");
+        Map<String, String> expected = new LinkedHashMap<>();
+        MappedBindingFile file = new MappedBindingFile(data);
+        // 超过初始容量 1024 两次，扩容到 4096 个槽位
+        for (int i = 0; i < 3000; i++) {
+            String blockId = new UUID(i, -i).toString();
+            String material = i % 2 == 0 ? "STONE" : "OAK_LOG";
+            file.put(PLAYER, blockId, new Binding(material, i, 3000, false));
+            expected.put(blockId, material + ":" + i + "/3000");
+        }
+        for (int i = 0; i < 3000; i += 3) {
+            String blockId = new UUID(i, -i).toString();
+            file.delete(blockId);
+            expected.remove(blockId);
+        }
+        assertEquals(expected.size(), file.size());
+        file.close();
+
+        assertEquals(HEADER_SIZE + 4096L * RECORD_SIZE, data.length());
+        assertEquals(expected, readAll(data));
+
+        // 重新打开后继续写入和删除，再次读取结果一致
+        MappedBindingFile reopened = new MappedBindingFile(data);
+        reopened.readAll((player, blockId, binding) -> { });
+        for (int i = 3000; i < 3500; i++) {
+            String blockId = new UUID(i, -i).toString();
+            reopened.put(PLAYER, blockId, new Binding("GLASS", i, 3500, false));
+            expected.put(blockId, "GLASS:" + i + "/3500");
+        }
+        String updated = new UUID(1, -1).toString();
+        reopened.put(PLAYER, updated, new Binding("OAK_LOG", 0, 3000, false));
+        expected.put(updated, "OAK_LOG:0/3000");
+        reopened.close();
+        // 新记录先填满删除留下的槽位，不需要再扩容
+        assertEquals(HEADER_SIZE + 4096L * RECORD_SIZE, data.length());
+        assertEquals(expected, readAll(data));
+    }
+
+    @Test
+    void rejectsForeignFile() throws IOException {
+        File data = new File(dir, "bindings.dat");
+        Files.write(data.toPath(), new byte[HEADER_SIZE + RECORD_SIZE]);
+        assertThrows(IOException.class, () -> new MappedBindingFile(data));
+    }
+
+    @Test
+    void slotIndexBackwardShift() {
+        // 理想位置相同的一条探测链，删除链中间的条目后后面的条目必须前移
+        long[][] chain = keysWithHome(63, 6);
+        MappedBindingFile.SlotIndex index = new MappedBindingFile.SlotIndex();
+        for (int i = 0; i < chain.length; i++) {
+            assertEquals(-1, index.put(chain[i][0], chain[i][1], i));
+        }
+        assertEquals(2, index.remove(chain[2][0], chain[2][1]));
+        assertEquals(-1, index.remove(chain[2][0], chain[2][1]));
+        for (int i = 0; i < chain.length; i++) {
+            assertEquals(i == 2 ? -1 : i, index.get(chain[i][0], chain[i][1]), "key " + i);
+        }
+        // 表尾回绕到表头的链
+        assertEquals(0, index.remove(chain[0][0], chain[0][1]));
+        assertEquals(5, index.remove(chain[5][0], chain[5][1]));
+        assertEquals(1, index.get(chain[1][0], chain[1][1]));
+        assertEquals(3, index.get(chain[3][0], chain[3][1]));
+        assertEquals(4, index.get(chain[4][0], chain[4][1]));
+        assertEquals(3, index.put(chain[3][0], chain[3][1], 30));
+        assertEquals(30, index.get(chain[3][0], chain[3][1]));
+    }
+
+    @Test
+    void slotIndexMatchesHashMap() {
+        Random random = new Random(24);
+        MappedBindingFile.SlotIndex index = new MappedBindingFile.SlotIndex();
+        Map<Long, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 100_000; i++) {
+            long key = random.nextInt(2048);
+            int op = random.nextInt(3);
+            if (op == 0) {
+                Integer removed = expected.remove(key);
+                assertEquals(removed != null ? removed : -1, index.remove(key, ~key));
+            } else {
+                Integer previous = expected.put(key, i);
+                assertEquals(previous != null ? previous : -1, index.put(key, ~key, i));
+            }
+        }
+        for (long key = 0; key < 2048; key++) {
+            Integer slot = expected.get(key);
+            assertEquals(slot != null ? slot : -1, index.get(key, ~key), "key " + key);
+        }
+    }
+
+    /**
+     * 在 64 个桶的初始表中理想位置为 home 的前 count 个键
+     */
+    private static long[][] keysWithHome(int home, int count) {
+        long[][] keys = new long[count][];
+        int found = 0;
+        for (long h = 1; found < count; h++) {
+            if ((MappedBindingFile.SlotIndex.hash(h, 7L) & 63) == home) {
+                keys[found++] = new long[]{h, 7L};
+            }
+        }
+        return keys;
+    }
+
+    private static void assertRecord(ByteBuffer buf, int off, UUID block, int material, int uses, int maxUses, boolean hidden) {
+        assertEquals(1, buf.get(off));
+        assertEquals(hidden ? 1 : 0, buf.get(off + 1));
+        assertEquals(material, buf.getInt(off + 4));
+        assertEquals(PLAYER.getMostSignificantBits(), buf.getLong(off + 8));
+        assertEquals(PLAYER.getLeastSignificantBits(), buf.getLong(off + 16));
+        assertEquals(block.getMostSignificantBits(), buf.getLong(off + 24));
+        assertEquals(block.getLeastSignificantBits(), buf.getLong(off + 32));
+        assertEquals(uses, buf.getInt(off + 40));
+        assertEquals(maxUses, buf.getInt(off + 44));
+    }
+
+    private static Map<String, String> readAll(File data) throws IOException {
+        Map<String, String> result = new HashMap<>();
+        MappedBindingFile file = new MappedBindingFile(data);
+        try {
+            assertEquals(0, file.readAll((player, blockId, binding) -> {
+                assertEquals(PLAYER, player);
+                result.put(blockId, binding.getMaterial() + ":" + binding.getUses() + "/" + binding.getMaxUses());
+            }));
+        } finally {
+            file.close();
+        }
+        return result;
+    }
+}
@@ -0,0 +1,88 @@
+package io.github.syferie.magicblock.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * BlockKey 打包格式测试：x/z 各 26 位、y 12 位，负坐标和边界坐标必须能原样还原
+ */
+class BlockKeyTest {
+    private static final int XZ_MIN = -(1 << 25);
+    private static final int XZ_MAX = (1 << 25) - 1;
+    private static final int Y_MIN = -2048;
+    private static final int Y_MAX = 2047;
+
+    @Test
+    void roundTripAtExtremes() {
+        int[] xz = {XZ_MIN, XZ_MIN + 1, -30_000_000, -16, -1, 0, 1, 15, 16, 30_000_000, XZ_MAX - 1, XZ_MAX};
+        int[] ys = {Y_MIN, -64, -1, 0, 1, 255, 319, Y_MAX};
+        for (int x : xz) {
+            for (int z : xz) {
+                for (int y : ys) {
+                    long key = BlockKey.pack(x, y, z);
+                    assertEquals(x, BlockKey.unpackX(key), () -> "x of " + x + "," + y + "," + z);
+                    assertEquals(y, BlockKey.unpackY(key), () -> "y of " + x + "," + y + "," + z);
+                    assertEquals(z, BlockKey.unpackZ(key), () -> "z of " + x + "," + y + "," + z);
+                }
+            }
+        }
+    }
+
+    @Test
+    void neighboursDoNotCollide() {
+        // 跨越 0 和区块边界的相邻坐标，包括符号位相邻的情况
+        Set<Long> keys = new HashSet<>();
+        for (int x = -17; x <= 17; x++) {
+            for (int y = -66; y <= -62; y++) {
+                for (int z = -17; z <= 17; z++) {
+                    assertTrue(keys.add(BlockKey.pack(x, y, z)), "collision at " + x + "," + y + "," + z);
+                }
+            }
+        }
+        assertNotEquals(BlockKey.pack(XZ_MIN, 0, 0), BlockKey.pack(XZ_MAX, 0, 0));
+        assertNotEquals(BlockKey.pack(0, Y_MIN, 0), BlockKey.pack(0, Y_MAX, 0));
+        assertNotEquals(BlockKey.pack(0, -1, 0), BlockKey.pack(0, 0, -1));
+    }
+
+    @Test
+    void chunkKeyOfNegativeBlocks() {
+        assertEquals(BlockKey.chunkKey(-1, -1), BlockKey.chunkKeyOf(BlockKey.pack(-1, 64, -1)));
+        assertEquals(BlockKey.chunkKey(-1, 0), BlockKey.chunkKeyOf(BlockKey.pack(-16, 64, 15)));
+        assertEquals(BlockKey.chunkKey(-2, 1), BlockKey.chunkKeyOf(BlockKey.pack(-17, 64, 16)));
+        assertEquals(BlockKey.chunkKey(XZ_MIN >> 4, XZ_MAX >> 4), BlockKey.chunkKeyOf(BlockKey.pack(XZ_MIN, 0, XZ_MAX)));
+
+        int[] chunks = {Integer.MIN_VALUE, -1_875_000, -1, 0, 1, 1_875_000, Integer.MAX_VALUE};
+        for (int cx : chunks) {
+            for (int cz : chunks) {
+                long key = BlockKey.chunkKey(cx, cz);
+                assertEquals(cx, BlockKey.chunkX(key));
+                assertEquals(cz, BlockKey.chunkZ(key));
+            }
+        }
+    }
+
+    @Test
+    void localRoundTrip() {
+        int[] chunks = {-2, -1, 0, 1};
+        for (int cx : chunks) {
+            for (int cz : chunks) {
+                for (int y = Y_MIN; y <= Y_MAX; y += 97) {
+                    for (int dx = 0; dx < 16; dx += 5) {
+                        for (int dz = 0; dz < 16; dz += 3) {
+                            int x = (cx << 4) + dx;
+                            int z = (cz << 4) + dz;
+                            int local = BlockKey.packLocal(x, y, z);
+                            assertEquals(x, BlockKey.localX(cx, local));
+                            assertEquals(y, BlockKey.localY(local));
+                            assertEquals(z, BlockKey.localZ(cz, local));
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package io.github.syferie.magicblock.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * LongHashSet 的正确性测试：键 0 和负数键、探测冲突、回绕和扩容期间的删除
+ */
+class LongHashSetTest {
+
+    @Test
+    void zeroAndNegativeKeys() {
+        LongHashSet set = new LongHashSet();
+        long[] keys = {0L, -1L, Long.MIN_VALUE, Long.MAX_VALUE, BlockKey.pack(-1, -64, -1)};
+        for (long key : keys) {
+            assertTrue(set.add(key), "add " + key);
+            assertFalse(set.add(key), "duplicate add " + key);
+        }
+        assertEquals(keys.length, set.size());
+        for (long key : keys) {
+            assertTrue(set.contains(key), "contains " + key);
+        }
+        assertArrayEquals(sorted(keys), sorted(set.toArray()));
+
+        assertTrue(set.remove(0L));
+        assertFalse(set.contains(0L));
+        assertFalse(set.remove(0L));
+        assertTrue(set.contains(-1L));
+        assertEquals(keys.length - 1, set.size());
+    }
+
+    @Test
+    void removeFromCollisionChain() {
+        // 初始容量 16 下落到同一个槽位的一组键
+        long[] chain = keysWithSlot(16, 3, 6);
+        LongHashSet set = new LongHashSet(4);
+        for (long key : chain) {
+            set.add(key);
+        }
+        // 删除链的中间元素后，后面的元素必须仍能找到
+        assertTrue(set.remove(chain[2]));
+        for (int i = 0; i < chain.length; i++) {
+            assertEquals(i != 2, set.contains(chain[i]), "key " + i);
+        }
+        assertTrue(set.remove(chain[0]));
+        assertTrue(set.remove(chain[5]));
+        assertTrue(set.contains(chain[1]));
+        assertTrue(set.contains(chain[3]));
+        assertTrue(set.contains(chain[4]));
+        assertEquals(3, set.size());
+    }
+
+    @Test
+    void removeAcrossWrapAround() {
+        // 理想位置在最后一个槽位，探测链回绕到表头
+        long[] tail = keysWithSlot(16, 15, 4);
+        long[] head = keysWithSlot(16, 0, 2);
+        LongHashSet set = new LongHashSet(4);
+        for (long key : tail) {
+            set.add(key);
+        }
+        for (long key : head) {
+            set.add(key);
+        }
+        assertTrue(set.remove(tail[0]));
+        for (int i = 1; i < tail.length; i++) {
+            assertTrue(set.contains(tail[i]), "tail " + i);
+        }
+        for (long key : head) {
+            assertTrue(set.contains(key));
+        }
+        assertTrue(set.remove(head[0]));
+        assertTrue(set.contains(head[1]));
+        for (int i = 1; i < tail.length; i++) {
+            assertTrue(set.remove(tail[i]), "remove tail " + i);
+        }
+        assertTrue(set.contains(head[1]));
+        assertEquals(1, set.size());
+    }
+
+    @Test
+    void matchesHashSetUnderRandomOperations() {
+        // 键的范围很小，增删交替进行，集合会反复越过扩容阈值
+        Random random = new Random(42);
+        LongHashSet set = new LongHashSet();
+        Set<Long> expected = new HashSet<>();
+        for (int i = 0; i < 200_000; i++) {
+            long key = random.nextInt(4096) - 2048L;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), set.remove(key));
+            } else {
+                assertEquals(expected.add(key), set.add(key));
+            }
+            if ((i & 1023) == 0) {
+                assertEquals(expected.size(), set.size());
+            }
+        }
+        assertEquals(expected.size(), set.size());
+        for (long key = -2048; key < 2048; key++) {
+            assertEquals(expected.contains(key), set.contains(key), "key " + key);
+        }
+    }
+
+    @Test
+    void removeWhileGrowing() {
+        LongHashSet set = new LongHashSet();
+        for (long i = 1; i <= 10_000; i++) {
+            set.add(BlockKey.pack((int) i, (int) (i % 300) - 64, (int) -i));
+            // 每插入两个删除一个较早的键，删除发生在每一次扩容前后
+            if ((i & 1) == 0) {
+                long old = i / 2;
+                assertTrue(set.remove(BlockKey.pack((int) old, (int) (old % 300) - 64, (int) -old)), "remove " + old);
+            }
+        }
+        assertEquals(5_000, set.size());
+        for (long i = 1; i <= 10_000; i++) {
+            boolean present = i > 5_000;
+            assertEquals(present, set.contains(BlockKey.pack((int) i, (int) (i % 300) - 64, (int) -i)), "key " + i);
+        }
+    }
+
+    @Test
+    void clearResetsState() {
+        LongHashSet set = new LongHashSet();
+        set.add(0L);
+        set.add(7L);
+        set.clear();
+        assertTrue(set.isEmpty());
+        assertFalse(set.contains(0L));
+        assertFalse(set.contains(7L));
+        assertTrue(set.add(7L));
+    }
+
+    /**
+     * 在给定容量下理想位置为 slot 的前 count 个非零键
+     */
+    static long[] keysWithSlot(int capacity, int slot, int count) {
+        long[] result = new long[count];
+        int found = 0;
+        for (long key = 1; found < count; key++) {
+            if ((LongHashSet.mix(key) & (capacity - 1)) == slot) {
+                result[found++] = key;
+            }
+        }
+        return result;
+    }
+
+    private static long[] sorted(long[] keys) {
+        long[] copy = keys.clone();
+        Arrays.sort(copy);
+        return copy;
+    }
+}
@@ -0,0 +1,126 @@
+package io.github.syferie.magicblock.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * LongObjectHashMap 的正确性测试：键 0 和负数区块键、探测冲突、回绕和扩容期间的删除
+ */
+class LongObjectHashMapTest {
+
+    @Test
+    void zeroAndNegativeKeys() {
+        LongObjectHashMap<String> map = new LongObjectHashMap<>();
+        assertNull(map.put(0L, "origin"));
+        assertNull(map.put(BlockKey.chunkKey(-1, -1), "minus"));
+        assertNull(map.put(BlockKey.chunkKey(Integer.MIN_VALUE, Integer.MAX_VALUE), "edge"));
+        assertEquals("origin", map.put(0L, "origin2"));
+        assertEquals(3, map.size());
+
+        assertEquals("origin2", map.get(0L));
+        assertTrue(map.containsKey(0L));
+        assertEquals("minus", map.get(BlockKey.chunkKey(-1, -1)));
+        assertEquals("edge", map.get(BlockKey.chunkKey(Integer.MIN_VALUE, Integer.MAX_VALUE)));
+        assertNull(map.get(BlockKey.chunkKey(-1, 0)));
+
+        assertEquals("origin2", map.remove(0L));
+        assertNull(map.remove(0L));
+        assertFalse(map.containsKey(0L));
+        assertEquals(2, map.size());
+        assertEquals(2, map.keys().length);
+        assertEquals(2, map.values().size());
+    }
+
+    @Test
+    void removeFromCollisionChainKeepsValues() {
+        long[] chain = LongHashSetTest.keysWithSlot(16, 7, 6);
+        LongObjectHashMap<Long> map = new LongObjectHashMap<>(4);
+        for (long key : chain) {
+            map.put(key, key * 10);
+        }
+        assertEquals(chain[1] * 10, map.remove(chain[1]));
+        assertEquals(chain[3] * 10, map.remove(chain[3]));
+        for (int i = 0; i < chain.length; i++) {
+            if (i == 1 || i == 3) {
+                assertNull(map.get(chain[i]));
+            } else {
+                // 前移的条目必须带着自己的值
+                assertEquals(chain[i] * 10, map.get(chain[i]), "key " + i);
+            }
+        }
+    }
+
+    @Test
+    void removeAcrossWrapAround() {
+        long[] tail = LongHashSetTest.keysWithSlot(16, 14, 4);
+        long[] head = LongHashSetTest.keysWithSlot(16, 1, 2);
+        LongObjectHashMap<String> map = new LongObjectHashMap<>(4);
+        for (long key : tail) {
+            map.put(key, "t" + key);
+        }
+        for (long key : head) {
+            map.put(key, "h" + key);
+        }
+        assertEquals("t" + tail[1], map.remove(tail[1]));
+        for (long key : tail) {
+            assertEquals(key == tail[1] ? null : "t" + key, map.get(key));
+        }
+        for (long key : head) {
+            assertEquals("h" + key, map.get(key));
+        }
+    }
+
+    @Test
+    void matchesHashMapUnderRandomOperations() {
+        Random random = new Random(7);
+        LongObjectHashMap<Integer> map = new LongObjectHashMap<>();
+        Map<Long, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 200_000; i++) {
+            long key = BlockKey.chunkKey(random.nextInt(64) - 32, random.nextInt(64) - 32);
+            int op = random.nextInt(4);
+            if (op == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else if (op == 1) {
+                assertEquals(expected.get(key), map.get(key));
+            } else {
+                assertEquals(expected.put(key, i), map.put(key, i));
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        for (Map.Entry<Long, Integer> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), map.get(entry.getKey()));
+        }
+        Map<Long, Integer> iterated = new HashMap<>();
+        map.forEach(iterated::put);
+        assertEquals(expected, iterated);
+    }
+
+    @Test
+    void removeWhileGrowing() {
+        LongObjectHashMap<Integer> map = new LongObjectHashMap<>();
+        for (int i = 0; i < 10_000; i++) {
+            map.put(BlockKey.chunkKey(i, -i), i);
+            if ((i & 1) == 1) {
+                int old = i / 2;
+                assertEquals(old, map.remove(BlockKey.chunkKey(old, -old)));
+            }
+        }
+        assertEquals(5_000, map.size());
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals(i >= 5_000 ? Integer.valueOf(i) : null, map.get(BlockKey.chunkKey(i, -i)), "key " + i);
+        }
+    }
+
+    @Test
+    void computeIfAbsentCreatesOnce() {
+        LongObjectHashMap<StringBuilder> map = new LongObjectHashMap<>();
+        StringBuilder first = map.computeIfAbsent(-5L, key -> new StringBuilder());
+        assertSame(first, map.computeIfAbsent(-5L, key -> new StringBuilder()));
+        assertEquals(1, map.size());
+    }
+}